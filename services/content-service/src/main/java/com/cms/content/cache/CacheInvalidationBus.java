@@ -0,0 +1,13 @@
+package com.cms.content.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * レプリカ間でキャッシュ無効化イベントを伝搬するチャネル。
+ * publish はトランザクション中に呼ばれた場合、コミット後に配信されなければならない。
+ */
+public interface CacheInvalidationBus {
+    void publish(CacheInvalidationEvent event);
+
+    void subscribe(Consumer<CacheInvalidationEvent> listener);
+}
@@ -0,0 +1,30 @@
+package com.cms.content.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidationEvent {
+    private EntityType entityType;
+    private Long universityId; // null の場合は全大学が対象
+    private Long entityId;
+    private List<String> keys; // 無効化するキャッシュキー（コンテンツの場合はスラッグ）。null の場合は大学単位で無効化
+    private String origin; // 発行元インスタンスID
+
+    public enum EntityType {
+        CONTENT,
+        CONTENT_TEMPLATE, // entityId はテンプレートID（解析結果と描画済み HTML を捨てる）
+        UNIVERSITY_FIELD_CONFIG,
+        UNIVERSITY_LAYOUT_CONFIG,
+        PROCEDURE_FLOW,
+        PROCEDURE_PROGRESS, // entityId はユーザーID、keys はフローID
+        ALL             // 通知の取りこぼしが疑われる場合の全キャッシュ破棄
+    }
+}
@@ -0,0 +1,67 @@
+package com.cms.content.cache;
+
+import com.cms.content.procedure.ProcedureFlowGraphCache;
+import com.cms.content.procedure.ProcedureProgressSnapshotCache;
+import com.cms.content.service.ContentIndexService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 他レプリカから届いた無効化イベントをローカルキャッシュに反映する。
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheInvalidationListener {
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final PublishedContentCache publishedContentCache;
+    private final CompiledTemplateCache compiledTemplateCache;
+    private final ProcedureFlowGraphCache flowGraphCache;
+    private final ProcedureProgressSnapshotCache progressSnapshotCache;
+    private final ContentIndexService contentIndexService;
+
+    @PostConstruct
+    public void register() {
+        cacheInvalidationBus.subscribe(this::onEvent);
+    }
+
+    private void onEvent(CacheInvalidationEvent event) {
+        switch (event.getEntityType()) {
+            case CONTENT -> {
+                if (event.getUniversityId() == null) {
+                    publishedContentCache.clear();
+                    contentIndexService.rebuildAll();
+                } else if (event.getKeys() == null) {
+                    publishedContentCache.evictUniversity(event.getUniversityId());
+                    contentIndexService.rebuildUniversity(event.getUniversityId());
+                } else {
+                    publishedContentCache.evict(event.getUniversityId(), event.getKeys().toArray(new String[0]));
+                    contentIndexService.refresh(event.getUniversityId(), event.getKeys());
+                }
+            }
+            case CONTENT_TEMPLATE -> {
+                compiledTemplateCache.evict(event.getEntityId());
+                publishedContentCache.evictRendered(event.getUniversityId(), event.getEntityId());
+            }
+            case PROCEDURE_FLOW -> flowGraphCache.evict(event.getEntityId());
+            case PROCEDURE_PROGRESS -> {
+                if (event.getKeys() == null) {
+                    progressSnapshotCache.clear();
+                } else {
+                    event.getKeys().forEach(flowId ->
+                            progressSnapshotCache.evict(event.getEntityId(), Long.valueOf(flowId)));
+                }
+            }
+            case ALL -> {
+                publishedContentCache.clear();
+                compiledTemplateCache.clear();
+                flowGraphCache.clear();
+                progressSnapshotCache.clear();
+                contentIndexService.rebuildAll();
+            }
+            default -> {
+                // 大学設定系のローカルキャッシュは現状なし
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.cms.content.cache;
+
+import com.cms.content.entity.ContentTemplate;
+import com.cms.content.template.CompiledTemplate;
+import com.cms.content.template.TemplateParser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 解析済みテンプレートのプロセス内キャッシュ（LRU）。キーに updatedAt を含むため、
+ * 更新されたテンプレートは別のキーになり、古い解析結果が使われることはない。
+ */
+@Component
+public class CompiledTemplateCache {
+    private final int maxEntries;
+    private final Map<Key, CompiledTemplate> entries;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public record Key(Long templateId, LocalDateTime updatedAt) {
+    }
+
+    public CompiledTemplateCache(
+            MeterRegistry meterRegistry,
+            @Value("${cms.cache.compiled-template.max-entries:1000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CompiledTemplate> eldest) {
+                return size() > CompiledTemplateCache.this.maxEntries;
+            }
+        };
+
+        this.hits = Counter.builder("cms.content.template.cache.requests").tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cms.content.template.cache.requests").tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("cms.content.template.cache.size", this, CompiledTemplateCache::size).register(meterRegistry);
+    }
+
+    public CompiledTemplate get(ContentTemplate template) {
+        Key key = new Key(template.getId(), template.getUpdatedAt());
+        synchronized (this) {
+            CompiledTemplate compiled = entries.get(key);
+            if (compiled != null) {
+                hits.increment();
+                return compiled;
+            }
+        }
+        misses.increment();
+        // 解析はロックの外で行う（同時に解析されても結果は同じ）
+        CompiledTemplate compiled = TemplateParser.parse(template.getContent());
+        synchronized (this) {
+            entries.keySet().removeIf(existing -> Objects.equals(existing.templateId(), template.getId()));
+            entries.put(key, compiled);
+        }
+        return compiled;
+    }
+
+    public synchronized void evict(Long templateId) {
+        entries.keySet().removeIf(key -> Objects.equals(key.templateId(), templateId));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
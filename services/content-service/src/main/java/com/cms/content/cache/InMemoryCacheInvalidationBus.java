@@ -0,0 +1,43 @@
+package com.cms.content.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 単一JVM内で完結する無効化チャネル（テスト・ローカル開発用）。
+ * 発行元を問わず、登録済みの全リスナーにコミット後に配信する。
+ */
+@Component
+@ConditionalOnProperty(name = "cms.cache.invalidation.bus", havingValue = "in-memory")
+public class InMemoryCacheInvalidationBus implements CacheInvalidationBus {
+    private final List<Consumer<CacheInvalidationEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(CacheInvalidationEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliver(event);
+                }
+            });
+        } else {
+            deliver(event);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidationEvent> listener) {
+        listeners.add(listener);
+    }
+
+    private void deliver(CacheInvalidationEvent event) {
+        listeners.forEach(listener -> listener.accept(event));
+    }
+}
@@ -0,0 +1,376 @@
+package com.cms.content.cache;
+
+import com.cms.content.dto.ContentResponse;
+import com.cms.content.entity.Content;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 公開済みコンテンツのスラッグ検索結果を保持するプロセス内キャッシュ。
+ * 件数上限・TTL・大学ごとのメモリ上限で追い出しを行う。
+ * テンプレートで描画した HTML も同じエントリに保持し、コンテンツと一緒に追い出す。
+ */
+@Component
+public class PublishedContentCache {
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+    private static final String UNIVERSITY_KEY_PREFIX = "u:";
+    private static final String GLOBAL_KEY_PREFIX = "*:";
+    private static final int RENDERED_GENERATION_STRIPES = 256;
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long maxBytesPerUniversity;
+
+    // 大学IDごとのセグメント（各セグメントはLRU順）
+    private final Map<Long, Segment> segments = new ConcurrentHashMap<>();
+    // 大学を指定しないスラッグ検索用: スラッグ → 格納先の大学ID
+    private final Map<String, Long> globalSlugOwners = new ConcurrentHashMap<>();
+    private final AtomicInteger totalEntries = new AtomicInteger();
+    private final AtomicLong totalBytes = new AtomicLong();
+    // 無効化のたびに進める世代番号（DB読み込み中に無効化された古い値の格納を防ぐ）
+    private final AtomicLong generation = new AtomicLong();
+    // テンプレートIDのハッシュごとの世代番号（描画中にテンプレートが変更された HTML の格納を防ぐ）
+    private final AtomicLongArray renderedGenerations = new AtomicLongArray(RENDERED_GENERATION_STRIPES);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+    private final Counter memoryEvictions;
+    private final Counter invalidations;
+    private final Counter renderedHits;
+    private final Counter renderedMisses;
+
+    public PublishedContentCache(
+            MeterRegistry meterRegistry,
+            @Value("${cms.cache.content.max-entries:10000}") int maxEntries,
+            @Value("${cms.cache.content.ttl:10m}") Duration ttl,
+            @Value("${cms.cache.content.max-memory-per-university:16MB}") DataSize maxMemoryPerUniversity) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.maxBytesPerUniversity = maxMemoryPerUniversity.toBytes();
+
+        this.hits = Counter.builder("cms.content.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("cms.content.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.sizeEvictions = Counter.builder("cms.content.cache.evictions").tag("cause", "size").register(meterRegistry);
+        this.expiredEvictions = Counter.builder("cms.content.cache.evictions").tag("cause", "expired").register(meterRegistry);
+        this.memoryEvictions = Counter.builder("cms.content.cache.evictions").tag("cause", "memory").register(meterRegistry);
+        this.invalidations = Counter.builder("cms.content.cache.invalidations").register(meterRegistry);
+        this.renderedHits = Counter.builder("cms.content.cache.rendered.requests").tag("result", "hit")
+                .register(meterRegistry);
+        this.renderedMisses = Counter.builder("cms.content.cache.rendered.requests").tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("cms.content.cache.size", totalEntries, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("cms.content.cache.memory", totalBytes, AtomicLong::get)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * DB読み込み前に取得し、{@link #put}に渡す。
+     */
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    public ContentResponse get(Long universityId, String slug) {
+        Long owner = universityId != null ? universityId : globalSlugOwners.get(slug);
+        Segment segment = owner != null ? segments.get(owner) : null;
+        ContentResponse response = segment != null ? segment.get(keyOf(universityId, slug)) : null;
+        if (response == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return response;
+    }
+
+    public void put(Long universityId, String slug, ContentResponse response, long readGeneration) {
+        if (response.getStatus() != Content.Status.PUBLISHED) {
+            return;
+        }
+        Long owner = response.getUniversityId();
+        Segment segment = segments.computeIfAbsent(owner, id -> new Segment());
+        synchronized (segment) {
+            // 読み込み中に無効化が発生した場合は格納しない
+            if (generation.get() != readGeneration) {
+                return;
+            }
+            segment.put(keyOf(universityId, slug), response);
+            if (universityId == null) {
+                globalSlugOwners.put(slug, owner);
+            }
+        }
+        while (totalEntries.get() > maxEntries) {
+            if (!evictEldestFromLargestSegment()) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * response と同じエントリに保持されている描画済み HTML を返す（エントリが入れ替わっていれば null）。
+     */
+    public String getRendered(Long universityId, String slug, ContentResponse response) {
+        Segment segment = segments.get(response.getUniversityId());
+        String rendered = segment != null ? segment.getRendered(keyOf(universityId, slug), response) : null;
+        (rendered != null ? renderedHits : renderedMisses).increment();
+        return rendered;
+    }
+
+    /**
+     * テンプレートの読み込み前に取得し、{@link #putRendered}に渡す。
+     */
+    public long currentRenderedGeneration(Long templateId) {
+        return renderedGenerations.get(renderedStripe(templateId));
+    }
+
+    // response から描画した HTML を、response がまだキャッシュされていて、
+    // 描画に使ったテンプレートがその後変更されていない場合だけそのエントリに追加する
+    public void putRendered(Long universityId, String slug, ContentResponse response, String rendered,
+                            long readRenderedGeneration) {
+        Segment segment = segments.get(response.getUniversityId());
+        if (segment != null) {
+            segment.putRendered(keyOf(universityId, slug), response, rendered, readRenderedGeneration);
+        }
+    }
+
+    // テンプレートが変更された場合、コンテンツは残して描画済み HTML だけを捨てる
+    public void evictRendered(Long universityId, Long templateId) {
+        renderedGenerations.incrementAndGet(renderedStripe(templateId));
+        Segment segment = segments.get(universityId);
+        if (segment != null) {
+            segment.removeRendered(templateId);
+        }
+    }
+
+    public void evict(Long universityId, String... slugs) {
+        generation.incrementAndGet();
+        Segment segment = segments.get(universityId);
+        for (String slug : slugs) {
+            if (slug == null) {
+                continue;
+            }
+            if (segment != null) {
+                synchronized (segment) {
+                    segment.remove(keyOf(universityId, slug));
+                }
+            }
+            Long owner = globalSlugOwners.remove(slug);
+            Segment ownerSegment = owner != null ? segments.get(owner) : null;
+            if (ownerSegment != null) {
+                synchronized (ownerSegment) {
+                    ownerSegment.remove(keyOf(null, slug));
+                }
+            }
+        }
+        invalidations.increment();
+    }
+
+    /**
+     * トランザクション中であればコミット後に、そうでなければ即座に無効化する。
+     */
+    public void evictAfterCommit(Long universityId, String... slugs) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(universityId, slugs);
+                }
+            });
+        } else {
+            evict(universityId, slugs);
+        }
+    }
+
+    public void evictUniversity(Long universityId) {
+        generation.incrementAndGet();
+        Segment segment = segments.get(universityId);
+        if (segment != null) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+        globalSlugOwners.values().removeIf(owner -> Objects.equals(owner, universityId));
+        invalidations.increment();
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        for (Segment segment : segments.values()) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+        globalSlugOwners.clear();
+        invalidations.increment();
+    }
+
+    private boolean evictEldestFromLargestSegment() {
+        Segment largest = null;
+        int largestSize = 0;
+        for (Segment segment : segments.values()) {
+            int size = segment.entries.size();
+            if (size > largestSize) {
+                largest = segment;
+                largestSize = size;
+            }
+        }
+        if (largest == null) {
+            return false;
+        }
+        synchronized (largest) {
+            return largest.evictEldest(sizeEvictions);
+        }
+    }
+
+    // 大学指定なしの検索は別の接頭辞を付けたキーで、所属大学のセグメントに格納する
+    private static String keyOf(Long universityId, String slug) {
+        return (universityId != null ? UNIVERSITY_KEY_PREFIX : GLOBAL_KEY_PREFIX) + slug;
+    }
+
+    private static int renderedStripe(Long templateId) {
+        return Math.floorMod(Objects.hashCode(templateId), RENDERED_GENERATION_STRIPES);
+    }
+
+    private static long estimateBytes(ContentResponse response) {
+        long chars = length(response.getTitle()) + length(response.getBody()) + length(response.getSlug())
+                + length(response.getCustomFields()) + length(response.getMetaDescription())
+                + length(response.getMetaKeywords()) + length(response.getContentType());
+        return chars * 2 + ENTRY_OVERHEAD_BYTES;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    private record Entry(ContentResponse response, long bytes, long expiresAt, String rendered) {
+    }
+
+    private class Segment {
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long bytes;
+
+        synchronized ContentResponse get(String key) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.expiresAt() > 0) {
+                remove(key);
+                expiredEvictions.increment();
+                return null;
+            }
+            return entry.response();
+        }
+
+        void put(String key, ContentResponse response) {
+            long entryBytes = estimateBytes(response);
+            if (entryBytes > maxBytesPerUniversity) {
+                return;
+            }
+            remove(key);
+            entries.put(key, new Entry(response, entryBytes, System.nanoTime() + ttlNanos, null));
+            bytes += entryBytes;
+            totalEntries.incrementAndGet();
+            totalBytes.addAndGet(entryBytes);
+            while (bytes > maxBytesPerUniversity && evictEldest(memoryEvictions)) {
+                // 大学ごとのメモリ上限を超えた分を古い順に追い出す
+            }
+        }
+
+        synchronized String getRendered(String key, ContentResponse response) {
+            Entry entry = entries.get(key);
+            if (entry == null || entry.response() != response || System.nanoTime() - entry.expiresAt() > 0) {
+                return null;
+            }
+            return entry.rendered();
+        }
+
+        synchronized void putRendered(String key, ContentResponse response, String rendered,
+                                      long readRenderedGeneration) {
+            Entry entry = entries.get(key);
+            if (entry == null || entry.response() != response || entry.rendered() != null) {
+                return;
+            }
+            // evictRendered は世代を進めてからこのセグメントのロックを取るため、ここで判定すれば取りこぼさない
+            if (renderedGenerations.get(renderedStripe(response.getTemplateId())) != readRenderedGeneration) {
+                return;
+            }
+            long renderedBytes = (long) rendered.length() * 2;
+            if (entry.bytes() + renderedBytes > maxBytesPerUniversity) {
+                return;
+            }
+            entries.put(key, new Entry(response, entry.bytes() + renderedBytes, entry.expiresAt(), rendered));
+            bytes += renderedBytes;
+            totalBytes.addAndGet(renderedBytes);
+            while (bytes > maxBytesPerUniversity && evictEldest(memoryEvictions)) {
+                // 大学ごとのメモリ上限を超えた分を古い順に追い出す
+            }
+        }
+
+        synchronized void removeRendered(Long templateId) {
+            for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+                Entry entry = mapEntry.getValue();
+                if (entry.rendered() != null && Objects.equals(entry.response().getTemplateId(), templateId)) {
+                    long renderedBytes = (long) entry.rendered().length() * 2;
+                    mapEntry.setValue(new Entry(entry.response(), entry.bytes() - renderedBytes,
+                            entry.expiresAt(), null));
+                    bytes -= renderedBytes;
+                    totalBytes.addAndGet(-renderedBytes);
+                }
+            }
+        }
+
+        void remove(String key) {
+            Entry removed = entries.remove(key);
+            if (removed != null) {
+                released(key, removed);
+            }
+        }
+
+        boolean evictEldest(Counter cause) {
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            Map.Entry<String, Entry> eldest = iterator.next();
+            iterator.remove();
+            released(eldest.getKey(), eldest.getValue());
+            cause.increment();
+            return true;
+        }
+
+        void clear() {
+            List<String> keys = new ArrayList<>(entries.keySet());
+            keys.forEach(this::remove);
+        }
+
+        private void released(String key, Entry entry) {
+            bytes -= entry.bytes();
+            totalEntries.decrementAndGet();
+            totalBytes.addAndGet(-entry.bytes());
+            if (key.startsWith(GLOBAL_KEY_PREFIX)) {
+                globalSlugOwners.remove(key.substring(GLOBAL_KEY_PREFIX.length()), entry.response().getUniversityId());
+            }
+        }
+    }
+}
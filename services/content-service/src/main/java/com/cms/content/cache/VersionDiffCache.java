@@ -0,0 +1,66 @@
+package com.cms.content.cache;
+
+import com.cms.content.dto.ContentVersionDiffResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * バージョン間の差分結果を保持するプロセス内キャッシュ（LRU）。
+ * 保存済みのバージョンは変更されないため、無効化は不要で件数上限による追い出しだけを行う。
+ */
+@Component
+public class VersionDiffCache {
+    private final int maxEntries;
+    private final int maxLinesPerEntry;
+    private final Map<Key, ContentVersionDiffResponse> entries;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public record Key(Long contentId, int fromVersion, int toVersion, int context) {
+    }
+
+    public VersionDiffCache(
+            MeterRegistry meterRegistry,
+            @Value("${cms.cache.version-diff.max-entries:500}") int maxEntries,
+            @Value("${cms.cache.version-diff.max-lines-per-entry:5000}") int maxLinesPerEntry) {
+        this.maxEntries = maxEntries;
+        this.maxLinesPerEntry = maxLinesPerEntry;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ContentVersionDiffResponse> eldest) {
+                return size() > VersionDiffCache.this.maxEntries;
+            }
+        };
+
+        this.hits = Counter.builder("cms.content.version-diff.cache.requests").tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cms.content.version-diff.cache.requests").tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("cms.content.version-diff.cache.size", this, VersionDiffCache::size).register(meterRegistry);
+    }
+
+    public synchronized ContentVersionDiffResponse get(Key key) {
+        ContentVersionDiffResponse diff = entries.get(key);
+        (diff != null ? hits : misses).increment();
+        return diff;
+    }
+
+    // 行数の多い差分はメモリを圧迫するのでキャッシュしない
+    public synchronized void put(Key key, ContentVersionDiffResponse diff) {
+        int lines = diff.getHunks().stream().mapToInt(hunk -> hunk.getLines().size()).sum();
+        if (lines <= maxLinesPerEntry) {
+            entries.put(key, diff);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
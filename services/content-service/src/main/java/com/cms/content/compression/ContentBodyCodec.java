@@ -0,0 +1,226 @@
+package com.cms.content.compression;
+
+import com.cms.content.entity.ContentBodyDictionary;
+import com.cms.content.repository.ContentBodyDictionaryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 本文・カスタムフィールドの圧縮保存形式。大学ごとの共有辞書をプリセット辞書にした raw deflate で圧縮する。
+ * 形式: "CZ" + 形式バージョン(1) + 辞書ID(8, 0 は辞書なし) + 展開後の UTF-8 バイト数(4) + 圧縮データ。
+ * 辞書IDを先頭に持つため、辞書を作り直しても既存の行はそのまま展開できる。
+ */
+@Component
+public class ContentBodyCodec {
+    private static final byte MAGIC_0 = 'C';
+    private static final byte MAGIC_1 = 'Z';
+    private static final byte FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 15;
+    private static final long NO_DICTIONARY = 0L;
+
+    // エンティティの getter から展開するために参照する（Spring 管理外のため）
+    private static volatile ContentBodyCodec instance;
+
+    private final ContentBodyDictionaryRepository dictionaryRepository;
+    private final Set<Long> enabledUniversities;
+    private final int minSize;
+    private final long dictionaryRefreshNanos;
+    private final Map<Long, byte[]> dictionariesById = new ConcurrentHashMap<>();
+    private final Map<Long, CurrentDictionary> currentByUniversity = new ConcurrentHashMap<>();
+
+    private final Timer decompressTimer;
+    private final Counter compressedWrites;
+    private final Counter plainWrites;
+
+    private record CurrentDictionary(long id, byte[] bytes, long loadedAt) {
+    }
+
+    public ContentBodyCodec(
+            ContentBodyDictionaryRepository dictionaryRepository,
+            MeterRegistry meterRegistry,
+            @Value("${cms.content.compression.universities:}") List<Long> enabledUniversities,
+            @Value("${cms.content.compression.min-size:1KB}") DataSize minSize,
+            @Value("${cms.content.compression.dictionary-refresh:5m}") Duration dictionaryRefresh) {
+        this.dictionaryRepository = dictionaryRepository;
+        this.enabledUniversities = Set.copyOf(enabledUniversities);
+        this.minSize = (int) minSize.toBytes();
+        this.dictionaryRefreshNanos = dictionaryRefresh.toNanos();
+
+        this.decompressTimer = Timer.builder("cms.content.compression.decompress")
+                .description("Time to inflate a compressed content body")
+                .register(meterRegistry);
+        this.compressedWrites = Counter.builder("cms.content.compression.writes").tag("result", "compressed")
+                .register(meterRegistry);
+        this.plainWrites = Counter.builder("cms.content.compression.writes").tag("result", "plain")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void register() {
+        instance = this;
+    }
+
+    public boolean isEnabled(Long universityId) {
+        return universityId != null && enabledUniversities.contains(universityId);
+    }
+
+    /**
+     * 保存用に圧縮する。圧縮保存が無効な大学、min-size 未満、圧縮しても小さくならない場合は null（平文で保存する）。
+     */
+    public byte[] compress(Long universityId, String text) {
+        if (text == null || !isEnabled(universityId)) {
+            return null;
+        }
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        if (raw.length < minSize) {
+            plainWrites.increment();
+            return null;
+        }
+        CurrentDictionary dictionary = currentDictionary(universityId);
+        byte[] compressed = deflate(raw, dictionary.id(), dictionary.bytes());
+        if (compressed.length >= raw.length) {
+            plainWrites.increment();
+            return null;
+        }
+        compressedWrites.increment();
+        return compressed;
+    }
+
+    /**
+     * 有効・無効や大きさに関わらず、現在の辞書で圧縮する（ベンチマーク用）。
+     */
+    public byte[] compressAlways(Long universityId, String text) {
+        CurrentDictionary dictionary = currentDictionary(universityId);
+        return deflate(text.getBytes(StandardCharsets.UTF_8), dictionary.id(), dictionary.bytes());
+    }
+
+    public String decompress(byte[] data) {
+        return decompressTimer.record(() -> inflate(data));
+    }
+
+    public static String decode(byte[] data) {
+        ContentBodyCodec codec = instance;
+        if (codec == null) {
+            throw new IllegalStateException("ContentBodyCodec is not initialized");
+        }
+        return codec.decompress(data);
+    }
+
+    // 辞書を作り直した大学は次の圧縮から新しい辞書を使う
+    public void dictionaryCreated(ContentBodyDictionary dictionary) {
+        dictionariesById.put(dictionary.getId(), dictionary.getDictionary());
+        currentByUniversity.put(dictionary.getUniversityId(),
+                new CurrentDictionary(dictionary.getId(), dictionary.getDictionary(), System.nanoTime()));
+    }
+
+    public long currentDictionaryId(Long universityId) {
+        return currentDictionary(universityId).id();
+    }
+
+    public long decompressCount() {
+        return decompressTimer.count();
+    }
+
+    public double decompressMeanMicros() {
+        return decompressTimer.mean(TimeUnit.MICROSECONDS);
+    }
+
+    // 他のレプリカで作られた辞書も refresh 間隔で取り込む
+    private CurrentDictionary currentDictionary(Long universityId) {
+        CurrentDictionary current = currentByUniversity.get(universityId);
+        if (current != null && System.nanoTime() - current.loadedAt() < dictionaryRefreshNanos) {
+            return current;
+        }
+        CurrentDictionary loaded = dictionaryRepository.findTopByUniversityIdOrderByIdDesc(universityId)
+                .map(dictionary -> {
+                    dictionariesById.put(dictionary.getId(), dictionary.getDictionary());
+                    return new CurrentDictionary(dictionary.getId(), dictionary.getDictionary(), System.nanoTime());
+                })
+                .orElseGet(() -> new CurrentDictionary(NO_DICTIONARY, null, System.nanoTime()));
+        currentByUniversity.put(universityId, loaded);
+        return loaded;
+    }
+
+    private byte[] dictionary(long dictionaryId) {
+        // 辞書は作成後に変更されないので期限なしで保持する
+        return dictionariesById.computeIfAbsent(dictionaryId, id -> dictionaryRepository.findById(id)
+                .map(ContentBodyDictionary::getDictionary)
+                .orElseThrow(() -> new IllegalStateException("Compression dictionary " + id + " not found")));
+    }
+
+    static byte[] deflate(byte[] raw, long dictionaryId, byte[] dictionary) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_SIZE + raw.length / 3 + 64);
+            out.writeBytes(ByteBuffer.allocate(HEADER_SIZE)
+                    .put(MAGIC_0).put(MAGIC_1).put(FORMAT_VERSION)
+                    .putLong(dictionaryId)
+                    .putInt(raw.length)
+                    .array());
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private String inflate(byte[] data) {
+        if (data.length < HEADER_SIZE || data[0] != MAGIC_0 || data[1] != MAGIC_1 || data[2] != FORMAT_VERSION) {
+            throw new IllegalStateException("Unsupported compressed body format");
+        }
+        ByteBuffer header = ByteBuffer.wrap(data, 3, HEADER_SIZE - 3);
+        long dictionaryId = header.getLong();
+        int length = header.getInt();
+
+        Inflater inflater = new Inflater(true);
+        try {
+            if (dictionaryId != NO_DICTIONARY) {
+                inflater.setDictionary(dictionary(dictionaryId));
+            }
+            inflater.setInput(data, HEADER_SIZE, data.length - HEADER_SIZE);
+            byte[] raw = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                int n = inflater.inflate(raw, offset, length - offset);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                offset += n;
+            }
+            if (offset != length) {
+                throw new IllegalStateException("Compressed body is truncated");
+            }
+            return new String(raw, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Compressed body is corrupted", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.cms.content.compression;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 大学の本文サンプルから共有辞書を作る。
+ * 複数の本文に現れる行・タグ区切りの断片（定型のヘッダーや注意書きなど）を「出現文書数 × 長さ」の順に選ぶ。
+ * deflate は近い位置ほど短く参照できるため、効果の大きい断片を辞書の末尾に置く。
+ */
+public final class DictionaryTrainer {
+    public static final int MAX_DICTIONARY_SIZE = 32 * 1024; // deflate のウィンドウサイズ
+
+    private static final int MIN_FRAGMENT_LENGTH = 8;
+    private static final int MAX_FRAGMENT_LENGTH = 1024;
+    private static final Pattern FRAGMENT_BOUNDARY = Pattern.compile("\n|(?<=>)(?=<)");
+
+    private DictionaryTrainer() {
+    }
+
+    public static byte[] train(Collection<String> samples) {
+        Map<String, Integer> documentFrequency = new HashMap<>();
+        int sampleCount = 0;
+        for (String sample : samples) {
+            if (sample == null || sample.isEmpty()) {
+                continue;
+            }
+            sampleCount++;
+            Set<String> seen = new HashSet<>();
+            for (String fragment : FRAGMENT_BOUNDARY.split(sample)) {
+                if (fragment.length() >= MIN_FRAGMENT_LENGTH && fragment.length() <= MAX_FRAGMENT_LENGTH
+                        && seen.add(fragment)) {
+                    documentFrequency.merge(fragment, 1, Integer::sum);
+                }
+            }
+        }
+        // サンプルが1件だけなら、その本文の断片をそのまま使う
+        int minDocuments = sampleCount > 1 ? 2 : 1;
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : documentFrequency.entrySet()) {
+            if (entry.getValue() >= minDocuments) {
+                byte[] bytes = (entry.getKey() + "\n").getBytes(StandardCharsets.UTF_8);
+                candidates.add(new Candidate(bytes, (long) entry.getValue() * bytes.length));
+            }
+        }
+        candidates.sort(Comparator.comparingLong(Candidate::score).reversed());
+
+        List<Candidate> selected = new ArrayList<>();
+        int size = 0;
+        for (Candidate candidate : candidates) {
+            if (size + candidate.bytes().length <= MAX_DICTIONARY_SIZE) {
+                selected.add(candidate);
+                size += candidate.bytes().length;
+            }
+        }
+
+        byte[] dictionary = new byte[size];
+        int offset = 0;
+        for (int i = selected.size() - 1; i >= 0; i--) {
+            byte[] bytes = selected.get(i).bytes();
+            System.arraycopy(bytes, 0, dictionary, offset, bytes.length);
+            offset += bytes.length;
+        }
+        return dictionary;
+    }
+
+    private record Candidate(byte[] bytes, long score) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.cms.content.controller;
+
+import com.cms.content.dto.ContentCompressionBenchmarkResponse;
+import com.cms.content.dto.ContentCompressionStatsResponse;
+import com.cms.content.service.ContentCompressionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/content-compression")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ContentCompressionController {
+    private final ContentCompressionService compressionService;
+
+    @GetMapping("/university/{universityId}")
+    public ResponseEntity<ContentCompressionStatsResponse> getStats(@PathVariable Long universityId) {
+        return ResponseEntity.ok(compressionService.getStats(universityId));
+    }
+
+    // 大学の共有辞書を作り直す（既存の行に反映するには recompress を実行する）
+    @PostMapping("/university/{universityId}/dictionary")
+    public ResponseEntity<ContentCompressionStatsResponse> trainDictionary(
+            @PathVariable Long universityId,
+            @RequestParam(defaultValue = "200") int sampleSize) {
+        return ResponseEntity.ok(compressionService.trainDictionary(universityId, sampleSize));
+    }
+
+    // 圧縮保存の有効化・無効化や辞書の作り直しの後に、既存の行を保存し直す
+    @PostMapping("/university/{universityId}/recompress")
+    public ResponseEntity<ContentCompressionStatsResponse> recompress(@PathVariable Long universityId) {
+        return ResponseEntity.ok(compressionService.recompress(universityId));
+    }
+
+    @PostMapping("/university/{universityId}/benchmark")
+    public ResponseEntity<ContentCompressionBenchmarkResponse> benchmark(
+            @PathVariable Long universityId,
+            @RequestParam(defaultValue = "50") int samples,
+            @RequestParam(defaultValue = "5") int iterations) {
+        return ResponseEntity.ok(compressionService.benchmark(universityId, samples, iterations));
+    }
+}
@@ -1,15 +1,33 @@
 package com.cms.content.controller;
 
+import com.cms.content.dto.ContentPageResponse;
 import com.cms.content.dto.ContentRequest;
 import com.cms.content.dto.ContentResponse;
+import com.cms.content.dto.ContentSearchResponse;
+import com.cms.content.dto.ContentSuggestionResponse;
+import com.cms.content.dto.ContentVersionDiffResponse;
+import com.cms.content.dto.ContentVersionPageResponse;
 import com.cms.content.dto.ContentVersionResponse;
+import com.cms.content.entity.Content;
+import com.cms.content.service.ContentIndexService;
+import com.cms.content.service.ContentRenderService;
+import com.cms.content.service.ContentSearchService;
 import com.cms.content.service.ContentService;
+import com.cms.content.service.ContentVersionDiffService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -18,6 +36,10 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class ContentController {
     private final ContentService contentService;
+    private final ContentSearchService contentSearchService;
+    private final ContentIndexService contentIndexService;
+    private final ContentVersionDiffService contentVersionDiffService;
+    private final ContentRenderService contentRenderService;
 
     @GetMapping
     public ResponseEntity<List<ContentResponse>> getAllContents() {
@@ -53,6 +75,91 @@ public class ContentController {
         return ResponseEntity.ok(contentService.getContentsByType(universityId, contentType));
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<ContentPageResponse> getAllContentsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "true") boolean includeTotal) {
+        return ResponseEntity.ok(contentService.getAllContentsPage(cursor, limit, includeTotal));
+    }
+
+    @GetMapping("/university/{universityId}/page")
+    public ResponseEntity<ContentPageResponse> getContentsByUniversityPage(
+            @PathVariable Long universityId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "true") boolean includeTotal) {
+        return ResponseEntity.ok(contentService.getContentsByUniversityPage(universityId, cursor, limit, includeTotal));
+    }
+
+    @GetMapping("/published/page")
+    public ResponseEntity<ContentPageResponse> getPublishedContentsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "true") boolean includeTotal) {
+        return ResponseEntity.ok(contentService.getPublishedContentsPage(cursor, limit, includeTotal));
+    }
+
+    @GetMapping("/published/university/{universityId}/page")
+    public ResponseEntity<ContentPageResponse> getPublishedContentsByUniversityPage(
+            @PathVariable Long universityId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "true") boolean includeTotal) {
+        return ResponseEntity.ok(
+                contentService.getPublishedContentsByUniversityPage(universityId, cursor, limit, includeTotal));
+    }
+
+    @GetMapping("/university/{universityId}/search")
+    public ResponseEntity<ContentSearchResponse> searchContents(
+            @PathVariable Long universityId,
+            @RequestParam String q,
+            @RequestParam(defaultValue = "PUBLISHED") Content.Status status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(
+                contentSearchService.search(universityId, q, status, cursor, limit, includeTotal));
+    }
+
+    @GetMapping("/university/{universityId}/suggest")
+    public ResponseEntity<List<ContentSuggestionResponse>> suggestContents(
+            @PathVariable Long universityId,
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(contentIndexService.suggest(universityId, q, limit));
+    }
+
+    @GetMapping("/university/{universityId}/instant-search")
+    public ResponseEntity<List<ContentSuggestionResponse>> instantSearchContents(
+            @PathVariable Long universityId,
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(contentIndexService.instantSearch(universityId, q, limit));
+    }
+
+    @GetMapping("/university/{universityId}/category/{categoryId}/page")
+    public ResponseEntity<ContentPageResponse> getContentsByCategoryPage(
+            @PathVariable Long universityId,
+            @PathVariable Long categoryId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "true") boolean includeTotal) {
+        return ResponseEntity.ok(
+                contentService.getContentsByCategoryPage(universityId, categoryId, cursor, limit, includeTotal));
+    }
+
+    @GetMapping("/university/{universityId}/type/{contentType}/page")
+    public ResponseEntity<ContentPageResponse> getContentsByTypePage(
+            @PathVariable Long universityId,
+            @PathVariable String contentType,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "true") boolean includeTotal) {
+        return ResponseEntity.ok(
+                contentService.getContentsByTypePage(universityId, contentType, cursor, limit, includeTotal));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ContentResponse> getContentById(@PathVariable Long id) {
         return ResponseEntity.ok(contentService.getContentById(id));
@@ -70,16 +177,62 @@ public class ContentController {
         return ResponseEntity.ok(contentService.getContentByUniversityAndSlug(universityId, slug));
     }
 
+    // テンプレートで描画した公開コンテンツの HTML
+    @GetMapping("/university/{universityId}/slug/{slug}/rendered")
+    public ResponseEntity<StreamingResponseBody> getRenderedContent(
+            @PathVariable Long universityId,
+            @PathVariable String slug) {
+        ContentRenderService.RenderedContent rendered = contentRenderService.prepare(universityId, slug);
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            rendered.writeTo(writer);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+                .body(body);
+    }
+
     @GetMapping("/{id}/versions")
-    public ResponseEntity<List<ContentVersionResponse>> getContentVersions(@PathVariable Long id) {
-        return ResponseEntity.ok(contentService.getContentVersions(id));
+    public ResponseEntity<List<ContentVersionResponse>> getContentVersions(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "true") boolean includeBody) {
+        return ResponseEntity.ok(contentService.getContentVersions(id, includeBody));
+    }
+
+    // 履歴パネル用（本文なし）。本文は選択したバージョンだけ /{id}/versions/{versionNumber} で取得する
+    @GetMapping("/{id}/versions/page")
+    public ResponseEntity<ContentVersionPageResponse> getContentVersionsPage(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(contentService.getContentVersionsPage(id, cursor, limit, includeTotal));
     }
 
+    // 保存済みバージョンは変更されないため強い ETag を付け、If-None-Match が一致すれば本文を復元せずに 304 を返す
     @GetMapping("/{id}/versions/{versionNumber}")
     public ResponseEntity<ContentVersionResponse> getContentVersion(
             @PathVariable Long id,
-            @PathVariable Integer versionNumber) {
-        return ResponseEntity.ok(contentService.getContentVersion(id, versionNumber));
+            @PathVariable Integer versionNumber,
+            WebRequest webRequest) {
+        String eTag = contentService.getContentVersionETag(id, versionNumber);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(contentService.getContentVersion(id, versionNumber));
+    }
+
+    @GetMapping("/{id}/versions/{fromVersion}/diff/{toVersion}")
+    public ResponseEntity<ContentVersionDiffResponse> diffContentVersions(
+            @PathVariable Long id,
+            @PathVariable Integer fromVersion,
+            @PathVariable Integer toVersion,
+            @RequestParam(defaultValue = "3") int context) {
+        return ResponseEntity.ok(contentVersionDiffService.diff(id, fromVersion, toVersion, context));
     }
 
     @PostMapping("/{id}/restore/{versionNumber}")
@@ -0,0 +1,27 @@
+package com.cms.content.controller;
+
+import com.cms.content.dto.ContentVersionCompactionResponse;
+import com.cms.content.dto.ContentVersionStorageResponse;
+import com.cms.content.service.ContentVersionStorageService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/content-versions")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ContentVersionStorageController {
+    private final ContentVersionStorageService versionStorageService;
+
+    @GetMapping("/storage")
+    public ResponseEntity<ContentVersionStorageResponse> getStorageStats() {
+        return ResponseEntity.ok(versionStorageService.getStorageStats());
+    }
+
+    // 夜間の圧縮処理を待たずに実行する（データ移行直後など）
+    @PostMapping("/compact")
+    public ResponseEntity<ContentVersionCompactionResponse> compact() {
+        return ResponseEntity.ok(versionStorageService.compact());
+    }
+}
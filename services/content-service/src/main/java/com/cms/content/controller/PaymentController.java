@@ -1,14 +1,24 @@
 package com.cms.content.controller;
 
+import com.cms.content.dto.PaymentCallbackRequest;
+import com.cms.content.dto.PaymentPageResponse;
 import com.cms.content.dto.PaymentRequest;
 import com.cms.content.dto.PaymentResponse;
+import com.cms.content.entity.Payment;
+import com.cms.content.payment.ExportFormat;
+import com.cms.content.service.IdempotencyService;
+import com.cms.content.service.PaymentExportService;
 import com.cms.content.service.PaymentService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -17,6 +27,8 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class PaymentController {
     private final PaymentService paymentService;
+    private final PaymentExportService paymentExportService;
+    private final IdempotencyService idempotencyService;
 
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<PaymentResponse>> getPaymentsByUser(@PathVariable Long userId) {
@@ -28,6 +40,33 @@ public class PaymentController {
         return ResponseEntity.ok(paymentService.getPaymentsByUniversity(universityId));
     }
 
+    @GetMapping("/university/{universityId}/page")
+    public ResponseEntity<PaymentPageResponse> getPaymentsByUniversityPage(
+            @PathVariable Long universityId,
+            @RequestParam(required = false) Payment.PaymentStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(paymentService.getPaymentsByUniversityPage(
+                universityId, status, cursor, limit, includeTotal));
+    }
+
+    @GetMapping("/export/university/{universityId}")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @PathVariable Long universityId,
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestParam(required = false) List<Payment.PaymentStatus> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        StreamingResponseBody body = out -> paymentExportService.exportPayments(
+                universityId, status, from, to, format, out);
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"payments-" + universityId + "." + format.extension() + "\"")
+                .body(body);
+    }
+
     @GetMapping("/user/{userId}/university/{universityId}")
     public ResponseEntity<List<PaymentResponse>> getPaymentsByUserAndUniversity(
             @PathVariable Long userId,
@@ -47,24 +86,46 @@ public class PaymentController {
         return ResponseEntity.ok(paymentService.getPaymentById(id, userId));
     }
 
+    @GetMapping("/transaction/{transactionId}")
+    public ResponseEntity<PaymentResponse> getPaymentByTransactionId(@PathVariable String transactionId) {
+        return ResponseEntity.ok(paymentService.getPaymentByTransactionId(transactionId));
+    }
+
+    @PostMapping("/transaction/{transactionId}/callback")
+    public ResponseEntity<PaymentResponse> applyGatewayCallback(
+            @PathVariable String transactionId,
+            @Valid @RequestBody PaymentCallbackRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return ResponseEntity.ok(idempotencyService.execute("payment.callback", idempotencyKey,
+                List.of(transactionId, request), PaymentResponse.class,
+                () -> paymentService.applyGatewayCallback(transactionId, request)));
+    }
+
     @PostMapping
-    public ResponseEntity<PaymentResponse> createPayment(@Valid @RequestBody PaymentRequest request) {
-        PaymentResponse response = paymentService.createPayment(request);
+    public ResponseEntity<PaymentResponse> createPayment(
+            @Valid @RequestBody PaymentRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        PaymentResponse response = idempotencyService.execute("payment.create", idempotencyKey, request,
+                PaymentResponse.class, () -> paymentService.createPayment(request));
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<PaymentResponse> updatePayment(
             @PathVariable Long id,
-            @Valid @RequestBody PaymentRequest request) {
-        return ResponseEntity.ok(paymentService.updatePayment(id, request));
+            @Valid @RequestBody PaymentRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return ResponseEntity.ok(idempotencyService.execute("payment.update", idempotencyKey,
+                List.of(id, request), PaymentResponse.class, () -> paymentService.updatePayment(id, request)));
     }
 
     @PostMapping("/{id}/user/{userId}/complete")
     public ResponseEntity<PaymentResponse> completePayment(
             @PathVariable Long id,
-            @PathVariable Long userId) {
-        return ResponseEntity.ok(paymentService.completePayment(id, userId));
+            @PathVariable Long userId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return ResponseEntity.ok(idempotencyService.execute("payment.complete", idempotencyKey,
+                List.of(id, userId), PaymentResponse.class, () -> paymentService.completePayment(id, userId)));
     }
 
     @DeleteMapping("/{id}/user/{userId}")
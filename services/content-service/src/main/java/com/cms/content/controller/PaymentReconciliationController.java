@@ -1,14 +1,29 @@
 package com.cms.content.controller;
 
+import com.cms.content.dto.BankStatementImportResponse;
 import com.cms.content.dto.PaymentReconciliationRequest;
 import com.cms.content.dto.PaymentReconciliationResponse;
+import com.cms.content.entity.PaymentReconciliation;
+import com.cms.content.payment.BankStatementFormat;
+import com.cms.content.payment.ExportFormat;
+import com.cms.content.service.BankStatementImportService;
+import com.cms.content.service.IdempotencyService;
+import com.cms.content.service.PaymentExportService;
 import com.cms.content.service.PaymentReconciliationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -17,6 +32,9 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class PaymentReconciliationController {
     private final PaymentReconciliationService reconciliationService;
+    private final BankStatementImportService bankStatementImportService;
+    private final PaymentExportService paymentExportService;
+    private final IdempotencyService idempotencyService;
 
     @GetMapping("/payment/{paymentId}")
     public ResponseEntity<List<PaymentReconciliationResponse>> getReconciliationsByPayment(
@@ -36,6 +54,22 @@ public class PaymentReconciliationController {
         return ResponseEntity.ok(reconciliationService.getReconciliationsByUniversity(universityId));
     }
 
+    @GetMapping("/export/university/{universityId}")
+    public ResponseEntity<StreamingResponseBody> exportReconciliations(
+            @PathVariable Long universityId,
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestParam(required = false) List<PaymentReconciliation.ReconciliationStatus> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        StreamingResponseBody body = out -> paymentExportService.exportReconciliations(
+                universityId, status, from, to, format, out);
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"payment-reconciliations-" + universityId + "." + format.extension() + "\"")
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<PaymentReconciliationResponse> getReconciliationById(@PathVariable Long id) {
         return ResponseEntity.ok(reconciliationService.getReconciliationById(id));
@@ -43,23 +77,45 @@ public class PaymentReconciliationController {
 
     @PostMapping
     public ResponseEntity<PaymentReconciliationResponse> createReconciliation(
-            @Valid @RequestBody PaymentReconciliationRequest request) {
-        PaymentReconciliationResponse response = reconciliationService.createReconciliation(request);
+            @Valid @RequestBody PaymentReconciliationRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        PaymentReconciliationResponse response = idempotencyService.execute("reconciliation.create",
+                idempotencyKey, request, PaymentReconciliationResponse.class,
+                () -> reconciliationService.createReconciliation(request));
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping(value = "/import/university/{universityId}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<BankStatementImportResponse> importBankStatement(
+            @PathVariable Long universityId,
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "ZENGIN") BankStatementFormat format,
+            @RequestParam(required = false) Long reconciledBy,
+            @RequestParam(defaultValue = "false") boolean dryRun) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return ResponseEntity.ok(bankStatementImportService.importStatement(
+                    universityId, in, format, reconciledBy, dryRun));
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<PaymentReconciliationResponse> updateReconciliation(
             @PathVariable Long id,
-            @Valid @RequestBody PaymentReconciliationRequest request) {
-        return ResponseEntity.ok(reconciliationService.updateReconciliation(id, request));
+            @Valid @RequestBody PaymentReconciliationRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return ResponseEntity.ok(idempotencyService.execute("reconciliation.update", idempotencyKey,
+                List.of(id, request), PaymentReconciliationResponse.class,
+                () -> reconciliationService.updateReconciliation(id, request)));
     }
 
     @PostMapping("/{id}/complete")
     public ResponseEntity<PaymentReconciliationResponse> completeReconciliation(
             @PathVariable Long id,
-            @RequestParam Long reconciledBy) {
-        return ResponseEntity.ok(reconciliationService.completeReconciliation(id, reconciledBy));
+            @RequestParam Long reconciledBy,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return ResponseEntity.ok(idempotencyService.execute("reconciliation.complete", idempotencyKey,
+                List.of(id, reconciledBy), PaymentReconciliationResponse.class,
+                () -> reconciliationService.completeReconciliation(id, reconciledBy)));
     }
 
     @DeleteMapping("/{id}")
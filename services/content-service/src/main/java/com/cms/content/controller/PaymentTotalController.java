@@ -0,0 +1,44 @@
+package com.cms.content.controller;
+
+import com.cms.content.dto.PaymentTotalResponse;
+import com.cms.content.entity.Payment;
+import com.cms.content.service.PaymentRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/payment-totals")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class PaymentTotalController {
+    private final PaymentRollupService rollupService;
+
+    @GetMapping("/university/{universityId}")
+    public ResponseEntity<List<PaymentTotalResponse>> getTotals(
+            @PathVariable Long universityId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) List<Payment.PaymentStatus> status) {
+        return ResponseEntity.ok(rollupService.getTotals(universityId, from, to, status));
+    }
+
+    @GetMapping("/university/{universityId}/daily")
+    public ResponseEntity<List<PaymentTotalResponse>> getDailyTotals(
+            @PathVariable Long universityId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) List<Payment.PaymentStatus> status) {
+        return ResponseEntity.ok(rollupService.getDailyTotals(universityId, from, to, status));
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<Void> rebuildTotals() {
+        rollupService.rebuildTotals();
+        return ResponseEntity.noContent().build();
+    }
+}
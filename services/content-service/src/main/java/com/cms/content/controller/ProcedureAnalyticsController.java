@@ -0,0 +1,36 @@
+package com.cms.content.controller;
+
+import com.cms.content.dto.ProcedureFlowAnalyticsResponse;
+import com.cms.content.service.ProcedureProgressAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/procedure-analytics")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ProcedureAnalyticsController {
+    private final ProcedureProgressAnalyticsService analyticsService;
+
+    @GetMapping("/university/{universityId}")
+    public ResponseEntity<List<ProcedureFlowAnalyticsResponse>> getAnalyticsByUniversity(
+            @PathVariable Long universityId) {
+        return ResponseEntity.ok(analyticsService.getAnalyticsByUniversity(universityId));
+    }
+
+    @GetMapping("/flow/{flowId}/university/{universityId}")
+    public ResponseEntity<ProcedureFlowAnalyticsResponse> getAnalyticsByFlow(
+            @PathVariable Long flowId,
+            @PathVariable Long universityId) {
+        return ResponseEntity.ok(analyticsService.getAnalyticsByFlow(flowId, universityId));
+    }
+
+    @PostMapping("/reconcile")
+    public ResponseEntity<Void> reconcileCounts() {
+        analyticsService.reconcileCounts();
+        return ResponseEntity.noContent().build();
+    }
+}
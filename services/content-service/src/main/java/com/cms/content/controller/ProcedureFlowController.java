@@ -1,6 +1,7 @@
 package com.cms.content.controller;
 
 import com.cms.content.dto.ProcedureFlowDetailResponse;
+import com.cms.content.dto.ProcedureFlowProgressSummaryResponse;
 import com.cms.content.dto.ProcedureFlowRequest;
 import com.cms.content.dto.ProcedureFlowResponse;
 import com.cms.content.service.ProcedureFlowService;
@@ -20,15 +21,18 @@ public class ProcedureFlowController {
     private final ProcedureFlowService flowService;
 
     @GetMapping("/university/{universityId}")
-    public ResponseEntity<List<ProcedureFlowResponse>> getFlowsByUniversity(@PathVariable Long universityId) {
-        return ResponseEntity.ok(flowService.getFlowsByUniversity(universityId));
+    public ResponseEntity<List<ProcedureFlowResponse>> getFlowsByUniversity(
+            @PathVariable Long universityId,
+            @RequestParam(defaultValue = "true") boolean includeSteps) {
+        return ResponseEntity.ok(flowService.getFlowsByUniversity(universityId, includeSteps));
     }
 
     @GetMapping("/university/{universityId}/type/{flowType}")
     public ResponseEntity<List<ProcedureFlowResponse>> getFlowsByType(
             @PathVariable Long universityId,
-            @PathVariable String flowType) {
-        return ResponseEntity.ok(flowService.getFlowsByType(universityId, flowType));
+            @PathVariable String flowType,
+            @RequestParam(defaultValue = "true") boolean includeSteps) {
+        return ResponseEntity.ok(flowService.getFlowsByType(universityId, flowType, includeSteps));
     }
 
     @GetMapping("/{id}/university/{universityId}")
@@ -39,6 +43,14 @@ public class ProcedureFlowController {
         return ResponseEntity.ok(flowService.getFlowDetail(id, universityId, userId));
     }
 
+    @GetMapping("/{id}/university/{universityId}/progress-summary")
+    public ResponseEntity<ProcedureFlowProgressSummaryResponse> getFlowProgressSummary(
+            @PathVariable Long id,
+            @PathVariable Long universityId,
+            @RequestParam Long userId) {
+        return ResponseEntity.ok(flowService.getFlowProgressSummary(id, universityId, userId));
+    }
+
     @PostMapping
     public ResponseEntity<ProcedureFlowResponse> createFlow(@Valid @RequestBody ProcedureFlowRequest request) {
         ProcedureFlowResponse response = flowService.createFlow(request);
@@ -1,7 +1,10 @@
 package com.cms.content.controller;
 
+import com.cms.content.dto.ProcedureProgressBulkRequest;
+import com.cms.content.dto.ProcedureProgressBulkResponse;
 import com.cms.content.dto.ProcedureProgressRequest;
 import com.cms.content.dto.ProcedureProgressResponse;
+import com.cms.content.service.ProcedureProgressBulkService;
 import com.cms.content.service.ProcedureProgressService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -16,19 +19,22 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class ProcedureProgressController {
     private final ProcedureProgressService progressService;
+    private final ProcedureProgressBulkService bulkService;
 
     @GetMapping("/user/{userId}/flow/{flowId}")
     public ResponseEntity<List<ProcedureProgressResponse>> getProgressByUserAndFlow(
             @PathVariable Long userId,
-            @PathVariable Long flowId) {
-        return ResponseEntity.ok(progressService.getProgressByUserAndFlow(userId, flowId));
+            @PathVariable Long flowId,
+            @RequestParam(defaultValue = "true") boolean includeStep) {
+        return ResponseEntity.ok(progressService.getProgressByUserAndFlow(userId, flowId, includeStep));
     }
 
     @GetMapping("/user/{userId}/university/{universityId}")
     public ResponseEntity<List<ProcedureProgressResponse>> getProgressByUser(
             @PathVariable Long userId,
-            @PathVariable Long universityId) {
-        return ResponseEntity.ok(progressService.getProgressByUser(userId, universityId));
+            @PathVariable Long universityId,
+            @RequestParam(defaultValue = "true") boolean includeStep) {
+        return ResponseEntity.ok(progressService.getProgressByUser(userId, universityId, includeStep));
     }
 
     @GetMapping("/user/{userId}/step/{stepId}")
@@ -48,6 +54,12 @@ public class ProcedureProgressController {
         return ResponseEntity.ok(progressService.updateProgress(request));
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<ProcedureProgressBulkResponse> bulkUpdate(
+            @Valid @RequestBody ProcedureProgressBulkRequest request) {
+        return ResponseEntity.ok(bulkService.bulkUpdate(request));
+    }
+
     @PostMapping("/start/user/{userId}/step/{stepId}/university/{universityId}")
     public ResponseEntity<ProcedureProgressResponse> startStep(
             @PathVariable Long userId,
@@ -0,0 +1,50 @@
+package com.cms.content.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BankStatementImportResponse {
+    private Long universityId;
+    private boolean dryRun;
+    private int totalLines;
+    private int matched;
+    private int ambiguous;
+    private int unmatched;
+    private int invalid;
+    private int failed;
+    private BigDecimal matchedAmount; // 消込済み金額の合計
+    private List<LineResult> lines; // ファイル内の出現順
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineResult {
+        private int lineNumber;
+        private String transactionId;
+        private BigDecimal amount;
+        private Long userId;
+        private String payerName;
+        private Outcome outcome;
+        private Long paymentId; // MATCHED の場合の支払いID
+        private List<Long> candidatePaymentIds; // AMBIGUOUS の場合の候補
+        private String message;
+    }
+
+    public enum Outcome {
+        MATCHED,    // 消込完了
+        AMBIGUOUS,  // 候補が複数、または金額のみ一致（要手動確認）
+        UNMATCHED,  // 該当する未払いなし
+        INVALID,    // 行の形式不正
+        FAILED      // 書き込み時に失敗（支払いが既に未払いでない等）
+    }
+}
@@ -0,0 +1,34 @@
+package com.cms.content.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentCompressionBenchmarkResponse {
+    private Long universityId;
+    private Long dictionaryId;
+    private Integer samples;
+    private Integer iterations;
+    private Long plainBytes; // サンプル本文の UTF-8 バイト数の合計
+    private Long compressedBytes; // 同じ本文を圧縮した場合の合計
+    private Double compressionRatio; // compressedBytes / plainBytes
+    private Latency plainRead; // TEXT 列の読み込み
+    private Latency compressedRead; // BYTEA 列の読み込み + 展開
+    private Latency decompress; // compressedRead のうち展開のみ
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Latency {
+        private Double meanMicros;
+        private Double p50Micros;
+        private Double p95Micros;
+        private Double maxMicros;
+    }
+}
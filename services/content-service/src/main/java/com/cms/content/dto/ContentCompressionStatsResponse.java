@@ -0,0 +1,25 @@
+package com.cms.content.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentCompressionStatsResponse {
+    private Long universityId;
+    private Boolean enabled; // cms.content.compression.universities に含まれているか
+    private Long dictionaryId; // 新しい書き込みに使う辞書（0 は辞書なし）
+    private Long contentCount;
+    private Long compressedCount; // 本文を圧縮保存しているコンテンツ数
+    private Long plainBytes; // 平文で保存している本文・カスタムフィールドの UTF-8 バイト数
+    private Long storedPlainBytes; // 上記の実際の保存量（PostgreSQL の TOAST 圧縮後）
+    private Long compressedBytes; // 圧縮保存している本文・カスタムフィールドの保存量
+    private Integer contentsRewritten; // 再圧縮で書き換えたコンテンツ数（再圧縮時のみ）
+    private Integer versionsRewritten; // 再圧縮で書き換えた全文バージョン数（再圧縮時のみ）
+    private Long decompressCount; // 起動後に行った展開の回数
+    private Double decompressMeanMicros;
+}
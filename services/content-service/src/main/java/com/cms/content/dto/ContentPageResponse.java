@@ -0,0 +1,19 @@
+package com.cms.content.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentPageResponse {
+    private List<ContentSummaryResponse> items;
+    private String nextCursor; // 次ページ取得用カーソル（最終ページの場合はnull）
+    private Boolean hasMore;
+    private Long totalCount; // includeTotal=false の場合はnull
+}
@@ -0,0 +1,28 @@
+package com.cms.content.dto;
+
+import com.cms.content.entity.Content;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentSearchHit {
+    private Long id;
+    private String title;
+    private String slug;
+    private Content.Status status;
+    private Long categoryId;
+    private String contentType;
+    private String metaDescription;
+    private LocalDateTime publishedAt;
+    private LocalDateTime updatedAt;
+    private Double score; // 関連度（大きいほど上位）
+    private String highlightedTitle; // 一致箇所を <mark> で囲んだタイトル（HTML エスケープ済み）
+    private String snippet; // 一致箇所周辺の本文抜粋（HTML エスケープ済み）
+}
@@ -0,0 +1,22 @@
+package com.cms.content.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// インメモリ索引による候補表示・インクリメンタル検索の結果
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentSuggestionResponse {
+    private Long id;
+    private String slug;
+    private String title;
+    private String highlightedTitle; // 一致箇所を <mark> で囲んだタイトル（HTML エスケープ済み）
+    private Boolean titleMatch; // false の場合は本文・メタ情報のみで一致
+    private LocalDateTime publishedAt;
+}
@@ -0,0 +1,19 @@
+package com.cms.content.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentVersionCompactionResponse {
+    private Integer contentsProcessed;
+    private Integer contentsSkipped; // 他のインスタンスが処理中だったもの
+    private Integer versionsRewritten;
+    private Long bytesBefore;
+    private Long bytesAfter;
+    private Long durationMillis;
+}
@@ -0,0 +1,69 @@
+package com.cms.content.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// 2つのバージョン間の差分（本文は変更箇所の前後だけを返す）
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentVersionDiffResponse {
+    private Long contentId;
+    private Integer fromVersion;
+    private Integer toVersion;
+    private String fromTitle;
+    private String toTitle;
+    private Boolean titleChanged;
+    private String fromSlug;
+    private String toSlug;
+    private Boolean slugChanged;
+    private Integer addedLines;
+    private Integer removedLines;
+    private List<Hunk> hunks;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Hunk {
+        private Integer fromStart; // 変更前の開始行（1始まり）
+        private Integer fromLines;
+        private Integer toStart; // 変更後の開始行（1始まり）
+        private Integer toLines;
+        private List<Line> lines;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private LineType type;
+        private Integer fromLineNumber; // ADDED の場合は null
+        private Integer toLineNumber; // REMOVED の場合は null
+        private String text;
+        private List<Segment> segments; // 変更行の対になる行がある場合のみ、単語単位の差分
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Segment {
+        private SegmentType type;
+        private String text;
+    }
+
+    public enum LineType {
+        CONTEXT, ADDED, REMOVED
+    }
+
+    public enum SegmentType {
+        EQUAL, ADDED, REMOVED
+    }
+}
@@ -0,0 +1,22 @@
+package com.cms.content.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentVersionStorageResponse {
+    private Long versionCount;
+    private Long fullCount; // 本文をそのまま保存しているバージョン数
+    private Long deltaCount; // 差分のみ保存しているバージョン数
+    private Long storedBytes; // body と bodyDelta の実際の保存量
+    private Long logicalBytes; // すべてのバージョンの本文を復元した場合の合計
+    private Double savingsRatio; // 1 - storedBytes / logicalBytes
+    private Long reconstructionCount; // 起動後に行った復元の回数
+    private Double reconstructionMeanMillis;
+    private Double reconstructionMaxMillis;
+}
@@ -0,0 +1,25 @@
+package com.cms.content.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// バージョン履歴の一覧表示用（本文を含まない）
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentVersionSummaryResponse {
+    private Long id;
+    private Long contentId;
+    private Integer versionNumber;
+    private String title;
+    private String slug;
+    private Long authorId;
+    private String changeNote;
+    private Integer bodySize; // 本文の UTF-8 バイト数（差分保存導入前で未計測の場合は null）
+    private LocalDateTime createdAt;
+}
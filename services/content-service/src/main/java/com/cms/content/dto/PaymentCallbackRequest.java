@@ -0,0 +1,16 @@
+package com.cms.content.dto;
+
+import com.cms.content.entity.Payment;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class PaymentCallbackRequest {
+    @NotNull(message = "Status is required")
+    private Payment.PaymentStatus status;
+
+    private LocalDateTime paidAt; // 決済代行会社が通知した支払い日時（任意）
+    private String paymentMethod;
+}
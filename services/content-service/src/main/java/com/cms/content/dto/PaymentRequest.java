@@ -19,6 +19,8 @@ public class PaymentRequest {
     @NotNull(message = "Flow ID is required")
     private Long flowId;
 
+    private Long stepId;
+
     @NotBlank(message = "Payment type is required")
     private String paymentType;
 
@@ -31,6 +33,7 @@ public class PaymentRequest {
     private String paymentMethod;
     private String transactionId;
     private String notes;
+    private Long version; // 更新時に指定すると、取得時からの変更の有無を検証する
 }
 
 
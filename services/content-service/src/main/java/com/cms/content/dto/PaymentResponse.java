@@ -18,6 +18,7 @@ public class PaymentResponse {
     private Long userId;
     private Long universityId;
     private Long flowId;
+    private Long stepId;
     private String paymentType;
     private BigDecimal amount;
     private String currency;
@@ -27,6 +28,7 @@ public class PaymentResponse {
     private LocalDateTime paidAt;
     private String notes;
     private PaymentReconciliationResponse reconciliation;
+    private Long version;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
@@ -0,0 +1,24 @@
+package com.cms.content.dto;
+
+import com.cms.content.entity.Payment;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentTotalResponse {
+    private Long universityId;
+    private Long flowId;
+    private String paymentType;
+    private Payment.PaymentStatus status;
+    private LocalDate businessDate; // 日別集計の場合のみ
+    private BigDecimal totalAmount;
+    private Long paymentCount;
+}
@@ -0,0 +1,23 @@
+package com.cms.content.dto;
+
+import com.cms.content.entity.ProcedureProgress;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcedureFlowAnalyticsResponse {
+    private Long flowId;
+    private Long universityId;
+    private String name;
+    private String flowType;
+    private Map<ProcedureProgress.ProgressStatus, Long> statusCounts; // フロー内の全ステップの合計
+    private List<ProcedureStepAnalyticsResponse> steps;
+}
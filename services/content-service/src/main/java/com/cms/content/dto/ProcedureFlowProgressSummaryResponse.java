@@ -0,0 +1,23 @@
+package com.cms.content.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcedureFlowProgressSummaryResponse {
+    private Long flowId;
+    private Long userId;
+    private Long totalSteps;
+    private Long completedSteps;
+    private Long inProgressSteps;
+    private Long notStartedSteps;
+    private Double completionRate;
+    private List<Long> blockedStepIds; // 依存ステップが未完了で開始できないステップ
+}
@@ -0,0 +1,35 @@
+package com.cms.content.dto;
+
+import com.cms.content.entity.ProcedureProgress;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ProcedureProgressBulkRequest {
+    @NotNull(message = "University ID is required")
+    private Long universityId;
+
+    @NotEmpty(message = "Items are required")
+    @Size(max = 10000, message = "Too many items (max 10000)")
+    @Valid
+    private List<Item> items;
+
+    @Data
+    public static class Item {
+        @NotNull(message = "User ID is required")
+        private Long userId;
+
+        @NotNull(message = "Step ID is required")
+        private Long stepId;
+
+        @NotNull(message = "Status is required")
+        private ProcedureProgress.ProgressStatus status;
+
+        private String notes; // 未指定の場合は既存のメモを保持
+    }
+}
@@ -0,0 +1,41 @@
+package com.cms.content.dto;
+
+import com.cms.content.entity.ProcedureProgress;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcedureProgressBulkResponse {
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<ItemResult> results; // リクエストの items と同じ順序
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemResult {
+        private int index;
+        private Long userId;
+        private Long stepId;
+        private Outcome outcome;
+        private ProcedureProgress.ProgressStatus previousStatus;
+        private ProcedureProgress.ProgressStatus status;
+        private String error;
+    }
+
+    public enum Outcome {
+        CREATED,    // 新規作成
+        UPDATED,    // 更新
+        UNCHANGED,  // 変更なし（書き込みを省略）
+        FAILED      // 失敗
+    }
+}
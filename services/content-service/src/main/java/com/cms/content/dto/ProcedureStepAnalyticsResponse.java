@@ -0,0 +1,20 @@
+package com.cms.content.dto;
+
+import com.cms.content.entity.ProcedureProgress;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcedureStepAnalyticsResponse {
+    private Long stepId;
+    private String name;
+    private Integer stepOrder;
+    private Map<ProcedureProgress.ProgressStatus, Long> statusCounts;
+}
@@ -1,15 +1,27 @@
 package com.cms.content.entity;
 
+import com.cms.content.compression.ContentBodyCodec;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "contents")
+@Table(name = "contents", indexes = {
+        @Index(name = "idx_contents_university_id", columnList = "universityId, id"),
+        @Index(name = "idx_contents_status_published_at", columnList = "status, publishedAt, id"),
+        @Index(name = "idx_contents_university_status_published_at", columnList = "universityId, status, publishedAt, id"),
+        @Index(name = "idx_contents_status_scheduled_publish_at", columnList = "status, scheduledPublishAt, id"),
+        @Index(name = "idx_contents_status_scheduled_unpublish_at", columnList = "status, scheduledUnpublishAt, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -23,7 +35,10 @@ public class Content {
     private String title;
 
     @Column(columnDefinition = "TEXT")
-    private String body;
+    private String body; // 圧縮保存の場合は null（bodyCompressed から展開する）
+
+    @Column(columnDefinition = "BYTEA")
+    private byte[] bodyCompressed; // 圧縮保存モードの本文（ContentBodyCodec 形式）
 
     @Column(nullable = false)
     private String slug;
@@ -65,6 +80,24 @@ public class Content {
     @Column(columnDefinition = "TEXT")
     private String customFields; // JSON形式のカスタムフィールド
 
+    @Column(columnDefinition = "BYTEA")
+    private byte[] customFieldsCompressed;
+
+    // 圧縮保存された値の展開結果（最初に読まれたときだけ展開する）
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private String decodedBody;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private String decodedCustomFields;
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -78,6 +111,9 @@ public class Content {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        if (status == Status.PUBLISHED && publishedAt == null) {
+            publishedAt = LocalDateTime.now();
+        }
     }
 
     @PreUpdate
@@ -88,6 +124,51 @@ public class Content {
         }
     }
 
+    public String getBody() {
+        if (body == null && bodyCompressed != null) {
+            if (decodedBody == null) {
+                decodedBody = ContentBodyCodec.decode(bodyCompressed);
+            }
+            return decodedBody;
+        }
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+        this.bodyCompressed = null;
+        this.decodedBody = null;
+    }
+
+    // compressed が null なら平文で保存する
+    public void setStoredBody(String body, byte[] compressed) {
+        this.body = compressed != null ? null : body;
+        this.bodyCompressed = compressed;
+        this.decodedBody = compressed != null ? body : null;
+    }
+
+    public String getCustomFields() {
+        if (customFields == null && customFieldsCompressed != null) {
+            if (decodedCustomFields == null) {
+                decodedCustomFields = ContentBodyCodec.decode(customFieldsCompressed);
+            }
+            return decodedCustomFields;
+        }
+        return customFields;
+    }
+
+    public void setCustomFields(String customFields) {
+        this.customFields = customFields;
+        this.customFieldsCompressed = null;
+        this.decodedCustomFields = null;
+    }
+
+    public void setStoredCustomFields(String customFields, byte[] compressed) {
+        this.customFields = compressed != null ? null : customFields;
+        this.customFieldsCompressed = compressed;
+        this.decodedCustomFields = compressed != null ? customFields : null;
+    }
+
     public enum Status {
         DRAFT, PUBLISHED, ARCHIVED
     }
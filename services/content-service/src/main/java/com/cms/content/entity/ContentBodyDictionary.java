@@ -0,0 +1,43 @@
+package com.cms.content.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 大学ごとの本文圧縮用の共有辞書。圧縮済みの本文が辞書IDを参照するため、作成後は変更・削除しない。
+ */
+@Entity
+@Table(name = "content_body_dictionaries", indexes = {
+        @Index(name = "idx_content_body_dictionaries_university_id", columnList = "universityId, id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentBodyDictionary {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long universityId;
+
+    @Column(nullable = false, columnDefinition = "BYTEA")
+    private byte[] dictionary; // deflate のプリセット辞書（最大32KB）
+
+    @Column(nullable = false)
+    private Integer sampleCount; // 辞書の作成に使った本文の数
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -1,15 +1,23 @@
 package com.cms.content.entity;
 
+import com.cms.content.compression.ContentBodyCodec;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "content_versions")
+@Table(name = "content_versions", indexes = {
+        @Index(name = "idx_content_versions_content_version", columnList = "contentId, versionNumber")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -29,7 +37,33 @@ public class ContentVersion {
     private String title;
 
     @Column(columnDefinition = "TEXT")
-    private String body;
+    private String body; // storageType=DELTA または圧縮保存の場合は null
+
+    @Column(columnDefinition = "BYTEA")
+    private byte[] bodyCompressed; // 圧縮保存された FULL の本文（ContentBodyCodec 形式）
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private String decodedBody; // bodyCompressed の展開結果
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, columnDefinition = "VARCHAR(10) DEFAULT 'FULL'")
+    private StorageType storageType = StorageType.FULL;
+
+    @Column
+    private Integer baseVersionNumber; // 差分の元になるバージョン番号（DELTA の場合のみ）
+
+    @Column(columnDefinition = "TEXT")
+    private String bodyDelta; // 元バージョンの本文からの行単位の差分（VersionDelta 形式）
+
+    @Column(nullable = false, columnDefinition = "INTEGER DEFAULT 0")
+    private Integer deltaDepth = 0; // 直近の FULL から数えた差分の段数
+
+    @Column
+    private Integer bodySize; // 復元後の本文の UTF-8 バイト数（保存量の集計用）
 
     @Column(nullable = false)
     private String slug;
@@ -47,6 +81,34 @@ public class ContentVersion {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
     }
+
+    public String getBody() {
+        if (body == null && bodyCompressed != null) {
+            if (decodedBody == null) {
+                decodedBody = ContentBodyCodec.decode(bodyCompressed);
+            }
+            return decodedBody;
+        }
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+        this.bodyCompressed = null;
+        this.decodedBody = null;
+    }
+
+    // compressed が null なら平文で保存する
+    public void setStoredBody(String body, byte[] compressed) {
+        this.body = compressed != null ? null : body;
+        this.bodyCompressed = compressed;
+        this.decodedBody = compressed != null ? body : null;
+    }
+
+    public enum StorageType {
+        FULL,  // 本文をそのまま保存
+        DELTA  // 元バージョンからの差分のみ保存
+    }
 }
 
 
@@ -0,0 +1,44 @@
+package com.cms.content.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// 冪等キーごとの処理結果（同じキーでの再送には保存済みのレスポンスを返す）
+@Entity
+@Table(name = "idempotency_records",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"scope", "idempotencyKey"}),
+       indexes = @Index(name = "idx_idempotency_records_created_at", columnList = "createdAt"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String scope; // 操作の種類（例: "payment.create"）
+
+    @Column(nullable = false)
+    private String idempotencyKey; // クライアントが指定した Idempotency-Key
+
+    @Column(nullable = false, length = 64)
+    private String requestHash; // リクエスト内容のSHA-256（同じキーで別内容の再送を検出する）
+
+    @Column(columnDefinition = "TEXT")
+    private String responseBody; // レスポンスのJSON
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,71 @@
+package com.cms.content.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// トランザクショナルアウトボックス（状態変更と同じトランザクションで書き込み、バックグラウンドで配信する）
+@Entity
+@Table(name = "outbox_events",
+       indexes = @Index(name = "idx_outbox_events_status_next_attempt", columnList = "status, nextAttemptAt"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String aggregateType; // 集約の種類（例: "PAYMENT"）
+
+    @Column(nullable = false)
+    private Long aggregateId; // 集約ID（支払いIDなど）
+
+    @Column(nullable = false)
+    private String eventType; // イベント種別（例: "PAYMENT_STATUS_CHANGED"）
+
+    @Column
+    private Long universityId; // 大学ID
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload; // イベント内容のJSON
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    @Column(nullable = false)
+    private Integer attempts; // 配信試行回数
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt; // 次回配信予定日時
+
+    @Column(columnDefinition = "TEXT")
+    private String lastError; // 直近の配信エラー
+
+    @Column
+    private LocalDateTime dispatchedAt; // 配信完了日時
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+
+    public enum Status {
+        PENDING,     // 未配信
+        DISPATCHED,  // 配信済み
+        FAILED       // 最大試行回数を超えて失敗
+    }
+}
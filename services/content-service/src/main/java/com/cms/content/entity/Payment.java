@@ -10,7 +10,12 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+// transactionId の一意制約は既存行を整えてから PaymentSchema が追加する
+@Table(name = "payments",
+       indexes = {
+        @Index(name = "idx_payments_university_id", columnList = "universityId, id"),
+        @Index(name = "idx_payments_user_university", columnList = "userId, universityId")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -29,6 +34,9 @@ public class Payment {
     @Column(nullable = false)
     private Long flowId; // 手続きフローID
 
+    @Column
+    private Long stepId; // 支払い完了で進める手続きステップID（任意）
+
     @Column(nullable = false)
     private String paymentType; // 支払い種別（入学金、授業料、その他）
 
@@ -54,6 +62,10 @@ public class Payment {
     @Column(columnDefinition = "TEXT")
     private String notes; // 備考
 
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version; // 楽観ロック用バージョン
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -0,0 +1,52 @@
+package com.cms.content.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// 大学×フロー×支払い種別×ステータス×日ごとの支払い合計（payments から差分で維持する集計テーブル）
+@Entity
+@Table(name = "payment_daily_totals",
+       uniqueConstraints = @UniqueConstraint(
+               columnNames = {"universityId", "flowId", "paymentType", "status", "businessDate"}),
+       indexes = @Index(name = "idx_payment_daily_totals_university_date", columnList = "universityId, businessDate"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentDailyTotal {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long universityId; // 大学ID
+
+    @Column(nullable = false)
+    private Long flowId; // 手続きフローID
+
+    @Column(nullable = false)
+    private String paymentType; // 支払い種別
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Payment.PaymentStatus status;
+
+    @Column(nullable = false)
+    private LocalDate businessDate; // 計上日（支払い日時、未払いの場合は作成日時の日付）
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount; // 金額合計
+
+    @Column(nullable = false)
+    private Long paymentCount; // 件数
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -10,7 +10,8 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payment_reconciliations")
+@Table(name = "payment_reconciliations",
+       indexes = @Index(name = "idx_payment_reconciliations_payment_status", columnList = "paymentId, status"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -10,7 +10,8 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "procedure_progress", 
-       uniqueConstraints = @UniqueConstraint(columnNames = {"userId", "stepId"}))
+       uniqueConstraints = @UniqueConstraint(columnNames = {"userId", "stepId"}),
+       indexes = @Index(name = "idx_procedure_progress_user_flow", columnList = "userId, flowId"))
 @Data
 @Builder
 @NoArgsConstructor
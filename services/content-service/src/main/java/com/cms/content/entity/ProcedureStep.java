@@ -10,7 +10,8 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "procedure_steps")
+@Table(name = "procedure_steps",
+       indexes = @Index(name = "idx_procedure_steps_flow_order", columnList = "flowId, stepOrder"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -0,0 +1,43 @@
+package com.cms.content.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// ステップ×進捗ステータスごとの件数（procedure_progress から差分で維持する集計テーブル）
+@Entity
+@Table(name = "procedure_step_status_counts",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"stepId", "status"}),
+       indexes = @Index(name = "idx_procedure_step_status_counts_university", columnList = "universityId, flowId"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcedureStepStatusCount {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long universityId; // 大学ID
+
+    @Column(nullable = false)
+    private Long flowId; // 手続きフローID
+
+    @Column(nullable = false)
+    private Long stepId; // 手続きステップID
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ProcedureProgress.ProgressStatus status;
+
+    @Column(nullable = false)
+    private Long progressCount; // 該当ステータスの進捗件数
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,8 @@
+package com.cms.content.exception;
+
+// 409 Conflict として返す例外（楽観ロックのバージョン不一致、冪等キーの使い回しなど）
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,121 @@
+package com.cms.content.outbox;
+
+import com.cms.content.entity.OutboxEvent;
+import com.cms.content.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * アウトボックスの未配信イベントを一定間隔でまとめて取得し、イベント種別ごとのハンドラへ配信する。
+ * 失敗したイベントは指数バックオフで再試行し、最大試行回数を超えたら FAILED にする。
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final Map<String, List<OutboxEventHandler>> handlersByEventType;
+    private final TransactionTemplate batchTransaction;
+    private final TransactionTemplate handlerTransaction;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration retention;
+
+    public OutboxDispatcher(
+            OutboxEventRepository outboxEventRepository,
+            List<OutboxEventHandler> handlers,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${cms.outbox.batch-size:100}") int batchSize,
+            @Value("${cms.outbox.max-attempts:10}") int maxAttempts,
+            @Value("${cms.outbox.initial-backoff:5s}") Duration initialBackoff,
+            @Value("${cms.outbox.max-backoff:10m}") Duration maxBackoff,
+            @Value("${cms.outbox.retention:7d}") Duration retention) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.handlersByEventType = handlers.stream().collect(Collectors.groupingBy(OutboxEventHandler::eventType));
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        // ハンドラは1件ずつ独立したトランザクションで実行し、失敗が他のイベントに波及しないようにする
+        this.handlerTransaction = new TransactionTemplate(transactionManager);
+        this.handlerTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.retention = retention;
+
+        Gauge.builder("cms.outbox.pending", outboxEventRepository,
+                        repository -> repository.countByStatus(OutboxEvent.Status.PENDING))
+                .description("Outbox events waiting for dispatch")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${cms.outbox.poll-interval:1000}")
+    public void dispatchPending() {
+        // 1バッチ分埋まっている間は続けて処理する
+        int dispatched;
+        do {
+            Integer count = batchTransaction.execute(status -> dispatchBatch());
+            dispatched = count != null ? count : 0;
+        } while (dispatched >= batchSize);
+    }
+
+    private int dispatchBatch() {
+        List<OutboxEvent> events = outboxEventRepository.lockNextBatch(LocalDateTime.now(), batchSize);
+        for (OutboxEvent event : events) {
+            try {
+                List<OutboxEventHandler> handlers = handlersByEventType.getOrDefault(event.getEventType(), List.of());
+                handlerTransaction.executeWithoutResult(status -> handlers.forEach(handler -> handler.handle(event)));
+                event.setStatus(OutboxEvent.Status.DISPATCHED);
+                event.setDispatchedAt(LocalDateTime.now());
+                event.setLastError(null);
+            } catch (RuntimeException e) {
+                onFailure(event, e);
+            }
+            event.setAttempts(event.getAttempts() + 1);
+        }
+        return events.size();
+    }
+
+    private void onFailure(OutboxEvent event, RuntimeException e) {
+        int attempts = event.getAttempts() + 1;
+        String message = String.valueOf(e.getMessage());
+        event.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        if (attempts >= maxAttempts) {
+            event.setStatus(OutboxEvent.Status.FAILED);
+            log.error("Outbox event {} ({}) failed permanently after {} attempts",
+                    event.getId(), event.getEventType(), attempts, e);
+            return;
+        }
+        long backoffMillis = Math.min(initialBackoff.toMillis() << Math.min(attempts - 1, 20), maxBackoff.toMillis());
+        event.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(backoffMillis)));
+        log.warn("Outbox event {} ({}) failed, retrying in {} ms", event.getId(), event.getEventType(),
+                backoffMillis, e);
+    }
+
+    // 配信済みイベントを毎日削除する
+    @Scheduled(cron = "${cms.outbox.cleanup-cron:0 45 3 * * *}")
+    @Transactional
+    public void deleteDispatchedEvents() {
+        int deleted = outboxEventRepository.deleteDispatchedBefore(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Deleted {} dispatched outbox events", deleted);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.cms.content.outbox;
+
+import com.cms.content.entity.OutboxEvent;
+
+/**
+ * アウトボックスイベントの受信側。配信は少なくとも1回（重複あり）のため、handle は冪等に実装すること。
+ */
+public interface OutboxEventHandler {
+    String eventType();
+
+    void handle(OutboxEvent event);
+}
@@ -0,0 +1,51 @@
+package com.cms.content.outbox;
+
+import com.cms.content.entity.OutboxEvent;
+import com.cms.content.entity.Payment;
+import com.cms.content.payment.PaymentStatusChangedEvent;
+import com.cms.content.service.ProcedureProgressService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 支払いが完了したら、対応する手続きステップの進捗を完了にする。
+ * ステップは支払いの stepId（作成・更新時にフローと大学との整合を検証済み）で、未指定の支払いは対象外。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PaymentCompletedProgressHandler implements OutboxEventHandler {
+    private final ProcedureProgressService progressService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String eventType() {
+        return PaymentStatusChangedEvent.EVENT_TYPE;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        PaymentStatusChangedEvent payment = readPayload(event);
+        if (payment.getStatus() != Payment.PaymentStatus.COMPLETED) {
+            return;
+        }
+
+        if (payment.getStepId() == null) {
+            log.debug("No procedure step linked to payment {}, skipping progress update", payment.getPaymentId());
+            return;
+        }
+        progressService.completeStepIfNeeded(payment.getUserId(), payment.getStepId(), payment.getFlowId(),
+                payment.getUniversityId(), "支払い完了により自動更新");
+    }
+
+    private PaymentStatusChangedEvent readPayload(OutboxEvent event) {
+        try {
+            return objectMapper.readValue(event.getPayload(), PaymentStatusChangedEvent.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Invalid payload for outbox event " + event.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.cms.content.payment;
+
+public enum BankStatementFormat {
+    ZENGIN, // 全銀協フォーマット（振込入金通知、200バイト固定長、Shift_JIS）
+    CSV     // ヘッダー付きCSV（UTF-8）
+}
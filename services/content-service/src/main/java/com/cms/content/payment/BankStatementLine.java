@@ -0,0 +1,26 @@
+package com.cms.content.payment;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 入金明細の1行。解析に失敗した行は error に理由が入る。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BankStatementLine {
+    private int lineNumber;
+    private String transactionId; // 照会番号 / 取引ID
+    private BigDecimal amount;
+    private Long userId; // 振込依頼人コード（学籍番号等）から解決したユーザーID
+    private String payerName; // 振込依頼人名
+    private LocalDate transferDate; // 勘定日
+    private String error;
+}
@@ -0,0 +1,216 @@
+package com.cms.content.payment;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 入金明細ファイルを1行ずつ読み込み、明細行だけをコールバックに渡す（ファイル全体をメモリに載せない）。
+ */
+public final class BankStatementParser {
+    private static final Charset ZENGIN_CHARSET = Charset.forName("MS932");
+    private static final int ZENGIN_RECORD_LENGTH = 200;
+    private static final char ZENGIN_DATA_RECORD = '2';
+
+    private BankStatementParser() {
+    }
+
+    public static void parse(InputStream in, BankStatementFormat format, Consumer<BankStatementLine> consumer) {
+        try {
+            if (format == BankStatementFormat.ZENGIN) {
+                parseZengin(in, consumer);
+            } else {
+                parseCsv(in, consumer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 全銀協「振込入金通知」形式。データレコード（区分2）のレイアウト（バイト位置）:
+     * 照会番号 2-9, 勘定日 10-15 (YYMMDD), 金額 22-31, 振込依頼人コード 42-51, 振込依頼人名 52-99。
+     * レコードは改行区切り・改行なしの連続どちらにも対応する。
+     */
+    private static void parseZengin(InputStream in, Consumer<BankStatementLine> consumer) throws IOException {
+        InputStream input = new BufferedInputStream(in);
+        ByteArrayOutputStream record = new ByteArrayOutputStream(ZENGIN_RECORD_LENGTH);
+        int lineNumber = 0;
+        int b;
+        while ((b = input.read()) != -1) {
+            if (b == '\r' || b == '\n') {
+                if (record.size() > 0) {
+                    emitZengin(record.toByteArray(), ++lineNumber, consumer);
+                    record.reset();
+                }
+                continue;
+            }
+            record.write(b);
+            if (record.size() == ZENGIN_RECORD_LENGTH) {
+                emitZengin(record.toByteArray(), ++lineNumber, consumer);
+                record.reset();
+            }
+        }
+        if (record.size() > 0) {
+            emitZengin(record.toByteArray(), ++lineNumber, consumer);
+        }
+    }
+
+    private static void emitZengin(byte[] record, int lineNumber, Consumer<BankStatementLine> consumer) {
+        if (record[0] != ZENGIN_DATA_RECORD) {
+            return; // ヘッダー(1)・トレーラー(8)・エンド(9)
+        }
+        if (record.length < 99) {
+            consumer.accept(BankStatementLine.builder()
+                    .lineNumber(lineNumber)
+                    .error("Record too short (" + record.length + " bytes)")
+                    .build());
+            return;
+        }
+        BankStatementLine.BankStatementLineBuilder line = BankStatementLine.builder().lineNumber(lineNumber);
+        try {
+            line.transactionId(blankToNull(field(record, 2, 8)));
+            line.transferDate(parseYyMmDd(field(record, 10, 6)));
+            line.amount(new BigDecimal(field(record, 22, 10)));
+            line.userId(parseUserId(field(record, 42, 10)));
+            line.payerName(blankToNull(field(record, 52, 48)));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            line.error("Invalid field: " + e.getMessage());
+        }
+        consumer.accept(line.build());
+    }
+
+    // start は1始まりのバイト位置
+    private static String field(byte[] record, int start, int length) {
+        int from = start - 1;
+        int to = Math.min(from + length, record.length);
+        return new String(record, from, Math.max(to - from, 0), ZENGIN_CHARSET).trim();
+    }
+
+    private static LocalDate parseYyMmDd(String value) {
+        if (value.isEmpty() || value.chars().allMatch(c -> c == '0')) {
+            return null;
+        }
+        if (value.length() != 6) {
+            throw new DateTimeParseException("Invalid date", value, 0);
+        }
+        try {
+            return LocalDate.of(2000 + Integer.parseInt(value.substring(0, 2)),
+                    Integer.parseInt(value.substring(2, 4)),
+                    Integer.parseInt(value.substring(4, 6)));
+        } catch (RuntimeException e) {
+            throw new DateTimeParseException("Invalid date", value, 0);
+        }
+    }
+
+    /**
+     * ヘッダー付きCSV。列: transaction_id, amount, user_id, payer_name, transfer_date（順不同、amount 以外は任意）。
+     */
+    private static void parseCsv(InputStream in, Consumer<BankStatementLine> consumer) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            return;
+        }
+        if (headerLine.startsWith("\uFEFF")) { // BOM付きUTF-8
+            headerLine = headerLine.substring(1);
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> headers = splitCsv(headerLine);
+        for (int i = 0; i < headers.size(); i++) {
+            columns.put(headers.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("amount")) {
+            throw new RuntimeException("CSV header must contain an amount column");
+        }
+
+        int lineNumber = 1;
+        String row;
+        while ((row = reader.readLine()) != null) {
+            lineNumber++;
+            if (row.isBlank()) {
+                continue;
+            }
+            List<String> values = splitCsv(row);
+            BankStatementLine.BankStatementLineBuilder line = BankStatementLine.builder().lineNumber(lineNumber);
+            try {
+                line.transactionId(blankToNull(column(values, columns, "transaction_id")));
+                line.amount(new BigDecimal(column(values, columns, "amount").replace(",", "")));
+                line.userId(parseUserId(column(values, columns, "user_id")));
+                line.payerName(blankToNull(column(values, columns, "payer_name")));
+                String date = column(values, columns, "transfer_date");
+                line.transferDate(date.isEmpty() ? null : LocalDate.parse(date));
+            } catch (NumberFormatException | DateTimeParseException e) {
+                line.error("Invalid field: " + e.getMessage());
+            }
+            consumer.accept(line.build());
+        }
+    }
+
+    private static String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.size()) {
+            return "";
+        }
+        return values.get(index).trim();
+    }
+
+    // ダブルクォートで囲まれた値（"" によるエスケープを含む）に対応する簡易分割
+    private static List<String> splitCsv(String row) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < row.length(); i++) {
+            char c = row.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < row.length() && row.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static Long parseUserId(String value) {
+        if (value == null || value.isBlank() || value.chars().allMatch(c -> c == '0' || c == ' ')) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null; // 数値以外の依頼人コードはユーザー照合に使わない
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
@@ -0,0 +1,24 @@
+package com.cms.content.payment;
+
+import org.springframework.http.MediaType;
+
+public enum ExportFormat {
+    CSV("text/csv; charset=UTF-8", "csv"),
+    JSONL("application/x-ndjson; charset=UTF-8", "jsonl");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public MediaType mediaType() {
+        return MediaType.parseMediaType(contentType);
+    }
+
+    public String extension() {
+        return extension;
+    }
+}
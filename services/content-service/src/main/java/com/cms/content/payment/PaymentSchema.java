@@ -0,0 +1,77 @@
+package com.cms.content.payment;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * payments.transaction_id の一意制約（uk_payments_transaction_id）を用意する。
+ * ddl-auto: update は既存データが制約に違反していると追加に失敗したまま起動するため、
+ * エンティティには宣言せず、既存行を整えてからここで追加する。
+ * <ul>
+ *   <li>空文字・空白だけの取引IDは NULL にする（取引IDなしの決済として扱う）</li>
+ *   <li>重複している取引IDは、完了済みの行（なければ最も古い行）に残し、他の行は "#dup-{id}" を付けて退避する</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PaymentSchema {
+    private static final long SCHEMA_LOCK_KEY = 0x636d735f70796d74L; // "cms_pymt"
+    private static final String CONSTRAINT_NAME = "uk_payments_transaction_id";
+
+    private static final String NORMALIZE_BLANK_SQL =
+            "UPDATE payments SET transaction_id = NULL WHERE btrim(transaction_id) = ''";
+
+    private static final String SELECT_DUPLICATES_SQL = """
+            SELECT id, transaction_id FROM (
+              SELECT id, transaction_id,
+                     row_number() OVER (PARTITION BY transaction_id
+                                        ORDER BY (status = 'COMPLETED') DESC, id) AS rank
+              FROM payments WHERE transaction_id IS NOT NULL
+            ) ranked WHERE rank > 1 ORDER BY transaction_id, id""";
+
+    private static final String RENAME_DUPLICATE_SQL =
+            "UPDATE payments SET transaction_id = transaction_id || '#dup-' || id WHERE id = ?";
+
+    private static final String CONSTRAINT_EXISTS_SQL =
+            "SELECT COUNT(*) FROM pg_constraint WHERE conname = ? AND conrelid = 'payments'::regclass";
+
+    private static final String ADD_CONSTRAINT_SQL =
+            "ALTER TABLE payments ADD CONSTRAINT " + CONSTRAINT_NAME + " UNIQUE (transaction_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void ensureSchema() {
+        // 複数レプリカが同時に起動しても DDL が競合しないようにする
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + SCHEMA_LOCK_KEY + ")");
+        Long existing = jdbcTemplate.queryForObject(CONSTRAINT_EXISTS_SQL, Long.class, CONSTRAINT_NAME);
+        if (existing != null && existing > 0) {
+            return;
+        }
+
+        int blanks = jdbcTemplate.update(NORMALIZE_BLANK_SQL);
+        if (blanks > 0) {
+            log.info("Normalized {} blank payment transaction IDs to NULL", blanks);
+        }
+        List<Map<String, Object>> duplicates = jdbcTemplate.queryForList(SELECT_DUPLICATES_SQL);
+        for (Map<String, Object> duplicate : duplicates) {
+            log.warn("Payment {} shares transaction ID '{}' with another payment; renamed to '{}#dup-{}'",
+                    duplicate.get("id"), duplicate.get("transaction_id"),
+                    duplicate.get("transaction_id"), duplicate.get("id"));
+            jdbcTemplate.update(RENAME_DUPLICATE_SQL, duplicate.get("id"));
+        }
+
+        jdbcTemplate.execute(ADD_CONSTRAINT_SQL);
+        log.info("Added {} ({} duplicate transaction IDs renamed)", CONSTRAINT_NAME, duplicates.size());
+    }
+}
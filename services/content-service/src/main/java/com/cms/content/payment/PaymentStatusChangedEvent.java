@@ -0,0 +1,46 @@
+package com.cms.content.payment;
+
+import com.cms.content.entity.Payment;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// アウトボックスに書き込む支払いステータス変更イベントの内容
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentStatusChangedEvent {
+    public static final String AGGREGATE_TYPE = "PAYMENT";
+    public static final String EVENT_TYPE = "PAYMENT_STATUS_CHANGED";
+
+    private Long paymentId;
+    private Long userId;
+    private Long universityId;
+    private Long flowId;
+    private Long stepId;
+    private String paymentType;
+    private BigDecimal amount;
+    private Payment.PaymentStatus previousStatus; // 新規作成の場合はnull
+    private Payment.PaymentStatus status;
+    private LocalDateTime paidAt;
+
+    public static PaymentStatusChangedEvent of(Payment payment, Payment.PaymentStatus previousStatus) {
+        return PaymentStatusChangedEvent.builder()
+                .paymentId(payment.getId())
+                .userId(payment.getUserId())
+                .universityId(payment.getUniversityId())
+                .flowId(payment.getFlowId())
+                .stepId(payment.getStepId())
+                .paymentType(payment.getPaymentType())
+                .amount(payment.getAmount())
+                .previousStatus(previousStatus)
+                .status(payment.getStatus())
+                .paidAt(payment.getPaidAt())
+                .build();
+    }
+}
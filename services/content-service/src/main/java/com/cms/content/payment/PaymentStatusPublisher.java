@@ -0,0 +1,28 @@
+package com.cms.content.payment;
+
+import com.cms.content.entity.Payment;
+import com.cms.content.outbox.OutboxPublisher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 支払いステータスの変更をアウトボックスに記録する（手続き進捗の更新などが非同期に受け取る）。
+ * 支払いを更新したのと同じトランザクションで呼び出すこと。
+ */
+@Component
+@RequiredArgsConstructor
+public class PaymentStatusPublisher {
+    private final OutboxPublisher outboxPublisher;
+
+    // ステータスが変わっていなければ何もしない（previousStatus が null の場合は新規作成）
+    public void publishIfChanged(Payment payment, Payment.PaymentStatus previousStatus) {
+        if (payment.getStatus() != previousStatus) {
+            publish(PaymentStatusChangedEvent.of(payment, previousStatus));
+        }
+    }
+
+    public void publish(PaymentStatusChangedEvent event) {
+        outboxPublisher.publish(PaymentStatusChangedEvent.AGGREGATE_TYPE, event.getPaymentId(),
+                PaymentStatusChangedEvent.EVENT_TYPE, event.getUniversityId(), event);
+    }
+}
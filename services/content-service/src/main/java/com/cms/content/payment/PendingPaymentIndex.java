@@ -0,0 +1,116 @@
+package com.cms.content.payment;
+
+import com.cms.content.entity.Payment;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 未払い（PENDING）の支払いを取引ID・ユーザー×金額・金額で引けるようにしたインメモリ索引。
+ * 照合済みの支払いは以降の行の候補から外す。
+ */
+public class PendingPaymentIndex {
+    private final Map<String, List<Payment>> byTransactionId = new HashMap<>();
+    private final Map<UserAmountKey, List<Payment>> byUserAndAmount = new HashMap<>();
+    private final Map<BigDecimal, List<Payment>> byAmount = new HashMap<>();
+    private final Set<Long> consumed = new HashSet<>();
+
+    public PendingPaymentIndex(Iterable<Payment> pendingPayments) {
+        for (Payment payment : pendingPayments) {
+            BigDecimal amount = normalize(payment.getAmount());
+            if (payment.getTransactionId() != null && !payment.getTransactionId().isBlank()) {
+                byTransactionId.computeIfAbsent(payment.getTransactionId().trim(), k -> new ArrayList<>()).add(payment);
+            }
+            byUserAndAmount.computeIfAbsent(new UserAmountKey(payment.getUserId(), amount), k -> new ArrayList<>())
+                    .add(payment);
+            byAmount.computeIfAbsent(amount, k -> new ArrayList<>()).add(payment);
+        }
+    }
+
+    /**
+     * 照合の優先順位: 取引ID → ユーザー×金額 → 金額のみ。
+     * 金額のみの一致は誤消込の危険があるため自動照合せず、候補として返す。
+     */
+    public Match match(BankStatementLine line) {
+        BigDecimal amount = normalize(line.getAmount());
+
+        if (line.getTransactionId() != null) {
+            List<Payment> candidates = available(byTransactionId.get(line.getTransactionId()));
+            if (!candidates.isEmpty()) {
+                List<Payment> sameAmount = candidates.stream()
+                        .filter(p -> normalize(p.getAmount()).equals(amount))
+                        .toList();
+                if (sameAmount.size() == 1) {
+                    return Match.matched(sameAmount.get(0), "transactionId");
+                }
+                return Match.ambiguous(sameAmount.isEmpty() ? candidates : sameAmount,
+                        sameAmount.isEmpty() ? "Transaction ID matches but amount differs"
+                                : "Multiple payments share the transaction ID");
+            }
+        }
+
+        if (line.getUserId() != null) {
+            List<Payment> candidates = available(byUserAndAmount.get(new UserAmountKey(line.getUserId(), amount)));
+            if (candidates.size() == 1) {
+                return Match.matched(candidates.get(0), "userAndAmount");
+            }
+            if (candidates.size() > 1) {
+                return Match.ambiguous(candidates, "Multiple pending payments for the user with the same amount");
+            }
+        }
+
+        List<Payment> candidates = available(byAmount.get(amount));
+        if (!candidates.isEmpty()) {
+            return Match.ambiguous(candidates, "Only the amount matches");
+        }
+        return Match.unmatched();
+    }
+
+    public void consume(Payment payment) {
+        consumed.add(payment.getId());
+    }
+
+    private List<Payment> available(List<Payment> payments) {
+        if (payments == null) {
+            return List.of();
+        }
+        return payments.stream()
+                .filter(p -> !consumed.contains(p.getId()))
+                .toList();
+    }
+
+    // 10000 と 10000.00 を同じキーとして扱う
+    private static BigDecimal normalize(BigDecimal amount) {
+        return amount.signum() == 0 ? BigDecimal.ZERO : amount.stripTrailingZeros();
+    }
+
+    private record UserAmountKey(Long userId, BigDecimal amount) {
+    }
+
+    public record Match(Payment payment, List<Payment> candidates, String reason) {
+        static Match matched(Payment payment, String reason) {
+            return new Match(payment, List.of(payment), reason);
+        }
+
+        static Match ambiguous(List<Payment> candidates, String reason) {
+            return new Match(null, candidates, reason);
+        }
+
+        static Match unmatched() {
+            return new Match(null, List.of(), null);
+        }
+
+        public boolean isMatched() {
+            return payment != null;
+        }
+
+        public boolean isAmbiguous() {
+            return payment == null && !candidates.isEmpty();
+        }
+    }
+}
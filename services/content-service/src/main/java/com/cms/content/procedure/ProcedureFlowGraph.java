@@ -0,0 +1,249 @@
+package com.cms.content.procedure;
+
+import com.cms.content.entity.ProcedureStep;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.LongPredicate;
+
+/**
+ * 手続きフロー内のステップ依存関係をコンパイルした不変のDAG。
+ * ステップはトポロジカル順のインデックスで表現し、依存関係はプリミティブ配列で保持する。
+ */
+public final class ProcedureFlowGraph {
+    private static final int[] NO_INDICES = new int[0];
+    private static final long[] NO_IDS = new long[0];
+
+    private final Long flowId;
+    private final long[] stepIds;             // トポロジカル順のステップID
+    private final int[][] dependsOn;          // インデックス → 依存先のインデックス
+    private final long[][] externalDependsOn; // インデックス → フロー外（または非アクティブ）の依存先ステップID
+    private final long[] sortedStepIds;       // 二分探索用に昇順に並べたステップID
+    private final int[] sortedToIndex;
+    private final long[] externalStepIds;     // 重複を除いたフロー外の依存先ステップID
+
+    private ProcedureFlowGraph(Long flowId, long[] stepIds, int[][] dependsOn, long[][] externalDependsOn) {
+        this.flowId = flowId;
+        this.stepIds = stepIds;
+        this.dependsOn = dependsOn;
+        this.externalDependsOn = externalDependsOn;
+        this.externalStepIds = Arrays.stream(externalDependsOn).flatMapToLong(Arrays::stream).distinct().toArray();
+
+        Integer[] order = new Integer[stepIds.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> stepIds[i]));
+        this.sortedStepIds = new long[stepIds.length];
+        this.sortedToIndex = new int[stepIds.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedStepIds[i] = stepIds[order[i]];
+            sortedToIndex[i] = order[i];
+        }
+    }
+
+    /**
+     * 書き込み時の検証用。循環依存があれば例外を投げる。
+     */
+    public static ProcedureFlowGraph compileStrict(Long flowId, List<ProcedureStep> steps) {
+        return compile(flowId, steps, true);
+    }
+
+    /**
+     * 読み込み時用。既存データに循環があっても、残りのステップをステップ順で末尾に並べる。
+     */
+    public static ProcedureFlowGraph compileLenient(Long flowId, List<ProcedureStep> steps) {
+        return compile(flowId, steps, false);
+    }
+
+    public static long[] parseDependsOnStepIds(String dependsOnStepIds, boolean strict) {
+        if (dependsOnStepIds == null || dependsOnStepIds.isBlank()) {
+            return NO_IDS;
+        }
+        String[] tokens = dependsOnStepIds.split(",");
+        long[] ids = new long[tokens.length];
+        int count = 0;
+        for (String token : tokens) {
+            try {
+                ids[count++] = Long.parseLong(token.trim());
+            } catch (NumberFormatException e) {
+                if (strict) {
+                    throw new RuntimeException("Invalid dependsOnStepIds: " + dependsOnStepIds);
+                }
+                count--;
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    // 既存データとの互換性のため、不正なIDはどちらのモードでも無視する（書き込み時の形式検証は呼び出し側で行う）
+    private static ProcedureFlowGraph compile(Long flowId, List<ProcedureStep> steps, boolean rejectCycles) {
+        List<ProcedureStep> ordered = new ArrayList<>(steps);
+        ordered.sort(Comparator.comparing(ProcedureStep::getStepOrder, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(ProcedureStep::getId));
+        int n = ordered.size();
+
+        long[] ids = new long[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = ordered.get(i).getId();
+        }
+        long[] sortedIds = ids.clone();
+        Arrays.sort(sortedIds);
+        int[] sortedPositions = new int[n];
+        for (int i = 0; i < n; i++) {
+            sortedPositions[Arrays.binarySearch(sortedIds, ids[i])] = i;
+        }
+
+        // ステップ順インデックスでの依存関係
+        int[][] localDeps = new int[n][];
+        long[][] externalDeps = new long[n][];
+        int[] inDegree = new int[n];
+        int[][] dependents = new int[n][];
+        int[] dependentCounts = new int[n];
+        for (int i = 0; i < n; i++) {
+            long[] dependsOnIds = parseDependsOnStepIds(ordered.get(i).getDependsOnStepIds(), false);
+            int[] local = new int[dependsOnIds.length];
+            long[] external = new long[dependsOnIds.length];
+            int localCount = 0;
+            int externalCount = 0;
+            for (long dependsOnId : dependsOnIds) {
+                int found = Arrays.binarySearch(sortedIds, dependsOnId);
+                if (found >= 0) {
+                    local[localCount++] = sortedPositions[found];
+                } else {
+                    external[externalCount++] = dependsOnId;
+                }
+            }
+            localDeps[i] = localCount == 0 ? NO_INDICES : Arrays.copyOf(local, localCount);
+            externalDeps[i] = externalCount == 0 ? NO_IDS : Arrays.copyOf(external, externalCount);
+            inDegree[i] = localCount;
+            for (int j = 0; j < localCount; j++) {
+                int dep = local[j];
+                if (dependents[dep] == null) {
+                    dependents[dep] = new int[2];
+                } else if (dependentCounts[dep] == dependents[dep].length) {
+                    dependents[dep] = Arrays.copyOf(dependents[dep], dependentCounts[dep] * 2);
+                }
+                dependents[dep][dependentCounts[dep]++] = i;
+            }
+        }
+
+        // Kahn法によるトポロジカルソート（同順位はステップ順を維持）
+        int[] topoOrder = new int[n];
+        int emitted = 0;
+        boolean[] done = new boolean[n];
+        PriorityQueue<Integer> ready = new PriorityQueue<>();
+        for (int i = 0; i < n; i++) {
+            if (inDegree[i] == 0) {
+                ready.add(i);
+            }
+        }
+        while (emitted < n) {
+            if (ready.isEmpty()) {
+                if (rejectCycles) {
+                    throw new RuntimeException("Circular step dependency detected in flow " + flowId);
+                }
+                // 循環に含まれる残りのステップはステップ順で末尾に並べる
+                for (int i = 0; i < n; i++) {
+                    if (!done[i]) {
+                        ready.add(i);
+                        inDegree[i] = 0;
+                        break;
+                    }
+                }
+            }
+            int current = ready.poll();
+            if (done[current]) {
+                continue;
+            }
+            done[current] = true;
+            topoOrder[emitted++] = current;
+            for (int k = 0; k < dependentCounts[current]; k++) {
+                int dependent = dependents[current][k];
+                if (!done[dependent] && --inDegree[dependent] == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        int[] topoIndexOf = new int[n];
+        for (int t = 0; t < n; t++) {
+            topoIndexOf[topoOrder[t]] = t;
+        }
+        long[] stepIds = new long[n];
+        int[][] dependsOn = new int[n][];
+        long[][] externalDependsOn = new long[n][];
+        for (int t = 0; t < n; t++) {
+            int original = topoOrder[t];
+            stepIds[t] = ids[original];
+            int[] deps = localDeps[original];
+            int[] mapped = deps.length == 0 ? NO_INDICES : new int[deps.length];
+            for (int j = 0; j < deps.length; j++) {
+                mapped[j] = topoIndexOf[deps[j]];
+            }
+            dependsOn[t] = mapped;
+            externalDependsOn[t] = externalDeps[original];
+        }
+        return new ProcedureFlowGraph(flowId, stepIds, dependsOn, externalDependsOn);
+    }
+
+    public Long getFlowId() {
+        return flowId;
+    }
+
+    public int size() {
+        return stepIds.length;
+    }
+
+    public long stepIdAt(int index) {
+        return stepIds[index];
+    }
+
+    /**
+     * ステップIDからトポロジカル順のインデックスを返す。存在しない場合は -1。
+     */
+    public int indexOf(long stepId) {
+        int found = Arrays.binarySearch(sortedStepIds, stepId);
+        return found >= 0 ? sortedToIndex[found] : -1;
+    }
+
+    public long[] externalDependsOnStepIds() {
+        return externalStepIds.clone();
+    }
+
+    public boolean hasExternalDependencies() {
+        return externalStepIds.length > 0;
+    }
+
+    /**
+     * 完了済みステップのビットセットから、依存ステップが未完了で開始できないステップを求める。
+     *
+     * @param completed         トポロジカル順インデックスで表した完了済みステップ
+     * @param externalCompleted フロー外の依存先ステップIDが完了済みかどうか
+     * @return 開始できないステップのインデックス
+     */
+    public BitSet blocked(BitSet completed, LongPredicate externalCompleted) {
+        BitSet blocked = new BitSet(stepIds.length);
+        for (int i = 0; i < stepIds.length; i++) {
+            for (int dep : dependsOn[i]) {
+                if (!completed.get(dep)) {
+                    blocked.set(i);
+                    break;
+                }
+            }
+            if (!blocked.get(i)) {
+                for (long externalId : externalDependsOn[i]) {
+                    if (!externalCompleted.test(externalId)) {
+                        blocked.set(i);
+                        break;
+                    }
+                }
+            }
+        }
+        return blocked;
+    }
+}
@@ -0,0 +1,68 @@
+package com.cms.content.procedure;
+
+import com.cms.content.entity.ProcedureStep;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * フローごとのコンパイル済み依存グラフのキャッシュ。
+ * ProcedureStepService がフローのステップを変更するまで保持する。
+ */
+@Component
+public class ProcedureFlowGraphCache {
+    private final Map<Long, ProcedureFlowGraph> graphs = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * キャッシュになければ、与えられたアクティブなステップ一覧からコンパイルして格納する。
+     */
+    public ProcedureFlowGraph get(Long flowId, Supplier<List<ProcedureStep>> activeSteps) {
+        ProcedureFlowGraph cached = graphs.get(flowId);
+        if (cached != null) {
+            return cached;
+        }
+        long readGeneration = generation.get();
+        ProcedureFlowGraph graph = ProcedureFlowGraph.compileLenient(flowId, activeSteps.get());
+        synchronized (this) {
+            // コンパイル中に無効化された場合は古いグラフを格納しない
+            if (generation.get() == readGeneration) {
+                graphs.put(flowId, graph);
+            }
+        }
+        return graph;
+    }
+
+    public void evict(Long flowId) {
+        synchronized (this) {
+            generation.incrementAndGet();
+            graphs.remove(flowId);
+        }
+    }
+
+    public void clear() {
+        synchronized (this) {
+            generation.incrementAndGet();
+            graphs.clear();
+        }
+    }
+
+    public void evictAfterCommit(Long flowId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(flowId);
+                }
+            });
+        } else {
+            evict(flowId);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.cms.content.procedure;
+
+import com.cms.content.entity.ProcedureProgress;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ユーザー×フロー単位の進捗スナップショット。
+ * ステップの状態をトポロジカル順インデックスの配列で保持し、進捗の更新時に差分で維持する。
+ */
+public class ProcedureProgressSnapshot {
+    private static final ProcedureProgress.ProgressStatus[] STATUSES = ProcedureProgress.ProgressStatus.values();
+    private static final byte NOT_STARTED = (byte) ProcedureProgress.ProgressStatus.NOT_STARTED.ordinal();
+
+    private final ProcedureFlowGraph graph;
+    private final byte[] statuses;
+    private final BitSet completed;
+    private final Map<Long, ProcedureProgress.ProgressStatus> externalStatuses = new HashMap<>();
+    private int completedCount;
+    private int inProgressCount;
+
+    private ProcedureProgressSnapshot(ProcedureFlowGraph graph) {
+        this.graph = graph;
+        this.statuses = new byte[graph.size()];
+        this.completed = new BitSet(graph.size());
+        Arrays.fill(statuses, NOT_STARTED);
+        for (long externalId : graph.externalDependsOnStepIds()) {
+            externalStatuses.put(externalId, ProcedureProgress.ProgressStatus.NOT_STARTED);
+        }
+    }
+
+    /**
+     * フローの進捗行（フロー外の依存先ステップの進捗を含む）から構築する。
+     */
+    public static ProcedureProgressSnapshot build(ProcedureFlowGraph graph, List<ProcedureProgress> progressRows) {
+        ProcedureProgressSnapshot snapshot = new ProcedureProgressSnapshot(graph);
+        for (ProcedureProgress progress : progressRows) {
+            snapshot.apply(progress.getStepId(), progress.getStatus());
+        }
+        return snapshot;
+    }
+
+    public ProcedureFlowGraph getGraph() {
+        return graph;
+    }
+
+    public synchronized void apply(Long stepId, ProcedureProgress.ProgressStatus status) {
+        int index = graph.indexOf(stepId);
+        if (index < 0) {
+            if (externalStatuses.containsKey(stepId)) {
+                externalStatuses.put(stepId, status);
+            }
+            return;
+        }
+        ProcedureProgress.ProgressStatus previous = STATUSES[statuses[index]];
+        if (previous == status) {
+            return;
+        }
+        adjustCounts(previous, -1);
+        adjustCounts(status, 1);
+        statuses[index] = (byte) status.ordinal();
+        completed.set(index, status == ProcedureProgress.ProgressStatus.COMPLETED);
+    }
+
+    public synchronized ProcedureProgress.ProgressStatus statusOf(Long stepId) {
+        int index = graph.indexOf(stepId);
+        return index >= 0 ? STATUSES[statuses[index]] : externalStatuses.get(stepId);
+    }
+
+    /**
+     * 依存ステップが未完了で開始できないステップ（トポロジカル順インデックス）。
+     */
+    public synchronized BitSet blocked() {
+        return graph.blocked(completed, stepId ->
+                externalStatuses.get(stepId) == ProcedureProgress.ProgressStatus.COMPLETED);
+    }
+
+    public int totalSteps() {
+        return graph.size();
+    }
+
+    public synchronized int completedSteps() {
+        return completedCount;
+    }
+
+    public synchronized int inProgressSteps() {
+        return inProgressCount;
+    }
+
+    private void adjustCounts(ProcedureProgress.ProgressStatus status, int delta) {
+        if (status == ProcedureProgress.ProgressStatus.COMPLETED) {
+            completedCount += delta;
+        } else if (status == ProcedureProgress.ProgressStatus.IN_PROGRESS) {
+            inProgressCount += delta;
+        }
+    }
+}
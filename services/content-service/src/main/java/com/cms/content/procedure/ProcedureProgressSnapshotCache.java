@@ -0,0 +1,119 @@
+package com.cms.content.procedure;
+
+import com.cms.content.entity.ProcedureProgress;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * ユーザー×フローの進捗スナップショットを保持するLRUキャッシュ。
+ * 進捗の更新はコミット後にスナップショットへ差分適用する。
+ */
+@Component
+public class ProcedureProgressSnapshotCache {
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final Map<Key, ProcedureProgressSnapshot> snapshots;
+    // キーのハッシュごとの世代番号（読み込み中に更新された古いスナップショットの格納を防ぐ）
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public ProcedureProgressSnapshotCache(
+            @Value("${cms.cache.progress-snapshot.max-entries:50000}") int maxEntries) {
+        this.snapshots = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ProcedureProgressSnapshot> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * スナップショットを返す。未構築、またはフローの依存グラフが変わっている場合は進捗行から構築する。
+     */
+    public ProcedureProgressSnapshot get(Long userId, Long flowId, ProcedureFlowGraph graph,
+                                         Supplier<List<ProcedureProgress>> progressRows) {
+        Key key = new Key(userId, flowId);
+        ProcedureProgressSnapshot cached;
+        synchronized (snapshots) {
+            cached = snapshots.get(key);
+        }
+        if (cached != null && cached.getGraph() == graph) {
+            return cached;
+        }
+        long readGeneration = generations.get(key.stripe());
+        ProcedureProgressSnapshot snapshot = ProcedureProgressSnapshot.build(graph, progressRows.get());
+        if (graph.hasExternalDependencies()) {
+            // フロー外の依存先は別フローの進捗更新で変わるため、差分維持できずキャッシュしない
+            return snapshot;
+        }
+        synchronized (snapshots) {
+            if (generations.get(key.stripe()) == readGeneration) {
+                snapshots.put(key, snapshot);
+            }
+        }
+        return snapshot;
+    }
+
+    public void applyAfterCommit(Long userId, Long flowId, Long stepId, ProcedureProgress.ProgressStatus status) {
+        runAfterCommit(() -> apply(userId, flowId, stepId, status));
+    }
+
+    public void evictAfterCommit(Long userId, Long flowId) {
+        runAfterCommit(() -> evict(userId, flowId));
+    }
+
+    public void apply(Long userId, Long flowId, Long stepId, ProcedureProgress.ProgressStatus status) {
+        Key key = new Key(userId, flowId);
+        ProcedureProgressSnapshot snapshot;
+        synchronized (snapshots) {
+            generations.incrementAndGet(key.stripe());
+            snapshot = snapshots.get(key);
+        }
+        if (snapshot != null) {
+            snapshot.apply(stepId, status);
+        }
+    }
+
+    public void evict(Long userId, Long flowId) {
+        Key key = new Key(userId, flowId);
+        synchronized (snapshots) {
+            generations.incrementAndGet(key.stripe());
+            snapshots.remove(key);
+        }
+    }
+
+    public void clear() {
+        synchronized (snapshots) {
+            for (int i = 0; i < GENERATION_STRIPES; i++) {
+                generations.incrementAndGet(i);
+            }
+            snapshots.clear();
+        }
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record Key(Long userId, Long flowId) {
+        int stripe() {
+            return Math.floorMod(hashCode(), GENERATION_STRIPES);
+        }
+    }
+}
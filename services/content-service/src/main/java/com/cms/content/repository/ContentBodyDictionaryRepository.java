@@ -0,0 +1,12 @@
+package com.cms.content.repository;
+
+import com.cms.content.entity.ContentBodyDictionary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ContentBodyDictionaryRepository extends JpaRepository<ContentBodyDictionary, Long> {
+    Optional<ContentBodyDictionary> findTopByUniversityIdOrderByIdDesc(Long universityId);
+}
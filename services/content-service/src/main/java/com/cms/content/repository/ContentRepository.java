@@ -1,14 +1,31 @@
 package com.cms.content.repository;
 
+import com.cms.content.dto.ContentSummaryResponse;
 import com.cms.content.entity.Content;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ContentRepository extends JpaRepository<Content, Long> {
+    // 一覧表示用の射影（body・customFieldsは読み込まない）
+    String SUMMARY_SELECT = "SELECT new com.cms.content.dto.ContentSummaryResponse("
+            + "c.id, c.title, c.slug, c.status, c.authorId, c.universityId, c.categoryId, c.contentType, "
+            + "c.metaDescription, c.metaKeywords, c.scheduledPublishAt, c.scheduledUnpublishAt, "
+            + "c.versionNumber, c.templateId, c.createdAt, c.updatedAt, c.publishedAt) FROM Content c ";
+
     Optional<Content> findBySlug(String slug);
     Optional<Content> findByUniversityIdAndSlug(Long universityId, String slug);
     List<Content> findByStatus(Content.Status status);
@@ -19,7 +36,140 @@ public interface ContentRepository extends JpaRepository<Content, Long> {
     List<Content> findByUniversityIdAndContentType(Long universityId, String contentType);
     boolean existsBySlug(String slug);
     boolean existsByUniversityIdAndSlug(Long universityId, String slug);
-}
 
+    long countByStatus(Content.Status status);
+    long countByUniversityId(Long universityId);
+    long countByUniversityIdAndStatus(Long universityId, Content.Status status);
+    long countByUniversityIdAndCategoryId(Long universityId, Long categoryId);
+    long countByUniversityIdAndContentType(Long universityId, String contentType);
+
+    // キーセットページネーション（id降順）
+    @Query(SUMMARY_SELECT + "WHERE c.id < :afterId ORDER BY c.id DESC")
+    List<ContentSummaryResponse> findSummaries(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE c.universityId = :universityId AND c.id < :afterId ORDER BY c.id DESC")
+    List<ContentSummaryResponse> findSummariesByUniversityId(
+            @Param("universityId") Long universityId,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE c.universityId = :universityId AND c.categoryId = :categoryId "
+            + "AND c.id < :afterId ORDER BY c.id DESC")
+    List<ContentSummaryResponse> findSummariesByUniversityIdAndCategoryId(
+            @Param("universityId") Long universityId,
+            @Param("categoryId") Long categoryId,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE c.universityId = :universityId AND c.contentType = :contentType "
+            + "AND c.id < :afterId ORDER BY c.id DESC")
+    List<ContentSummaryResponse> findSummariesByUniversityIdAndContentType(
+            @Param("universityId") Long universityId,
+            @Param("contentType") String contentType,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    // キーセットページネーション（公開日時降順、同時刻はid降順）
+    @Query(SUMMARY_SELECT + "WHERE c.status = :status "
+            + "AND (c.publishedAt < :afterPublishedAt OR (c.publishedAt = :afterPublishedAt AND c.id < :afterId)) "
+            + "ORDER BY c.publishedAt DESC, c.id DESC")
+    List<ContentSummaryResponse> findSummariesByStatus(
+            @Param("status") Content.Status status,
+            @Param("afterPublishedAt") LocalDateTime afterPublishedAt,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE c.universityId = :universityId AND c.status = :status "
+            + "AND (c.publishedAt < :afterPublishedAt OR (c.publishedAt = :afterPublishedAt AND c.id < :afterId)) "
+            + "ORDER BY c.publishedAt DESC, c.id DESC")
+    List<ContentSummaryResponse> findSummariesByUniversityIdAndStatus(
+            @Param("universityId") Long universityId,
+            @Param("status") Content.Status status,
+            @Param("afterPublishedAt") LocalDateTime afterPublishedAt,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    // インメモリ検索索引の構築用（サーバーサイドカーソルで少しずつ読み込む。トランザクション内で使用すること）
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Content c WHERE c.status = :status ORDER BY c.universityId, c.id")
+    Stream<Content> streamByStatus(@Param("status") Content.Status status);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Content c WHERE c.universityId = :universityId AND c.status = :status ORDER BY c.id")
+    Stream<Content> streamByUniversityIdAndStatus(@Param("universityId") Long universityId,
+                                                  @Param("status") Content.Status status);
 
+    // スケジュール公開・非公開の対象を予定日時順に取得して行ロックする（他レプリカがロック中の行は飛ばす）
+    @Query(value = "SELECT id AS \"id\", university_id AS \"universityId\", slug AS \"slug\" FROM contents "
+            + "WHERE status = 'DRAFT' AND scheduled_publish_at <= :now "
+            + "AND (scheduled_unpublish_at IS NULL OR scheduled_unpublish_at > :now) "
+            + "ORDER BY scheduled_publish_at, id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<ScheduledContent> lockDuePublications(@Param("now") LocalDateTime now, @Param("limit") int limit);
 
+    // 予定日時より後に手動で公開し直したコンテンツは非公開にしない
+    @Query(value = "SELECT id AS \"id\", university_id AS \"universityId\", slug AS \"slug\" FROM contents "
+            + "WHERE status = 'PUBLISHED' AND scheduled_unpublish_at <= :now "
+            + "AND (published_at IS NULL OR published_at < scheduled_unpublish_at) "
+            + "ORDER BY scheduled_unpublish_at, id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<ScheduledContent> lockDueUnpublications(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // 公開日時は処理した時刻ではなく予定日時にする
+    @Modifying
+    @Query(value = "UPDATE contents SET status = 'PUBLISHED', published_at = scheduled_publish_at, updated_at = :now "
+            + "WHERE id IN (:ids) AND status = 'DRAFT'",
+            nativeQuery = true)
+    int publishScheduled(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "UPDATE contents SET status = 'ARCHIVED', updated_at = :now "
+            + "WHERE id IN (:ids) AND status = 'PUBLISHED'",
+            nativeQuery = true)
+    int unpublishScheduled(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // 圧縮保存した本文の検索語彙（search_vector の生成式が body の代わりに参照する）
+    @Modifying
+    @Query(value = "UPDATE contents SET body_search_vector = "
+            + "setweight(to_tsvector('simple', cms_search_bigrams(CAST(:body AS text))), 'C') WHERE id = :id",
+            nativeQuery = true)
+    int updateBodySearchVector(@Param("id") Long id, @Param("body") String body);
+
+    // 圧縮辞書の作成に使う本文サンプル
+    List<Content> findByUniversityIdOrderByUpdatedAtDesc(Long universityId, Pageable pageable);
+
+    @Query("SELECT c.id FROM Content c WHERE c.universityId = :universityId ORDER BY c.id")
+    List<Long> findIdsByUniversityId(@Param("universityId") Long universityId);
+
+    // 本文・カスタムフィールドの保存量（storedPlainBytes は TOAST 圧縮後の平文列の大きさ）
+    @Query(value = "SELECT COUNT(*) AS \"contentCount\", COUNT(body_compressed) AS \"compressedCount\", "
+            + "COALESCE(SUM(COALESCE(octet_length(body), 0) + COALESCE(octet_length(custom_fields), 0)), 0) "
+            + "AS \"plainBytes\", "
+            + "COALESCE(SUM(COALESCE(pg_column_size(body), 0) + COALESCE(pg_column_size(custom_fields), 0)), 0) "
+            + "AS \"storedPlainBytes\", "
+            + "COALESCE(SUM(COALESCE(octet_length(body_compressed), 0) "
+            + "+ COALESCE(octet_length(custom_fields_compressed), 0)), 0) AS \"compressedBytes\" "
+            + "FROM contents WHERE university_id = :universityId",
+            nativeQuery = true)
+    CompressionTotals getCompressionTotals(@Param("universityId") Long universityId);
+
+    interface CompressionTotals {
+        long getContentCount();
+        long getCompressedCount();
+        long getPlainBytes();
+        long getStoredPlainBytes();
+        long getCompressedBytes();
+    }
+
+    interface ScheduledContent {
+        Long getId();
+        Long getUniversityId();
+        String getSlug();
+    }
+}
@@ -1,18 +1,74 @@
 package com.cms.content.repository;
 
+import com.cms.content.dto.ContentVersionSummaryResponse;
 import com.cms.content.entity.ContentVersion;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ContentVersionRepository extends JpaRepository<ContentVersion, Long> {
     List<ContentVersion> findByContentIdOrderByVersionNumberDesc(Long contentId);
+    List<ContentVersion> findByContentIdOrderByVersionNumberAsc(Long contentId);
     Optional<ContentVersion> findByContentIdAndVersionNumber(Long contentId, Integer versionNumber);
+    Optional<ContentVersion> findTopByContentIdOrderByVersionNumberDesc(Long contentId);
     Integer countByContentId(Long contentId);
-}
 
+    // 履歴一覧用の射影（body・bodyDelta は読み込まない）。キーセットページネーション（バージョン番号降順）
+    @Query("SELECT new com.cms.content.dto.ContentVersionSummaryResponse("
+            + "v.id, v.contentId, v.versionNumber, v.title, v.slug, v.authorId, v.changeNote, v.bodySize, v.createdAt) "
+            + "FROM ContentVersion v WHERE v.contentId = :contentId AND v.versionNumber < :beforeVersion "
+            + "ORDER BY v.versionNumber DESC")
+    List<ContentVersionSummaryResponse> findSummaries(@Param("contentId") Long contentId,
+                                                      @Param("beforeVersion") Integer beforeVersion,
+                                                      Pageable pageable);
+
+    @Query("SELECT v.id FROM ContentVersion v WHERE v.contentId = :contentId AND v.versionNumber = :versionNumber")
+    Optional<Long> findIdByContentIdAndVersionNumber(@Param("contentId") Long contentId,
+                                                     @Param("versionNumber") Integer versionNumber);
+
+    // 指定バージョンの復元に必要な行（直前の FULL から指定バージョンまで）。圧縮処理と競合しないよう1文で取得する
+    @Query("SELECT v FROM ContentVersion v WHERE v.contentId = :contentId AND v.versionNumber <= :versionNumber "
+            + "AND v.versionNumber >= (SELECT MAX(s.versionNumber) FROM ContentVersion s "
+            + "WHERE s.contentId = :contentId AND s.versionNumber <= :versionNumber "
+            + "AND s.storageType = com.cms.content.entity.ContentVersion.StorageType.FULL) "
+            + "ORDER BY v.versionNumber")
+    List<ContentVersion> findReconstructionChain(@Param("contentId") Long contentId,
+                                                 @Param("versionNumber") Integer versionNumber);
+
+    // 差分化されていない FULL が多いコンテンツ（圧縮対象）
+    @Query("SELECT v.contentId FROM ContentVersion v GROUP BY v.contentId "
+            + "HAVING SUM(CASE WHEN v.storageType = com.cms.content.entity.ContentVersion.StorageType.FULL "
+            + "THEN 1 ELSE 0 END) > COUNT(v) / :snapshotInterval + 1 "
+            + "ORDER BY v.contentId")
+    List<Long> findContentIdsToCompact(@Param("snapshotInterval") long snapshotInterval);
 
+    List<ContentVersion> findByContentIdInAndStorageType(Collection<Long> contentIds,
+                                                         ContentVersion.StorageType storageType);
 
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:lockKey)", nativeQuery = true)
+    boolean tryAdvisoryLock(@Param("lockKey") long lockKey);
+
+    // 保存量の集計（bodySize が未設定の旧データは本文の長さを使う）
+    @Query(value = "SELECT COUNT(*) AS \"versionCount\", "
+            + "COUNT(*) FILTER (WHERE storage_type = 'FULL') AS \"fullCount\", "
+            + "COALESCE(SUM(COALESCE(octet_length(body), 0) + COALESCE(octet_length(body_compressed), 0) "
+            + "+ COALESCE(octet_length(body_delta), 0)), 0) AS \"storedBytes\", "
+            + "COALESCE(SUM(COALESCE(body_size, octet_length(body), 0)), 0) AS \"logicalBytes\" "
+            + "FROM content_versions",
+            nativeQuery = true)
+    StorageTotals getStorageTotals();
+
+    interface StorageTotals {
+        long getVersionCount();
+        long getFullCount();
+        long getStoredBytes();
+        long getLogicalBytes();
+    }
+}
@@ -0,0 +1,67 @@
+package com.cms.content.repository;
+
+import com.cms.content.entity.Payment;
+import com.cms.content.entity.PaymentDailyTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PaymentDailyTotalRepository extends JpaRepository<PaymentDailyTotal, Long> {
+    List<PaymentDailyTotal> findByUniversityIdAndBusinessDateBetweenOrderByBusinessDateAsc(
+            Long universityId, LocalDate from, LocalDate to);
+    List<PaymentDailyTotal> findByUniversityIdAndStatusInAndBusinessDateBetweenOrderByBusinessDateAsc(
+            Long universityId, Collection<Payment.PaymentStatus> statuses, LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query(value = "INSERT INTO payment_daily_totals "
+            + "(university_id, flow_id, payment_type, status, business_date, total_amount, payment_count, updated_at) "
+            + "VALUES (:universityId, :flowId, :paymentType, :status, :businessDate, :amountDelta, :countDelta, NOW()) "
+            + "ON CONFLICT (university_id, flow_id, payment_type, status, business_date) DO UPDATE "
+            + "SET total_amount = payment_daily_totals.total_amount + EXCLUDED.total_amount, "
+            + "payment_count = payment_daily_totals.payment_count + EXCLUDED.payment_count, "
+            + "updated_at = NOW()",
+            nativeQuery = true)
+    int addTotal(@Param("universityId") Long universityId,
+                 @Param("flowId") Long flowId,
+                 @Param("paymentType") String paymentType,
+                 @Param("status") String status,
+                 @Param("businessDate") LocalDate businessDate,
+                 @Param("amountDelta") BigDecimal amountDelta,
+                 @Param("countDelta") long countDelta);
+
+    // 複数レプリカで同時に再構築しないよう、トランザクション単位のアドバイザリロックを取得する
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:lockKey)", nativeQuery = true)
+    boolean tryAdvisoryLock(@Param("lockKey") long lockKey);
+
+    // 差分の反映は共有モード、再構築は排他モードで同じキーを取り、再構築中の差分が消えないようにする
+    @Query(value = "SELECT COUNT(*) FROM pg_advisory_xact_lock_shared(:lockKey)", nativeQuery = true)
+    long acquireSharedAdvisoryLock(@Param("lockKey") long lockKey);
+
+    @Query(value = "SELECT COUNT(*) FROM pg_advisory_xact_lock(:lockKey)", nativeQuery = true)
+    long acquireAdvisoryLock(@Param("lockKey") long lockKey);
+
+    @Modifying
+    @Query(value = "DELETE FROM payment_daily_totals", nativeQuery = true)
+    int deleteAllTotals();
+
+    @Modifying
+    @Query(value = "INSERT INTO payment_daily_totals "
+            + "(university_id, flow_id, payment_type, status, business_date, total_amount, payment_count, updated_at) "
+            + "SELECT university_id, flow_id, payment_type, status, CAST(COALESCE(paid_at, created_at) AS DATE), "
+            + "SUM(amount), COUNT(*), NOW() "
+            + "FROM payments "
+            + "GROUP BY university_id, flow_id, payment_type, status, CAST(COALESCE(paid_at, created_at) AS DATE) "
+            + "ON CONFLICT (university_id, flow_id, payment_type, status, business_date) DO UPDATE SET "
+            + "total_amount = EXCLUDED.total_amount, payment_count = EXCLUDED.payment_count, "
+            + "updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    int rebuildTotals();
+}
@@ -1,11 +1,19 @@
 package com.cms.content.repository;
 
 import com.cms.content.entity.PaymentReconciliation;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaymentReconciliationRepository extends JpaRepository<PaymentReconciliation, Long> {
@@ -14,7 +22,25 @@ public interface PaymentReconciliationRepository extends JpaRepository<PaymentRe
     List<PaymentReconciliation> findByUniversityId(Long universityId);
     List<PaymentReconciliation> findByUserIdAndUniversityId(Long userId, Long universityId);
     List<PaymentReconciliation> findByStatus(PaymentReconciliation.ReconciliationStatus status);
+    boolean existsByPaymentIdAndStatus(Long paymentId, PaymentReconciliation.ReconciliationStatus status);
+    boolean existsByPaymentIdAndStatusAndIdNot(
+            Long paymentId, PaymentReconciliation.ReconciliationStatus status, Long id);
     Optional<PaymentReconciliation> findByPaymentIdAndStatus(Long paymentId, PaymentReconciliation.ReconciliationStatus status);
+    // エクスポート用（サーバーサイドカーソルで少しずつ読み込む。トランザクション内で使用すること）
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r FROM PaymentReconciliation r WHERE r.universityId = :universityId AND r.status IN :statuses "
+            + "AND r.createdAt >= :from AND r.createdAt < :to ORDER BY r.id")
+    Stream<PaymentReconciliation> streamForExport(
+            @Param("universityId") Long universityId,
+            @Param("statuses") Collection<PaymentReconciliation.ReconciliationStatus> statuses,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    List<PaymentReconciliation> findByPaymentIdInAndStatus(
+            Collection<Long> paymentIds, PaymentReconciliation.ReconciliationStatus status);
 }
 
 
@@ -1,11 +1,22 @@
 package com.cms.content.repository;
 
 import com.cms.content.entity.Payment;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
@@ -14,7 +25,34 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     List<Payment> findByUserIdAndUniversityId(Long userId, Long universityId);
     List<Payment> findByFlowId(Long flowId);
     List<Payment> findByStatus(Payment.PaymentStatus status);
+    List<Payment> findByUniversityIdAndStatus(Long universityId, Payment.PaymentStatus status);
     Optional<Payment> findByIdAndUserId(Long id, Long userId);
+    Optional<Payment> findByTransactionId(String transactionId);
+
+    // コミット時にバージョンを必ず進める（同じ支払いへの並行した消込をどちらか一方だけ成功させる）
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    Optional<Payment> findVersionedById(Long id);
+
+    long countByUniversityId(Long universityId);
+    long countByUniversityIdAndStatus(Long universityId, Payment.PaymentStatus status);
+
+    // エクスポート用（サーバーサイドカーソルで少しずつ読み込む。トランザクション内で使用すること）
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Payment p WHERE p.universityId = :universityId AND p.status IN :statuses "
+            + "AND p.createdAt >= :from AND p.createdAt < :to ORDER BY p.id")
+    Stream<Payment> streamForExport(
+            @Param("universityId") Long universityId,
+            @Param("statuses") Collection<Payment.PaymentStatus> statuses,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    // キーセットページネーション（id降順）
+    List<Payment> findByUniversityIdAndIdLessThanOrderByIdDesc(Long universityId, Long afterId, Pageable pageable);
+    List<Payment> findByUniversityIdAndStatusAndIdLessThanOrderByIdDesc(
+            Long universityId, Payment.PaymentStatus status, Long afterId, Pageable pageable);
 }
 
 
@@ -4,6 +4,7 @@ import com.cms.content.entity.ProcedureFlow;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,6 +13,7 @@ public interface ProcedureFlowRepository extends JpaRepository<ProcedureFlow, Lo
     List<ProcedureFlow> findByUniversityIdAndActiveTrue(Long universityId);
     List<ProcedureFlow> findByUniversityIdAndFlowTypeAndActiveTrue(Long universityId, String flowType);
     Optional<ProcedureFlow> findByIdAndUniversityId(Long id, Long universityId);
+    List<ProcedureFlow> findByIdInAndUniversityId(Collection<Long> ids, Long universityId);
 }
 
 
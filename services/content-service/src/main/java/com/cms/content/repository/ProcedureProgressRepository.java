@@ -1,9 +1,12 @@
 package com.cms.content.repository;
 
 import com.cms.content.entity.ProcedureProgress;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,7 +15,12 @@ public interface ProcedureProgressRepository extends JpaRepository<ProcedureProg
     List<ProcedureProgress> findByUserIdAndFlowId(Long userId, Long flowId);
     List<ProcedureProgress> findByUserIdAndUniversityId(Long userId, Long universityId);
     Optional<ProcedureProgress> findByUserIdAndStepId(Long userId, Long stepId);
+    List<ProcedureProgress> findByUserIdAndStepIdIn(Long userId, Collection<Long> stepIds);
     List<ProcedureProgress> findByStepId(Long stepId);
+
+    // 一括更新時に既存ステータスを読み取り、コミットまで行ロックを保持する
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<ProcedureProgress> findForUpdateByUserIdInAndStepIdIn(Collection<Long> userIds, Collection<Long> stepIds);
     Long countByFlowIdAndStatus(Long flowId, ProcedureProgress.ProgressStatus status);
     Long countByUserIdAndFlowIdAndStatus(Long userId, Long flowId, ProcedureProgress.ProgressStatus status);
 }
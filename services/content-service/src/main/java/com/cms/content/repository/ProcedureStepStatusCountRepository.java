@@ -0,0 +1,56 @@
+package com.cms.content.repository;
+
+import com.cms.content.entity.ProcedureStepStatusCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProcedureStepStatusCountRepository extends JpaRepository<ProcedureStepStatusCount, Long> {
+    List<ProcedureStepStatusCount> findByUniversityId(Long universityId);
+    List<ProcedureStepStatusCount> findByFlowId(Long flowId);
+
+    @Modifying
+    @Query(value = "INSERT INTO procedure_step_status_counts "
+            + "(university_id, flow_id, step_id, status, progress_count, updated_at) "
+            + "VALUES (:universityId, :flowId, :stepId, :status, :delta, NOW()) "
+            + "ON CONFLICT (step_id, status) DO UPDATE "
+            + "SET progress_count = procedure_step_status_counts.progress_count + EXCLUDED.progress_count, "
+            + "updated_at = NOW()",
+            nativeQuery = true)
+    int addCount(@Param("universityId") Long universityId,
+                 @Param("flowId") Long flowId,
+                 @Param("stepId") Long stepId,
+                 @Param("status") String status,
+                 @Param("delta") long delta);
+
+    // 複数レプリカで同時に再構築しないよう、トランザクション単位のアドバイザリロックを取得する
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:lockKey)", nativeQuery = true)
+    boolean tryAdvisoryLock(@Param("lockKey") long lockKey);
+
+    // 差分の反映は共有モード、再構築は排他モードで同じキーを取り、再構築中の差分が消えないようにする
+    @Query(value = "SELECT COUNT(*) FROM pg_advisory_xact_lock_shared(:lockKey)", nativeQuery = true)
+    long acquireSharedAdvisoryLock(@Param("lockKey") long lockKey);
+
+    @Query(value = "SELECT COUNT(*) FROM pg_advisory_xact_lock(:lockKey)", nativeQuery = true)
+    long acquireAdvisoryLock(@Param("lockKey") long lockKey);
+
+    @Modifying
+    @Query(value = "DELETE FROM procedure_step_status_counts", nativeQuery = true)
+    int deleteAllCounts();
+
+    @Modifying
+    @Query(value = "INSERT INTO procedure_step_status_counts "
+            + "(university_id, flow_id, step_id, status, progress_count, updated_at) "
+            + "SELECT MIN(university_id), MIN(flow_id), step_id, status, COUNT(*), NOW() "
+            + "FROM procedure_progress GROUP BY step_id, status "
+            + "ON CONFLICT (step_id, status) DO UPDATE SET "
+            + "university_id = EXCLUDED.university_id, flow_id = EXCLUDED.flow_id, "
+            + "progress_count = EXCLUDED.progress_count, updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    int rebuildCounts();
+}
@@ -0,0 +1,106 @@
+package com.cms.content.search;
+
+import com.cms.content.compression.ContentBodyCodec;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * コンテンツ全文検索用の生成列（search_vector）と GIN インデックスを用意する。
+ * 日本語は分かち書きせず、空白と記号を除いた文字列の 2-gram を語彙として扱う（pg_bigm 等の拡張は不要）。
+ * 生成列は JPA のエンティティには含めない（ddl-auto: update では作れないためここで作成する）。
+ * 圧縮保存した本文（body が NULL）は SQL から読めないため、アプリが書き込み時に
+ * body_search_vector を更新し、生成列はそれを本文の語彙として使う。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ContentSearchSchema {
+    private static final long SCHEMA_LOCK_KEY = 0x636d735f73726368L; // "cms_srch"
+
+    // 関数の中身を変えた場合は既存行の search_vector を再計算する必要がある
+    private static final String CREATE_BIGRAM_FUNCTION = """
+            CREATE OR REPLACE FUNCTION cms_search_bigrams(input text) RETURNS text
+            LANGUAGE sql IMMUTABLE PARALLEL SAFE AS $$
+              SELECT CASE WHEN char_length(t) < 2 THEN t
+                          ELSE (SELECT string_agg(substr(t, i, 2), ' ' ORDER BY i)
+                                FROM generate_series(1, char_length(t) - 1) AS i) END
+              FROM (SELECT regexp_replace(lower(coalesce(input, '')), '[[:space:][:punct:]]+', '', 'g') AS t) s
+            $$""";
+
+    /**
+     * 本文の語彙（圧縮保存した本文の body_search_vector と同じ重み）。パラメータは平文の本文。
+     */
+    public static final String BODY_SEARCH_VECTOR_EXPRESSION =
+            "setweight(to_tsvector('simple'::regconfig, cms_search_bigrams(CAST(? AS text))), 'C')";
+
+    private static final String ADD_BODY_SEARCH_VECTOR_COLUMN =
+            "ALTER TABLE contents ADD COLUMN IF NOT EXISTS body_search_vector tsvector";
+
+    // body_search_vector を参照しない古い定義の生成列は作り直す
+    private static final String SELECT_SEARCH_VECTOR_EXPRESSION = "SELECT generation_expression "
+            + "FROM information_schema.columns "
+            + "WHERE table_schema = current_schema() AND table_name = 'contents' AND column_name = 'search_vector'";
+
+    // タイトル > メタ情報 > 本文 の順に重み付けする
+    private static final String ADD_SEARCH_VECTOR_COLUMN = """
+            ALTER TABLE contents ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+              setweight(to_tsvector('simple'::regconfig, cms_search_bigrams(title)), 'A')
+              || setweight(to_tsvector('simple'::regconfig, cms_search_bigrams(meta_keywords)), 'B')
+              || setweight(to_tsvector('simple'::regconfig, cms_search_bigrams(meta_description)), 'B')
+              || CASE WHEN body IS NULL THEN coalesce(body_search_vector, ''::tsvector)
+                      ELSE setweight(to_tsvector('simple'::regconfig, cms_search_bigrams(body)), 'C') END
+            ) STORED""";
+
+    private static final String CREATE_SEARCH_INDEX =
+            "CREATE INDEX IF NOT EXISTS idx_contents_search_vector ON contents USING GIN (search_vector)";
+
+    private static final int BACKFILL_BATCH_SIZE = 200;
+    private static final String SELECT_UNINDEXED_COMPRESSED_SQL = "SELECT id, body_compressed FROM contents "
+            + "WHERE body IS NULL AND body_compressed IS NOT NULL AND body_search_vector IS NULL "
+            + "ORDER BY id LIMIT " + BACKFILL_BATCH_SIZE;
+    private static final String UPDATE_BODY_SEARCH_VECTOR_SQL =
+            "UPDATE contents SET body_search_vector = " + BODY_SEARCH_VECTOR_EXPRESSION + " WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ContentBodyCodec bodyCodec;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void ensureSchema() {
+        // 複数レプリカが同時に起動しても DDL が競合しないようにする
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + SCHEMA_LOCK_KEY + ")");
+        jdbcTemplate.execute(CREATE_BIGRAM_FUNCTION);
+        jdbcTemplate.execute(ADD_BODY_SEARCH_VECTOR_COLUMN);
+        List<String> expressions = jdbcTemplate.queryForList(SELECT_SEARCH_VECTOR_EXPRESSION, String.class);
+        if (!expressions.isEmpty() && !expressions.get(0).contains("body_search_vector")) {
+            log.info("Recreating contents.search_vector to include compressed bodies");
+            jdbcTemplate.execute("ALTER TABLE contents DROP COLUMN search_vector");
+        }
+        int backfilled = backfillCompressedBodies();
+        jdbcTemplate.execute(ADD_SEARCH_VECTOR_COLUMN);
+        jdbcTemplate.execute(CREATE_SEARCH_INDEX);
+        log.info("Content search schema is ready ({} compressed bodies indexed)", backfilled);
+    }
+
+    // body_search_vector の導入前に圧縮保存された行を展開して索引付けする
+    private int backfillCompressedBodies() {
+        int total = 0;
+        while (true) {
+            List<Object[]> args = jdbcTemplate.query(SELECT_UNINDEXED_COMPRESSED_SQL, (rs, rowNum) ->
+                    new Object[]{bodyCodec.decompress(rs.getBytes("body_compressed")), rs.getLong("id")});
+            if (args.isEmpty()) {
+                return total;
+            }
+            jdbcTemplate.batchUpdate(UPDATE_BODY_SEARCH_VECTOR_SQL, args, new int[]{Types.VARCHAR, Types.BIGINT});
+            total += args.size();
+        }
+    }
+}
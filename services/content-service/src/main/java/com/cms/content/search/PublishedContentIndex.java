@@ -0,0 +1,53 @@
+package com.cms.content.search;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 大学ごとの {@link UniversityContentIndex} を保持する。DB からの構築・更新は ContentIndexService が行う。
+ */
+@Component
+public class PublishedContentIndex {
+    private final Map<Long, UniversityContentIndex> universities = new ConcurrentHashMap<>();
+
+    public PublishedContentIndex(MeterRegistry meterRegistry) {
+        Gauge.builder("cms.search.index.memory", this, PublishedContentIndex::estimatedBytes)
+                .baseUnit("bytes")
+                .description("Estimated heap used by the in-memory content search index")
+                .register(meterRegistry);
+        Gauge.builder("cms.search.index.documents", this, PublishedContentIndex::size)
+                .register(meterRegistry);
+    }
+
+    public UniversityContentIndex forUniversity(Long universityId) {
+        return universities.computeIfAbsent(universityId, id -> new UniversityContentIndex());
+    }
+
+    public List<UniversityContentIndex.Hit> search(Long universityId, List<String> normalizedTerms, int limit,
+                                                   boolean titleOnly) {
+        UniversityContentIndex index = universities.get(universityId);
+        return index != null ? index.search(normalizedTerms, limit, titleOnly) : List.of();
+    }
+
+    public void replaceUniversity(Long universityId, UniversityContentIndex index) {
+        universities.put(universityId, index);
+    }
+
+    public void replaceAll(Map<Long, UniversityContentIndex> indexes) {
+        universities.putAll(indexes);
+        universities.keySet().retainAll(indexes.keySet());
+    }
+
+    public long estimatedBytes() {
+        return universities.values().stream().mapToLong(UniversityContentIndex::estimatedBytes).sum();
+    }
+
+    public int size() {
+        return universities.values().stream().mapToInt(UniversityContentIndex::size).sum();
+    }
+}
@@ -0,0 +1,65 @@
+package com.cms.content.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 検索キーワードを空白（全角空白を含む）で分割した語の集合。すべての語を含む文書が一致する。
+ * 1文字の語は 2-gram が作れないため、その文字で始まる 2-gram への前方一致として扱う。
+ */
+public final class SearchQuery {
+    public static final int MAX_TERMS = 10;
+    public static final int MAX_TERM_LENGTH = 100;
+
+    private static final Pattern WHITESPACE = Pattern.compile("[\\s\\u3000]+");
+    // DB 側の cms_search_bigrams と同じく ASCII の記号を取り除く
+    private static final Pattern ASCII_PUNCT = Pattern.compile("\\p{Punct}+");
+
+    private final List<String> terms;
+
+    private SearchQuery(List<String> terms) {
+        this.terms = terms;
+    }
+
+    public static SearchQuery parse(String query) {
+        List<String> terms = new ArrayList<>();
+        if (query != null) {
+            for (String raw : WHITESPACE.split(query.strip())) {
+                String term = ASCII_PUNCT.matcher(raw).replaceAll("");
+                if (term.isEmpty() || terms.contains(term)) {
+                    continue;
+                }
+                if (terms.size() == MAX_TERMS) {
+                    throw new RuntimeException("Too many search terms (max " + MAX_TERMS + ")");
+                }
+                if (term.codePointCount(0, term.length()) > MAX_TERM_LENGTH) {
+                    throw new RuntimeException("Search term is too long (max " + MAX_TERM_LENGTH + " characters)");
+                }
+                terms.add(term);
+            }
+        }
+        return new SearchQuery(terms);
+    }
+
+    public boolean isEmpty() {
+        return terms.isEmpty();
+    }
+
+    public List<String> terms() {
+        return terms;
+    }
+
+    // 2文字以上の語（2-gram に分解して照合する）
+    public List<String> multiCharTerms() {
+        return terms.stream().filter(term -> term.codePointCount(0, term.length()) > 1).toList();
+    }
+
+    // 1文字の語（英数字・かな・漢字のみ。tsquery の前方一致として渡すため記号は除く）
+    public List<String> singleCharTerms() {
+        return terms.stream()
+                .filter(term -> term.codePointCount(0, term.length()) == 1)
+                .filter(term -> Character.isLetterOrDigit(term.codePointAt(0)))
+                .toList();
+    }
+}
@@ -0,0 +1,35 @@
+package com.cms.content.search;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * インメモリ索引の照合用に文字列を正規化する（NFKC・小文字化・文字と数字以外を除去）。
+ * 全角英数と半角カナの表記ゆれを吸収し、索引側と検索語側で同じ結果になるようにする。
+ */
+public final class SearchTextNormalizer {
+    private SearchTextNormalizer() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder out = new StringBuilder(folded.length());
+        folded.codePoints()
+                .filter(Character::isLetterOrDigit)
+                .forEach(out::appendCodePoint);
+        return out.toString();
+    }
+
+    // 2文字（UTF-16 単位）を1つの int に詰めた 2-gram キー
+    static int bigramKey(char first, char second) {
+        return (first << 16) | second;
+    }
+
+    // 1文字キー（正規化後の文字列に '\0' は現れないので 2-gram キーと衝突しない）
+    static int unigramKey(char c) {
+        return c << 16;
+    }
+}
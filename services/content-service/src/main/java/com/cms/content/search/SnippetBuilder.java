@@ -0,0 +1,107 @@
+package com.cms.content.search;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 検索結果に表示する抜粋を作る。一致箇所は HTML エスケープしたうえで &lt;mark&gt; で囲む。
+ */
+public final class SnippetBuilder {
+    private static final Pattern MARKDOWN_SYNTAX = Pattern.compile("(?m)^\\s*(#{1,6}|[-*+>]|\\d+\\.)\\s+|[*_`~]+|!?\\[([^\\]]*)]\\([^)]*\\)");
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]+>");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final String ELLIPSIS = "…";
+
+    private SnippetBuilder() {
+    }
+
+    // Markdown の記法・HTML タグ・改行を取り除いた本文
+    public static String plainText(String text) {
+        if (text == null) {
+            return "";
+        }
+        String plain = MARKDOWN_SYNTAX.matcher(text).replaceAll("$2");
+        plain = HTML_TAG.matcher(plain).replaceAll(" ");
+        return WHITESPACE.matcher(plain).replaceAll(" ").strip();
+    }
+
+    // 最初の一致箇所を中心に width 文字程度を切り出す。一致がなければ先頭から切り出す
+    public static String snippet(String plainText, List<String> terms, int width) {
+        if (plainText.isEmpty()) {
+            return "";
+        }
+        int match = firstMatch(plainText, terms);
+        int start = match < 0 ? 0 : Math.max(0, match - width / 3);
+        int end = Math.min(plainText.length(), start + width);
+        start = Math.max(0, Math.min(start, end - width));
+        // サロゲートペアの途中で切らない
+        if (start > 0 && Character.isLowSurrogate(plainText.charAt(start))) {
+            start--;
+        }
+        if (end < plainText.length() && Character.isLowSurrogate(plainText.charAt(end))) {
+            end++;
+        }
+        return (start > 0 ? ELLIPSIS : "")
+                + highlight(plainText.substring(start, end), terms)
+                + (end < plainText.length() ? ELLIPSIS : "");
+    }
+
+    public static String highlight(String text, List<String> terms) {
+        if (text == null) {
+            return null;
+        }
+        StringBuilder out = new StringBuilder(text.length() + 32);
+        int i = 0;
+        while (i < text.length()) {
+            int length = matchLength(text, i, terms);
+            if (length > 0) {
+                out.append("<mark>");
+                escape(text, i, i + length, out);
+                out.append("</mark>");
+                i += length;
+            } else {
+                escape(text, i, i + 1, out);
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    private static int firstMatch(String text, List<String> terms) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        int first = -1;
+        for (String term : terms) {
+            int found = lower.indexOf(term.toLowerCase(Locale.ROOT));
+            if (found >= 0 && (first < 0 || found < first)) {
+                first = found;
+            }
+        }
+        return first;
+    }
+
+    // 位置 i から始まる最長の一致語の長さ（大文字小文字は区別しない）
+    private static int matchLength(String text, int i, List<String> terms) {
+        int longest = 0;
+        for (String term : terms) {
+            if (term.length() > longest && text.regionMatches(true, i, term, 0, term.length())) {
+                longest = term.length();
+            }
+        }
+        return longest;
+    }
+
+    private static void escape(String text, int from, int to, StringBuilder out) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.cms.content.search;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 1大学分の公開コンテンツの転置索引。2-gram（タイトルは1文字も）ごとに文書スロットの昇順 int 配列を持つ。
+ * スロットは追加順に採番するため、ポスティングへの追加は常に末尾への追記で済む。
+ * 削除はスロットを空けるだけにし、空きが増えたらまとめて詰め直す。
+ */
+public final class UniversityContentIndex {
+    private static final int COMPACT_MIN_TOMBSTONES = 64;
+    // メモリ見積もり用のおおよそのオブジェクトサイズ
+    private static final int POSTINGS_OVERHEAD_BYTES = 80;
+    private static final int DOCUMENT_OVERHEAD_BYTES = 120;
+
+    public record IndexedDocument(Long id, String slug, String title, String normalizedTitle,
+                                  LocalDateTime publishedAt) {
+    }
+
+    public record Hit(IndexedDocument document, boolean titleMatch) {
+    }
+
+    private static final Comparator<Hit> RANKING = Comparator
+            .comparing((Hit hit) -> !hit.titleMatch())
+            .thenComparing(hit -> hit.document().publishedAt(), Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(hit -> hit.document().id(), Comparator.reverseOrder());
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private IndexedDocument[] documents = new IndexedDocument[16];
+    private int slotCount;
+    private int tombstones;
+    private final Map<String, Integer> slotBySlug = new HashMap<>();
+    private final Map<Integer, Postings> postings = new HashMap<>();
+    private volatile long estimatedBytes;
+
+    /**
+     * 文書を追加する（同じスラッグの文書があれば置き換える）。fields は 2-gram 化する本文等で、フィールドをまたぐ 2-gram は作らない。
+     */
+    public void put(IndexedDocument document, List<String> fields) {
+        lock.writeLock().lock();
+        try {
+            removeSlot(document.slug());
+            int slot = slotCount++;
+            if (slot == documents.length) {
+                documents = Arrays.copyOf(documents, documents.length * 2);
+            }
+            documents[slot] = document;
+            slotBySlug.put(document.slug(), slot);
+
+            long bytes = DOCUMENT_OVERHEAD_BYTES
+                    + 2L * (document.slug().length() + document.title().length() + document.normalizedTitle().length());
+            String title = document.normalizedTitle();
+            for (int i = 0; i < title.length(); i++) {
+                bytes += add(SearchTextNormalizer.unigramKey(title.charAt(i)), slot);
+            }
+            bytes += addBigrams(title, slot);
+            for (String field : fields) {
+                bytes += addBigrams(SearchTextNormalizer.normalize(field), slot);
+            }
+            estimatedBytes += bytes;
+            // 更新による置き換えでも古いスロットが空くため、削除と同じ条件で詰め直す
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String slug) {
+        lock.writeLock().lock();
+        try {
+            removeSlot(slug);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * すべての語を含む文書を返す。1文字の語はタイトルだけを対象にする。
+     * 2-gram の AND は候補の絞り込みなので、語そのものを含まない文書が混ざることがある（タイトル一致は正確に判定する）。
+     */
+    public List<Hit> search(List<String> normalizedTerms, int limit, boolean titleOnly) {
+        lock.readLock().lock();
+        try {
+            int[] candidates = candidates(normalizedTerms);
+            List<Hit> hits = new ArrayList<>();
+            for (int slot : candidates) {
+                IndexedDocument document = documents[slot];
+                if (document == null) {
+                    continue;
+                }
+                boolean titleMatch = normalizedTerms.stream().allMatch(document.normalizedTitle()::contains);
+                if (titleMatch || !titleOnly) {
+                    hits.add(new Hit(document, titleMatch));
+                }
+            }
+            hits.sort(RANKING);
+            return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotBySlug.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    private void compactIfSparse() {
+        if (tombstones >= COMPACT_MIN_TOMBSTONES && tombstones * 4 >= slotCount) {
+            compact();
+        }
+    }
+
+    private int[] candidates(List<String> terms) {
+        List<Postings> lists = new ArrayList<>();
+        for (String term : terms) {
+            if (term.length() == 1) {
+                lists.add(postings.get(SearchTextNormalizer.unigramKey(term.charAt(0))));
+            }
+            for (int i = 0; i + 1 < term.length(); i++) {
+                lists.add(postings.get(SearchTextNormalizer.bigramKey(term.charAt(i), term.charAt(i + 1))));
+            }
+        }
+        if (lists.isEmpty() || lists.contains(null)) {
+            return new int[0];
+        }
+        // 短いリストから積集合を取る
+        lists.sort(Comparator.comparingInt(p -> p.size));
+        int[] result = Arrays.copyOf(lists.get(0).slots, lists.get(0).size);
+        int size = result.length;
+        for (int i = 1; i < lists.size() && size > 0; i++) {
+            size = intersect(result, size, lists.get(i));
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    // result[0..size) と postings の積集合を result の先頭に詰めて、その件数を返す
+    private static int intersect(int[] result, int size, Postings other) {
+        int out = 0;
+        int j = 0;
+        for (int i = 0; i < size && j < other.size; i++) {
+            int slot = result[i];
+            while (j < other.size && other.slots[j] < slot) {
+                j++;
+            }
+            if (j < other.size && other.slots[j] == slot) {
+                result[out++] = slot;
+            }
+        }
+        return out;
+    }
+
+    private long addBigrams(String text, int slot) {
+        long bytes = 0;
+        for (int i = 0; i + 1 < text.length(); i++) {
+            bytes += add(SearchTextNormalizer.bigramKey(text.charAt(i), text.charAt(i + 1)), slot);
+        }
+        return bytes;
+    }
+
+    // 追加で確保したおおよそのバイト数を返す
+    private long add(int key, int slot) {
+        Postings list = postings.get(key);
+        if (list == null) {
+            list = new Postings();
+            postings.put(key, list);
+            return POSTINGS_OVERHEAD_BYTES + list.append(slot);
+        }
+        return list.append(slot);
+    }
+
+    private void removeSlot(String slug) {
+        Integer slot = slotBySlug.remove(slug);
+        if (slot != null) {
+            documents[slot] = null;
+            tombstones++;
+        }
+    }
+
+    // 削除済みスロットをポスティングから取り除き、スロット番号を詰め直す
+    private void compact() {
+        int[] remap = new int[slotCount];
+        IndexedDocument[] compacted = new IndexedDocument[Math.max(16, slotCount - tombstones)];
+        int next = 0;
+        long bytes = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            IndexedDocument document = documents[slot];
+            if (document == null) {
+                remap[slot] = -1;
+                continue;
+            }
+            remap[slot] = next;
+            compacted[next++] = document;
+            slotBySlug.put(document.slug(), remap[slot]);
+            bytes += DOCUMENT_OVERHEAD_BYTES
+                    + 2L * (document.slug().length() + document.title().length() + document.normalizedTitle().length());
+        }
+        var entries = postings.values().iterator();
+        while (entries.hasNext()) {
+            Postings list = entries.next();
+            list.remap(remap);
+            if (list.size == 0) {
+                entries.remove();
+            } else {
+                bytes += POSTINGS_OVERHEAD_BYTES + 4L * list.slots.length;
+            }
+        }
+        documents = compacted;
+        slotCount = next;
+        tombstones = 0;
+        estimatedBytes = bytes;
+    }
+
+    private static final class Postings {
+        private int[] slots = new int[2];
+        private int size;
+
+        long append(int slot) {
+            // 同じ文書内で同じ 2-gram が繰り返し現れた場合
+            if (size > 0 && slots[size - 1] == slot) {
+                return 0;
+            }
+            long grown = 0;
+            if (size == slots.length) {
+                int capacity = size + (size >> 1) + 1;
+                grown = 4L * (capacity - slots.length);
+                slots = Arrays.copyOf(slots, capacity);
+            }
+            slots[size++] = slot;
+            return grown + (size == 1 ? 4L * slots.length : 0);
+        }
+
+        void remap(int[] remap) {
+            int out = 0;
+            for (int i = 0; i < size; i++) {
+                int mapped = remap[slots[i]];
+                if (mapped >= 0) {
+                    slots[out++] = mapped;
+                }
+            }
+            size = out;
+            if (slots.length > Math.max(2, size * 2)) {
+                slots = Arrays.copyOf(slots, Math.max(2, size));
+            }
+        }
+    }
+}
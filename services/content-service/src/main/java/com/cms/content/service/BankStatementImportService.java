@@ -0,0 +1,215 @@
+package com.cms.content.service;
+
+import com.cms.content.dto.BankStatementImportResponse;
+import com.cms.content.entity.Payment;
+import com.cms.content.entity.PaymentReconciliation;
+import com.cms.content.payment.BankStatementFormat;
+import com.cms.content.payment.BankStatementLine;
+import com.cms.content.payment.BankStatementParser;
+import com.cms.content.payment.PaymentStatusChangedEvent;
+import com.cms.content.payment.PaymentStatusPublisher;
+import com.cms.content.payment.PendingPaymentIndex;
+import com.cms.content.repository.PaymentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 銀行の入金明細ファイル（全銀協/CSV）を読み込み、未払いの支払いと照合して一括消込する。
+ * 明細はストリームで読み、照合済みの行は一定件数ごとに別トランザクションで書き込む。
+ */
+@Slf4j
+@Service
+public class BankStatementImportService {
+    private static final int MAX_CANDIDATES = 10;
+    private static final String RECONCILIATION_METHOD = "自動";
+
+    private static final String COMPLETE_PAYMENT_SQL = "UPDATE payments "
+            + "SET status = 'COMPLETED', paid_at = COALESCE(paid_at, ?), updated_at = ?, version = version + 1 "
+            + "WHERE id = ? AND status = 'PENDING'";
+    private static final String INSERT_RECONCILIATION_SQL = "INSERT INTO payment_reconciliations "
+            + "(payment_id, user_id, university_id, reconciled_amount, status, reconciliation_method, "
+            + "reconciled_at, reconciled_by, notes, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentRollupService rollupService;
+    private final PaymentStatusPublisher statusPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public BankStatementImportService(
+            PaymentRepository paymentRepository,
+            PaymentRollupService rollupService,
+            PaymentStatusPublisher statusPublisher,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${cms.payment.bank-import.batch-size:500}") int batchSize) {
+        this.paymentRepository = paymentRepository;
+        this.rollupService = rollupService;
+        this.statusPublisher = statusPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    public BankStatementImportResponse importStatement(Long universityId, InputStream in, BankStatementFormat format,
+                                                       Long reconciledBy, boolean dryRun) {
+        PendingPaymentIndex index = new PendingPaymentIndex(
+                paymentRepository.findByUniversityIdAndStatus(universityId, Payment.PaymentStatus.PENDING));
+        List<BankStatementImportResponse.LineResult> results = new ArrayList<>();
+        List<MatchedLine> batch = new ArrayList<>(batchSize);
+
+        BankStatementParser.parse(in, format, line -> {
+            BankStatementImportResponse.LineResult result = BankStatementImportResponse.LineResult.builder()
+                    .lineNumber(line.getLineNumber())
+                    .transactionId(line.getTransactionId())
+                    .amount(line.getAmount())
+                    .userId(line.getUserId())
+                    .payerName(line.getPayerName())
+                    .build();
+            results.add(result);
+
+            if (line.getError() != null) {
+                result.setOutcome(BankStatementImportResponse.Outcome.INVALID);
+                result.setMessage(line.getError());
+                return;
+            }
+
+            PendingPaymentIndex.Match match = index.match(line);
+            if (match.isMatched()) {
+                index.consume(match.payment());
+                result.setOutcome(BankStatementImportResponse.Outcome.MATCHED);
+                result.setPaymentId(match.payment().getId());
+                result.setMessage("Matched by " + match.reason());
+                if (!dryRun) {
+                    batch.add(new MatchedLine(line, match.payment(), result));
+                    if (batch.size() >= batchSize) {
+                        flush(universityId, reconciledBy, batch);
+                        batch.clear();
+                    }
+                }
+            } else if (match.isAmbiguous()) {
+                result.setOutcome(BankStatementImportResponse.Outcome.AMBIGUOUS);
+                result.setCandidatePaymentIds(match.candidates().stream()
+                        .limit(MAX_CANDIDATES)
+                        .map(Payment::getId)
+                        .toList());
+                result.setMessage(match.reason());
+            } else {
+                result.setOutcome(BankStatementImportResponse.Outcome.UNMATCHED);
+            }
+        });
+        if (!batch.isEmpty()) {
+            flush(universityId, reconciledBy, batch);
+        }
+
+        return summarize(universityId, dryRun, results);
+    }
+
+    private void flush(Long universityId, Long reconciledBy, List<MatchedLine> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> writeBatch(universityId, reconciledBy, batch));
+        } catch (RuntimeException e) {
+            log.warn("Bank statement batch of {} lines failed for university {}", batch.size(), universityId, e);
+            for (MatchedLine matched : batch) {
+                matched.result().setOutcome(BankStatementImportResponse.Outcome.FAILED);
+                matched.result().setMessage("Batch failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void writeBatch(Long universityId, Long reconciledBy, List<MatchedLine> batch) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        // 並行して状態が変わった支払いは更新件数0になるため、消込を作成しない
+        List<Object[]> updateArgs = new ArrayList<>(batch.size());
+        for (MatchedLine matched : batch) {
+            Timestamp paidAt = matched.line().getTransferDate() != null
+                    ? Timestamp.valueOf(matched.line().getTransferDate().atStartOfDay())
+                    : now;
+            updateArgs.add(new Object[]{paidAt, now, matched.payment().getId()});
+        }
+        int[] updated = jdbcTemplate.batchUpdate(COMPLETE_PAYMENT_SQL, updateArgs);
+
+        List<Object[]> insertArgs = new ArrayList<>(batch.size());
+        List<PaymentRollupService.PaymentChange> changes = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            MatchedLine matched = batch.get(i);
+            if (updated[i] == 0) {
+                matched.result().setOutcome(BankStatementImportResponse.Outcome.FAILED);
+                matched.result().setMessage("Payment is no longer pending");
+                continue;
+            }
+            BankStatementLine line = matched.line();
+            Payment payment = matched.payment();
+            LocalDateTime paidAt = ((Timestamp) updateArgs.get(i)[0]).toLocalDateTime();
+            PaymentRollupService.PaymentState before = PaymentRollupService.PaymentState.of(payment);
+            changes.add(new PaymentRollupService.PaymentChange(before, new PaymentRollupService.PaymentState(
+                    payment.getUniversityId(), payment.getFlowId(), payment.getPaymentType(),
+                    Payment.PaymentStatus.COMPLETED, payment.getAmount(), paidAt.toLocalDate())));
+
+            PaymentStatusChangedEvent event = PaymentStatusChangedEvent.of(payment, payment.getStatus());
+            event.setStatus(Payment.PaymentStatus.COMPLETED);
+            event.setPaidAt(paidAt);
+            statusPublisher.publish(event);
+            insertArgs.add(new Object[]{
+                    matched.payment().getId(), matched.payment().getUserId(), universityId, line.getAmount(),
+                    PaymentReconciliation.ReconciliationStatus.COMPLETED.name(), RECONCILIATION_METHOD, now,
+                    reconciledBy,
+                    "銀行明細取込 行" + line.getLineNumber()
+                            + (line.getTransactionId() != null ? " 照会番号" + line.getTransactionId() : ""),
+                    now, now});
+        }
+        if (!insertArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_RECONCILIATION_SQL, insertArgs, new int[]{
+                    Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.NUMERIC, Types.VARCHAR, Types.VARCHAR,
+                    Types.TIMESTAMP, Types.BIGINT, Types.VARCHAR, Types.TIMESTAMP, Types.TIMESTAMP});
+            rollupService.recordChanges(changes);
+        }
+    }
+
+    private BankStatementImportResponse summarize(Long universityId, boolean dryRun,
+                                                  List<BankStatementImportResponse.LineResult> results) {
+        int matched = 0, ambiguous = 0, unmatched = 0, invalid = 0, failed = 0;
+        BigDecimal matchedAmount = BigDecimal.ZERO;
+        for (BankStatementImportResponse.LineResult result : results) {
+            switch (result.getOutcome()) {
+                case MATCHED -> {
+                    matched++;
+                    matchedAmount = matchedAmount.add(result.getAmount());
+                }
+                case AMBIGUOUS -> ambiguous++;
+                case UNMATCHED -> unmatched++;
+                case INVALID -> invalid++;
+                case FAILED -> failed++;
+            }
+        }
+        return BankStatementImportResponse.builder()
+                .universityId(universityId)
+                .dryRun(dryRun)
+                .totalLines(results.size())
+                .matched(matched)
+                .ambiguous(ambiguous)
+                .unmatched(unmatched)
+                .invalid(invalid)
+                .failed(failed)
+                .matchedAmount(matchedAmount)
+                .lines(results)
+                .build();
+    }
+
+    private record MatchedLine(BankStatementLine line, Payment payment, BankStatementImportResponse.LineResult result) {
+    }
+}
@@ -0,0 +1,311 @@
+package com.cms.content.service;
+
+import com.cms.content.compression.ContentBodyCodec;
+import com.cms.content.compression.DictionaryTrainer;
+import com.cms.content.dto.ContentCompressionBenchmarkResponse;
+import com.cms.content.dto.ContentCompressionStatsResponse;
+import com.cms.content.entity.Content;
+import com.cms.content.entity.ContentBodyDictionary;
+import com.cms.content.entity.ContentVersion;
+import com.cms.content.repository.ContentBodyDictionaryRepository;
+import com.cms.content.repository.ContentRepository;
+import com.cms.content.repository.ContentVersionRepository;
+import com.cms.content.search.ContentSearchSchema;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 本文の圧縮保存モードの管理（辞書の作成、既存行の再圧縮、保存量の集計、読み込み速度の比較）。
+ * 圧縮保存を有効にする大学は cms.content.compression.universities で指定する。
+ */
+@Slf4j
+@Service
+public class ContentCompressionService {
+    private static final int MAX_SAMPLE_SIZE = 1000;
+    private static final int MAX_BENCHMARK_SAMPLES = 500;
+    private static final int MAX_BENCHMARK_ITERATIONS = 20;
+    private static final int RECOMPRESS_BATCH_SIZE = 100;
+
+    // 再圧縮中に編集されたコンテンツは上書きしない
+    // 圧縮した本文は body_search_vector で検索できるようにする（平文に戻す場合は空になり参照されない）
+    private static final String UPDATE_CONTENT_SQL = "UPDATE contents "
+            + "SET body = ?, body_compressed = ?, custom_fields = ?, custom_fields_compressed = ?, "
+            + "body_search_vector = " + ContentSearchSchema.BODY_SEARCH_VECTOR_EXPRESSION + " "
+            + "WHERE id = ? AND updated_at = ?";
+    private static final String UPDATE_VERSION_SQL = "UPDATE content_versions SET body = ?, body_compressed = ? "
+            + "WHERE id = ? AND storage_type = 'FULL'";
+
+    private static final String CREATE_BENCHMARK_TABLE_SQL = "CREATE TEMP TABLE cms_compression_benchmark "
+            + "(id BIGINT PRIMARY KEY, body TEXT, body_compressed BYTEA) ON COMMIT DROP";
+    private static final String INSERT_BENCHMARK_SQL =
+            "INSERT INTO cms_compression_benchmark (id, body, body_compressed) VALUES (?, ?, ?)";
+    private static final String READ_PLAIN_SQL = "SELECT body FROM cms_compression_benchmark WHERE id = ?";
+    private static final String READ_COMPRESSED_SQL =
+            "SELECT body_compressed FROM cms_compression_benchmark WHERE id = ?";
+
+    private final ContentRepository contentRepository;
+    private final ContentVersionRepository versionRepository;
+    private final ContentBodyDictionaryRepository dictionaryRepository;
+    private final ContentBodyCodec bodyCodec;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ContentCompressionService(
+            ContentRepository contentRepository,
+            ContentVersionRepository versionRepository,
+            ContentBodyDictionaryRepository dictionaryRepository,
+            ContentBodyCodec bodyCodec,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.contentRepository = contentRepository;
+        this.versionRepository = versionRepository;
+        this.dictionaryRepository = dictionaryRepository;
+        this.bodyCodec = bodyCodec;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public ContentCompressionStatsResponse getStats(Long universityId) {
+        return statsBuilder(universityId).build();
+    }
+
+    /**
+     * 最近更新された本文から大学の共有辞書を作る。既存の行は recompress するまで古い辞書のまま。
+     */
+    public ContentCompressionStatsResponse trainDictionary(Long universityId, int sampleSize) {
+        if (sampleSize < 1 || sampleSize > MAX_SAMPLE_SIZE) {
+            throw new RuntimeException("Sample size must be between 1 and " + MAX_SAMPLE_SIZE);
+        }
+        List<String> samples = transactionTemplate.execute(status -> {
+            List<String> texts = new ArrayList<>();
+            for (Content content : contentRepository.findByUniversityIdOrderByUpdatedAtDesc(
+                    universityId, PageRequest.of(0, sampleSize))) {
+                texts.add(content.getBody());
+                texts.add(content.getCustomFields());
+            }
+            return texts;
+        });
+        byte[] dictionary = DictionaryTrainer.train(samples);
+        if (dictionary.length == 0) {
+            throw new RuntimeException("No shared fragments found in contents");
+        }
+
+        ContentBodyDictionary saved = dictionaryRepository.save(ContentBodyDictionary.builder()
+                .universityId(universityId)
+                .dictionary(dictionary)
+                .sampleCount(samples.size() / 2)
+                .build());
+        bodyCodec.dictionaryCreated(saved);
+        log.info("Created compression dictionary {} for university {} ({} bytes from {} contents)",
+                saved.getId(), universityId, dictionary.length, saved.getSampleCount());
+        return getStats(universityId);
+    }
+
+    /**
+     * 大学の全コンテンツと全文バージョンを現在の設定・辞書で保存し直す。
+     * 圧縮保存を無効にした大学では平文に戻す。
+     */
+    public ContentCompressionStatsResponse recompress(Long universityId) {
+        List<Long> ids = contentRepository.findIdsByUniversityId(universityId);
+        int contentsRewritten = 0;
+        int versionsRewritten = 0;
+        for (int from = 0; from < ids.size(); from += RECOMPRESS_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + RECOMPRESS_BATCH_SIZE, ids.size()));
+            int[] result = transactionTemplate.execute(status -> recompressBatch(universityId, batch));
+            contentsRewritten += result[0];
+            versionsRewritten += result[1];
+        }
+        log.info("Recompressed university {}: {} contents, {} versions rewritten",
+                universityId, contentsRewritten, versionsRewritten);
+        return statsBuilder(universityId)
+                .contentsRewritten(contentsRewritten)
+                .versionsRewritten(versionsRewritten)
+                .build();
+    }
+
+    /**
+     * 大学の本文を一時テーブルに平文と圧縮の両方で入れ、1行ずつ読み込む時間を比較する。
+     */
+    public ContentCompressionBenchmarkResponse benchmark(Long universityId, int samples, int iterations) {
+        if (samples < 1 || samples > MAX_BENCHMARK_SAMPLES) {
+            throw new RuntimeException("Samples must be between 1 and " + MAX_BENCHMARK_SAMPLES);
+        }
+        if (iterations < 1 || iterations > MAX_BENCHMARK_ITERATIONS) {
+            throw new RuntimeException("Iterations must be between 1 and " + MAX_BENCHMARK_ITERATIONS);
+        }
+        return transactionTemplate.execute(status -> runBenchmark(universityId, samples, iterations));
+    }
+
+    // 戻り値は {書き換えたコンテンツ数, 書き換えたバージョン数}
+    private int[] recompressBatch(Long universityId, List<Long> ids) {
+        List<Object[]> contentArgs = new ArrayList<>();
+        for (Content content : contentRepository.findAllById(ids)) {
+            String body = content.getBody();
+            String customFields = content.getCustomFields();
+            byte[] bodyCompressed = bodyCodec.compress(universityId, body);
+            byte[] customFieldsCompressed = bodyCodec.compress(universityId, customFields);
+            if (Arrays.equals(bodyCompressed, content.getBodyCompressed())
+                    && Arrays.equals(customFieldsCompressed, content.getCustomFieldsCompressed())) {
+                continue;
+            }
+            contentArgs.add(new Object[]{
+                    bodyCompressed == null ? body : null, bodyCompressed,
+                    customFieldsCompressed == null ? customFields : null, customFieldsCompressed,
+                    bodyCompressed != null ? body : null,
+                    content.getId(), Timestamp.valueOf(content.getUpdatedAt())});
+        }
+
+        List<Object[]> versionArgs = new ArrayList<>();
+        for (ContentVersion version : versionRepository.findByContentIdInAndStorageType(
+                ids, ContentVersion.StorageType.FULL)) {
+            String body = version.getBody();
+            byte[] bodyCompressed = bodyCodec.compress(universityId, body);
+            if (Arrays.equals(bodyCompressed, version.getBodyCompressed())) {
+                continue;
+            }
+            versionArgs.add(new Object[]{bodyCompressed == null ? body : null, bodyCompressed, version.getId()});
+        }
+
+        int contents = contentArgs.isEmpty() ? 0 : countUpdated(jdbcTemplate.batchUpdate(UPDATE_CONTENT_SQL,
+                contentArgs, new int[]{Types.VARCHAR, Types.BINARY, Types.VARCHAR, Types.BINARY,
+                        Types.VARCHAR, Types.BIGINT, Types.TIMESTAMP}));
+        int versions = versionArgs.isEmpty() ? 0 : countUpdated(jdbcTemplate.batchUpdate(UPDATE_VERSION_SQL,
+                versionArgs, new int[]{Types.VARCHAR, Types.BINARY, Types.BIGINT}));
+        return new int[]{contents, versions};
+    }
+
+    private ContentCompressionBenchmarkResponse runBenchmark(Long universityId, int samples, int iterations) {
+        List<Object[]> rows = new ArrayList<>();
+        long plainBytes = 0;
+        long compressedBytes = 0;
+        for (Content content : contentRepository.findByUniversityIdOrderByUpdatedAtDesc(
+                universityId, PageRequest.of(0, samples))) {
+            String body = content.getBody();
+            if (body == null || body.isEmpty()) {
+                continue;
+            }
+            byte[] compressed = bodyCodec.compressAlways(universityId, body);
+            plainBytes += body.getBytes(StandardCharsets.UTF_8).length;
+            compressedBytes += compressed.length;
+            rows.add(new Object[]{content.getId(), body, compressed});
+        }
+        if (rows.isEmpty()) {
+            throw new RuntimeException("No content bodies to benchmark");
+        }
+
+        jdbcTemplate.execute(CREATE_BENCHMARK_TABLE_SQL);
+        jdbcTemplate.batchUpdate(INSERT_BENCHMARK_SQL, rows, new int[]{Types.BIGINT, Types.VARCHAR, Types.BINARY});
+
+        int n = rows.size();
+        long[] plainNanos = new long[n * iterations];
+        long[] compressedNanos = new long[n * iterations];
+        long[] decompressNanos = new long[n * iterations];
+        // 1周目は計測せずに読み込み、共有バッファに載せてから比較する
+        for (int round = -1; round < iterations; round++) {
+            for (int i = 0; i < n; i++) {
+                Long id = (Long) rows.get(i)[0];
+                // 順序による偏りを避けるため、周ごとに読む順番を入れ替える
+                long plain;
+                long[] compressed;
+                if ((round & 1) == 0) {
+                    plain = readPlain(id);
+                    compressed = readCompressed(id);
+                } else {
+                    compressed = readCompressed(id);
+                    plain = readPlain(id);
+                }
+                if (round >= 0) {
+                    int k = round * n + i;
+                    plainNanos[k] = plain;
+                    compressedNanos[k] = compressed[0];
+                    decompressNanos[k] = compressed[1];
+                }
+            }
+        }
+
+        return ContentCompressionBenchmarkResponse.builder()
+                .universityId(universityId)
+                .dictionaryId(bodyCodec.currentDictionaryId(universityId))
+                .samples(n)
+                .iterations(iterations)
+                .plainBytes(plainBytes)
+                .compressedBytes(compressedBytes)
+                .compressionRatio(plainBytes > 0 ? (double) compressedBytes / plainBytes : 0.0)
+                .plainRead(latency(plainNanos))
+                .compressedRead(latency(compressedNanos))
+                .decompress(latency(decompressNanos))
+                .build();
+    }
+
+    private long readPlain(Long id) {
+        long started = System.nanoTime();
+        jdbcTemplate.queryForObject(READ_PLAIN_SQL, String.class, id);
+        return System.nanoTime() - started;
+    }
+
+    // 戻り値は {読み込み + 展開の時間, 展開のみの時間}
+    private long[] readCompressed(Long id) {
+        long started = System.nanoTime();
+        byte[] data = jdbcTemplate.queryForObject(READ_COMPRESSED_SQL, byte[].class, id);
+        long fetched = System.nanoTime();
+        bodyCodec.decompress(data);
+        long finished = System.nanoTime();
+        return new long[]{finished - started, finished - fetched};
+    }
+
+    private ContentCompressionStatsResponse.ContentCompressionStatsResponseBuilder statsBuilder(Long universityId) {
+        ContentRepository.CompressionTotals totals = contentRepository.getCompressionTotals(universityId);
+        return ContentCompressionStatsResponse.builder()
+                .universityId(universityId)
+                .enabled(bodyCodec.isEnabled(universityId))
+                .dictionaryId(bodyCodec.currentDictionaryId(universityId))
+                .contentCount(totals.getContentCount())
+                .compressedCount(totals.getCompressedCount())
+                .plainBytes(totals.getPlainBytes())
+                .storedPlainBytes(totals.getStoredPlainBytes())
+                .compressedBytes(totals.getCompressedBytes())
+                .decompressCount(bodyCodec.decompressCount())
+                .decompressMeanMicros(bodyCodec.decompressMeanMicros());
+    }
+
+    private static int countUpdated(int[] counts) {
+        int updated = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    private static ContentCompressionBenchmarkResponse.Latency latency(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        double sum = 0;
+        for (long value : sorted) {
+            sum += value;
+        }
+        return ContentCompressionBenchmarkResponse.Latency.builder()
+                .meanMicros(sum / sorted.length / 1000.0)
+                .p50Micros(percentile(sorted, 0.50) / 1000.0)
+                .p95Micros(percentile(sorted, 0.95) / 1000.0)
+                .maxMicros(sorted[sorted.length - 1] / 1000.0)
+                .build();
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
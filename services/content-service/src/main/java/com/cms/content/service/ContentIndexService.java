@@ -0,0 +1,238 @@
+package com.cms.content.service;
+
+import com.cms.content.dto.ContentSuggestionResponse;
+import com.cms.content.entity.Content;
+import com.cms.content.repository.ContentRepository;
+import com.cms.content.search.PublishedContentIndex;
+import com.cms.content.search.SearchQuery;
+import com.cms.content.search.SearchTextNormalizer;
+import com.cms.content.search.SnippetBuilder;
+import com.cms.content.search.UniversityContentIndex;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 公開コンテンツのインメモリ索引（{@link PublishedContentIndex}）を起動時に構築し、コンテンツの変更に合わせて更新する。
+ * DB に問い合わせずに候補表示・インクリメンタル検索に答えるためのもので、関連度順の検索は ContentSearchService を使う。
+ */
+@Slf4j
+@Service
+public class ContentIndexService {
+    private static final int MAX_RESULTS = 50;
+
+    private final ContentRepository contentRepository;
+    private final PublishedContentIndex index;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final boolean includeBody;
+
+    // 再構築中に届いた更新（再構築後に DB から読み直して反映する）
+    private final Object rebuildLock = new Object();
+    private int rebuildsInProgress;
+    private final List<Refresh> pendingRefreshes = new ArrayList<>();
+
+    private record Refresh(Long universityId, List<String> slugs) {
+    }
+
+    public ContentIndexService(
+            ContentRepository contentRepository,
+            PublishedContentIndex index,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            @Value("${cms.search.index.enabled:true}") boolean enabled,
+            @Value("${cms.search.index.include-body:true}") boolean includeBody) {
+        this.contentRepository = contentRepository;
+        this.index = index;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.includeBody = includeBody;
+    }
+
+    // タイトルに全語を含むコンテンツ（入力途中の候補表示用）
+    public List<ContentSuggestionResponse> suggest(Long universityId, String query, int limit) {
+        return search(universityId, query, limit, true);
+    }
+
+    // タイトル一致を優先し、本文・メタ情報に一致するものも含める
+    public List<ContentSuggestionResponse> instantSearch(Long universityId, String query, int limit) {
+        return search(universityId, query, limit, false);
+    }
+
+    private List<ContentSuggestionResponse> search(Long universityId, String query, int limit, boolean titleOnly) {
+        if (!enabled) {
+            throw new RuntimeException("In-memory search index is disabled");
+        }
+        if (limit < 1 || limit > MAX_RESULTS) {
+            throw new RuntimeException("Limit must be between 1 and " + MAX_RESULTS);
+        }
+        List<String> terms = SearchQuery.parse(query).terms();
+        List<String> normalizedTerms = terms.stream()
+                .map(SearchTextNormalizer::normalize)
+                .filter(term -> !term.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+        if (normalizedTerms.isEmpty()) {
+            return List.of();
+        }
+        return index.search(universityId, normalizedTerms, limit, titleOnly).stream()
+                .map(hit -> ContentSuggestionResponse.builder()
+                        .id(hit.document().id())
+                        .slug(hit.document().slug())
+                        .title(hit.document().title())
+                        .highlightedTitle(SnippetBuilder.highlight(hit.document().title(), terms))
+                        .titleMatch(hit.titleMatch())
+                        .publishedAt(hit.document().publishedAt())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        if (enabled) {
+            rebuildAll();
+        }
+    }
+
+    public void rebuildAll() {
+        if (!enabled) {
+            return;
+        }
+        beginRebuild();
+        try {
+            long started = System.nanoTime();
+            Map<Long, UniversityContentIndex> indexes = new HashMap<>();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Content> contents = contentRepository.streamByStatus(Content.Status.PUBLISHED)) {
+                    contents.forEach(content -> {
+                        indexes.computeIfAbsent(content.getUniversityId(), id -> new UniversityContentIndex())
+                                .put(toDocument(content), fields(content));
+                        entityManager.detach(content);
+                    });
+                }
+            });
+            index.replaceAll(indexes);
+            log.info("Built in-memory content index: {} documents, ~{} KB in {} ms", index.size(),
+                    index.estimatedBytes() / 1024, (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            endRebuild();
+        }
+    }
+
+    public void rebuildUniversity(Long universityId) {
+        if (!enabled) {
+            return;
+        }
+        beginRebuild();
+        try {
+            UniversityContentIndex universityIndex = new UniversityContentIndex();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Content> contents = contentRepository.streamByUniversityIdAndStatus(
+                        universityId, Content.Status.PUBLISHED)) {
+                    contents.forEach(content -> {
+                        universityIndex.put(toDocument(content), fields(content));
+                        entityManager.detach(content);
+                    });
+                }
+            });
+            index.replaceUniversity(universityId, universityIndex);
+        } finally {
+            endRebuild();
+        }
+    }
+
+    /**
+     * トランザクション中であればコミット後に、そうでなければ即座に索引を更新する。
+     */
+    public void refreshAfterCommit(Long universityId, Collection<String> slugs) {
+        if (!enabled) {
+            return;
+        }
+        List<String> keys = List.copyOf(slugs);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh(universityId, keys);
+                }
+            });
+        } else {
+            refresh(universityId, keys);
+        }
+    }
+
+    // 指定スラッグのコンテンツを DB から読み直し、公開中なら索引に入れ、そうでなければ取り除く
+    public void refresh(Long universityId, Collection<String> slugs) {
+        if (!enabled) {
+            return;
+        }
+        // 再構築中なら完了後にもう一度反映する（再構築前の読み込み結果で上書きされないように）
+        synchronized (rebuildLock) {
+            if (rebuildsInProgress > 0) {
+                pendingRefreshes.add(new Refresh(universityId, List.copyOf(slugs)));
+            }
+        }
+        UniversityContentIndex universityIndex = index.forUniversity(universityId);
+        for (String slug : slugs) {
+            Content content = contentRepository.findByUniversityIdAndSlug(universityId, slug).orElse(null);
+            if (content != null && content.getStatus() == Content.Status.PUBLISHED) {
+                universityIndex.put(toDocument(content), fields(content));
+            } else {
+                universityIndex.remove(slug);
+            }
+        }
+    }
+
+    private void beginRebuild() {
+        synchronized (rebuildLock) {
+            rebuildsInProgress++;
+        }
+    }
+
+    private void endRebuild() {
+        List<Refresh> replay;
+        synchronized (rebuildLock) {
+            if (--rebuildsInProgress > 0) {
+                return;
+            }
+            replay = new ArrayList<>(pendingRefreshes);
+            pendingRefreshes.clear();
+        }
+        replay.forEach(refresh -> refresh(refresh.universityId(), refresh.slugs()));
+    }
+
+    private static UniversityContentIndex.IndexedDocument toDocument(Content content) {
+        return new UniversityContentIndex.IndexedDocument(content.getId(), content.getSlug(), content.getTitle(),
+                SearchTextNormalizer.normalize(content.getTitle()), content.getPublishedAt());
+    }
+
+    // タイトル以外に 2-gram 化するフィールド
+    private List<String> fields(Content content) {
+        List<String> fields = new ArrayList<>(3);
+        fields.add(content.getMetaKeywords());
+        fields.add(content.getMetaDescription());
+        if (includeBody) {
+            fields.add(SnippetBuilder.plainText(content.getBody()));
+        }
+        fields.removeIf(field -> field == null || field.isEmpty());
+        return fields;
+    }
+}
@@ -0,0 +1,180 @@
+package com.cms.content.service;
+
+import com.cms.content.cache.CompiledTemplateCache;
+import com.cms.content.cache.PublishedContentCache;
+import com.cms.content.dto.ContentResponse;
+import com.cms.content.entity.Content;
+import com.cms.content.entity.ContentTemplate;
+import com.cms.content.repository.ContentTemplateRepository;
+import com.cms.content.template.CompiledTemplate;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 公開コンテンツをテンプレート（ContentTemplate）で HTML に描画する。
+ * テンプレートは一度だけ解析して {@link CompiledTemplateCache} に保持し、
+ * 描画結果は公開コンテンツキャッシュの同じエントリに保持して、次回からはそのまま返す。
+ */
+@Slf4j
+@Service
+public class ContentRenderService {
+    private final ContentService contentService;
+    private final ContentTemplateRepository templateRepository;
+    private final CompiledTemplateCache compiledTemplateCache;
+    private final PublishedContentCache publishedContentCache;
+    private final ObjectMapper objectMapper;
+    private final int maxCachedLength;
+
+    /**
+     * 描画結果の書き出し。コンテンツやテンプレートが見つからないエラーは prepare の時点で発生させ、
+     * 書き出し中（レスポンス送信開始後）には起こらないようにする。
+     */
+    @FunctionalInterface
+    public interface RenderedContent {
+        void writeTo(Writer out) throws IOException;
+    }
+
+    public ContentRenderService(
+            ContentService contentService,
+            ContentTemplateRepository templateRepository,
+            CompiledTemplateCache compiledTemplateCache,
+            PublishedContentCache publishedContentCache,
+            ObjectMapper objectMapper,
+            @Value("${cms.cache.content.max-rendered-size:512KB}") DataSize maxCachedSize) {
+        this.contentService = contentService;
+        this.templateRepository = templateRepository;
+        this.compiledTemplateCache = compiledTemplateCache;
+        this.publishedContentCache = publishedContentCache;
+        this.objectMapper = objectMapper;
+        this.maxCachedLength = (int) (maxCachedSize.toBytes() / 2);
+    }
+
+    public RenderedContent prepare(Long universityId, String slug) {
+        ContentResponse content = contentService.getContentByUniversityAndSlug(universityId, slug);
+        if (content.getStatus() != Content.Status.PUBLISHED) {
+            throw new RuntimeException("Content not found");
+        }
+        String cached = publishedContentCache.getRendered(universityId, slug, content);
+        if (cached != null) {
+            return out -> out.write(cached);
+        }
+
+        // テンプレートを読み込む前に世代を控え、描画中にテンプレートが変更されたら結果をキャッシュしない
+        long renderedGeneration = publishedContentCache.currentRenderedGeneration(content.getTemplateId());
+        CompiledTemplate template = compiledTemplate(content);
+        Map<String, Object> model = model(content);
+        return out -> {
+            CapturingWriter writer = new CapturingWriter(out, template.sourceLength(), maxCachedLength);
+            template.render(model, writer);
+            if (!writer.overflowed()) {
+                publishedContentCache.putRendered(universityId, slug, content, writer.captured(),
+                        renderedGeneration);
+            }
+        };
+    }
+
+    private CompiledTemplate compiledTemplate(ContentResponse content) {
+        if (content.getTemplateId() == null) {
+            throw new RuntimeException("Content has no template");
+        }
+        ContentTemplate template = templateRepository.findByIdAndUniversityId(
+                        content.getTemplateId(), content.getUniversityId())
+                .orElseThrow(() -> new RuntimeException("Template not found"));
+        return compiledTemplateCache.get(template);
+    }
+
+    // テンプレートから参照できる値（カスタムフィールドは fields 以下）
+    private Map<String, Object> model(ContentResponse content) {
+        Map<String, Object> model = new HashMap<>();
+        model.put("id", content.getId());
+        model.put("universityId", content.getUniversityId());
+        model.put("title", content.getTitle());
+        model.put("body", content.getBody());
+        model.put("slug", content.getSlug());
+        model.put("categoryId", content.getCategoryId());
+        model.put("contentType", content.getContentType());
+        model.put("metaDescription", content.getMetaDescription());
+        model.put("metaKeywords", content.getMetaKeywords());
+        model.put("versionNumber", content.getVersionNumber());
+        model.put("publishedAt", content.getPublishedAt() != null ? content.getPublishedAt().toString() : null);
+        model.put("updatedAt", content.getUpdatedAt() != null ? content.getUpdatedAt().toString() : null);
+        model.put("fields", customFields(content));
+        return model;
+    }
+
+    private Object customFields(ContentResponse content) {
+        if (content.getCustomFields() == null || content.getCustomFields().isBlank()) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(content.getCustomFields(), Object.class);
+        } catch (JsonProcessingException e) {
+            // 不正な JSON のカスタムフィールドは空として描画する
+            log.warn("Invalid custom fields JSON in content {}: {}", content.getId(), e.getOriginalMessage());
+            return Map.of();
+        }
+    }
+
+    // 書き出しながら、上限までの出力をキャッシュ用に控えておく
+    private static final class CapturingWriter extends Writer {
+        private final Writer out;
+        private final int maxLength;
+        private StringBuilder captured;
+
+        CapturingWriter(Writer out, int initialCapacity, int maxLength) {
+            this.out = out;
+            this.maxLength = maxLength;
+            this.captured = new StringBuilder(Math.min(initialCapacity, maxLength));
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            out.write(buffer, offset, length);
+            if (fits(length)) {
+                captured.append(buffer, offset, length);
+            }
+        }
+
+        @Override
+        public void write(String text, int offset, int length) throws IOException {
+            out.write(text, offset, length);
+            if (fits(length)) {
+                captured.append(text, offset, offset + length);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        boolean overflowed() {
+            return captured == null;
+        }
+
+        String captured() {
+            return captured.toString();
+        }
+
+        private boolean fits(int length) {
+            if (captured != null && captured.length() + length > maxLength) {
+                captured = null;
+            }
+            return captured != null;
+        }
+    }
+}
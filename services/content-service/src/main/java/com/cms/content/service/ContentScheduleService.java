@@ -0,0 +1,121 @@
+package com.cms.content.service;
+
+import com.cms.content.cache.CacheInvalidationBus;
+import com.cms.content.cache.CacheInvalidationEvent;
+import com.cms.content.cache.PublishedContentCache;
+import com.cms.content.repository.ContentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * scheduledPublishAt / scheduledUnpublishAt を過ぎたコンテンツの状態を定期的に切り替える。
+ * 対象行は FOR UPDATE SKIP LOCKED で取得するため、複数レプリカで同時に動いても二重に処理しない。
+ */
+@Slf4j
+@Service
+public class ContentScheduleService {
+    private final ContentRepository contentRepository;
+    private final PublishedContentCache publishedContentCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final ContentIndexService contentIndexService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private final Counter published;
+    private final Counter unpublished;
+
+    public ContentScheduleService(
+            ContentRepository contentRepository,
+            PublishedContentCache publishedContentCache,
+            CacheInvalidationBus cacheInvalidationBus,
+            ContentIndexService contentIndexService,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${cms.content.schedule.batch-size:200}") int batchSize) {
+        this.contentRepository = contentRepository;
+        this.publishedContentCache = publishedContentCache;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.contentIndexService = contentIndexService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+
+        this.published = Counter.builder("cms.content.schedule.transitions").tag("action", "publish")
+                .register(meterRegistry);
+        this.unpublished = Counter.builder("cms.content.schedule.transitions").tag("action", "unpublish")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${cms.content.schedule.poll-interval:30000}")
+    public void applySchedules() {
+        // 1バッチ分埋まっている間は続けて処理する
+        int processed;
+        do {
+            processed = runBatch(true);
+        } while (processed >= batchSize);
+        do {
+            processed = runBatch(false);
+        } while (processed >= batchSize);
+    }
+
+    private int runBatch(boolean publish) {
+        Integer count = transactionTemplate.execute(status -> publish ? publishDue() : unpublishDue());
+        return count != null ? count : 0;
+    }
+
+    private int publishDue() {
+        LocalDateTime now = LocalDateTime.now();
+        List<ContentRepository.ScheduledContent> due = contentRepository.lockDuePublications(now, batchSize);
+        if (due.isEmpty()) {
+            return 0;
+        }
+        int updated = contentRepository.publishScheduled(ids(due), now);
+        invalidateCaches(due);
+        published.increment(updated);
+        log.info("Published {} scheduled contents", updated);
+        return due.size();
+    }
+
+    private int unpublishDue() {
+        LocalDateTime now = LocalDateTime.now();
+        List<ContentRepository.ScheduledContent> due = contentRepository.lockDueUnpublications(now, batchSize);
+        if (due.isEmpty()) {
+            return 0;
+        }
+        int updated = contentRepository.unpublishScheduled(ids(due), now);
+        invalidateCaches(due);
+        unpublished.increment(updated);
+        log.info("Unpublished {} scheduled contents", updated);
+        return due.size();
+    }
+
+    private static List<Long> ids(List<ContentRepository.ScheduledContent> contents) {
+        return contents.stream().map(ContentRepository.ScheduledContent::getId).collect(Collectors.toList());
+    }
+
+    // 大学ごとにまとめて無効化する（ContentService と同じくローカルはコミット後、他レプリカは無効化チャネル経由）
+    private void invalidateCaches(List<ContentRepository.ScheduledContent> contents) {
+        Map<Long, List<String>> slugsByUniversity = contents.stream()
+                .collect(Collectors.groupingBy(ContentRepository.ScheduledContent::getUniversityId,
+                        Collectors.mapping(ContentRepository.ScheduledContent::getSlug, Collectors.toList())));
+        slugsByUniversity.forEach((universityId, slugs) -> {
+            publishedContentCache.evictAfterCommit(universityId, slugs.toArray(new String[0]));
+            contentIndexService.refreshAfterCommit(universityId, slugs);
+            cacheInvalidationBus.publish(CacheInvalidationEvent.builder()
+                    .entityType(CacheInvalidationEvent.EntityType.CONTENT)
+                    .universityId(universityId)
+                    .keys(slugs)
+                    .build());
+        });
+    }
+}
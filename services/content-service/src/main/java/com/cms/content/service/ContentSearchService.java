@@ -0,0 +1,139 @@
+package com.cms.content.service;
+
+import com.cms.content.compression.ContentBodyCodec;
+import com.cms.content.dto.ContentSearchHit;
+import com.cms.content.dto.ContentSearchResponse;
+import com.cms.content.entity.Content;
+import com.cms.content.search.SearchQuery;
+import com.cms.content.search.SnippetBuilder;
+import com.cms.content.util.CursorCodec;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * contents.search_vector（{@link com.cms.content.search.ContentSearchSchema}）を使った大学単位の全文検索。
+ * 関連度順の結果はキーセットで辿れないため、ページングはオフセットをカーソルに包んで行う。
+ */
+@Service
+@RequiredArgsConstructor
+public class ContentSearchService {
+    private static final int MAX_PAGE_SIZE = 50;
+    private static final int MAX_OFFSET = 1000;
+    private static final int SNIPPET_WIDTH = 120;
+
+    // 2文字以上の語は 2-gram の AND、1文字の語は前方一致で照合する（文書側と同じ関数で分解する）
+    private static final String QUERY_CTE = "WITH q AS (SELECT "
+            + "plainto_tsquery('simple', coalesce((SELECT string_agg(cms_search_bigrams(t), ' ') "
+            + "FROM regexp_split_to_table(?, ' ') AS t), '')) && to_tsquery('simple', ?) AS query) ";
+
+    private static final String SEARCH_SQL = QUERY_CTE
+            + "SELECT c.id, c.title, c.slug, c.status, c.category_id, c.content_type, c.meta_description, c.body, "
+            + "c.body_compressed, c.published_at, c.updated_at, ts_rank(c.search_vector, q.query) AS score "
+            + "FROM contents c CROSS JOIN q "
+            + "WHERE c.university_id = ? AND c.status = ? AND c.search_vector @@ q.query "
+            + "ORDER BY score DESC, c.id DESC LIMIT ? OFFSET ?";
+
+    private static final String COUNT_SQL = QUERY_CTE
+            + "SELECT COUNT(*) FROM contents c CROSS JOIN q "
+            + "WHERE c.university_id = ? AND c.status = ? AND c.search_vector @@ q.query";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional(readOnly = true)
+    public ContentSearchResponse search(Long universityId, String query, Content.Status status,
+                                        String cursor, int limit, boolean includeTotal) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new RuntimeException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        SearchQuery searchQuery = SearchQuery.parse(query);
+        if (searchQuery.isEmpty()) {
+            return ContentSearchResponse.builder()
+                    .items(List.of())
+                    .hasMore(false)
+                    .totalCount(includeTotal ? 0L : null)
+                    .build();
+        }
+        int offset = decodeOffsetCursor(cursor);
+        String multiCharTerms = String.join(" ", searchQuery.multiCharTerms());
+        String prefixQuery = searchQuery.singleCharTerms().stream()
+                .map(term -> term + ":*")
+                .collect(Collectors.joining(" & "));
+
+        // 次ページの有無を判定するため1件多く取得する
+        List<ContentSearchHit> rows = jdbcTemplate.query(SEARCH_SQL, hitMapper(searchQuery.terms()),
+                multiCharTerms, prefixQuery, universityId, status.name(), limit + 1, offset);
+        Long totalCount = null;
+        if (includeTotal) {
+            totalCount = jdbcTemplate.queryForObject(COUNT_SQL, Long.class,
+                    multiCharTerms, prefixQuery, universityId, status.name());
+        }
+
+        boolean hasMore = rows.size() > limit && offset + limit < MAX_OFFSET;
+        return ContentSearchResponse.builder()
+                .items(rows.size() > limit ? rows.subList(0, limit) : rows)
+                .nextCursor(hasMore ? CursorCodec.encode(offset + limit) : null)
+                .hasMore(hasMore)
+                .totalCount(totalCount)
+                .build();
+    }
+
+    // 圧縮保存された本文はヒットした行だけ展開する
+    private static String readBody(ResultSet rs) throws SQLException {
+        String body = rs.getString("body");
+        byte[] compressed = rs.getBytes("body_compressed");
+        return body == null && compressed != null ? ContentBodyCodec.decode(compressed) : body;
+    }
+
+    private RowMapper<ContentSearchHit> hitMapper(List<String> terms) {
+        return (rs, rowNum) -> {
+            String title = rs.getString("title");
+            String metaDescription = rs.getString("meta_description");
+            String body = SnippetBuilder.plainText(readBody(rs));
+            // 本文が空の場合はメタ説明から抜粋する
+            String snippetSource = body.isEmpty() && metaDescription != null ? metaDescription : body;
+            return ContentSearchHit.builder()
+                    .id(rs.getLong("id"))
+                    .title(title)
+                    .slug(rs.getString("slug"))
+                    .status(Content.Status.valueOf(rs.getString("status")))
+                    .categoryId(rs.getObject("category_id", Long.class))
+                    .contentType(rs.getString("content_type"))
+                    .metaDescription(metaDescription)
+                    .publishedAt(toLocalDateTime(rs.getTimestamp("published_at")))
+                    .updatedAt(toLocalDateTime(rs.getTimestamp("updated_at")))
+                    .score(rs.getDouble("score"))
+                    .highlightedTitle(SnippetBuilder.highlight(title, terms))
+                    .snippet(SnippetBuilder.snippet(snippetSource, terms, SNIPPET_WIDTH))
+                    .build();
+        };
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private int decodeOffsetCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            int offset = Integer.parseInt(CursorCodec.decode(cursor, 1)[0]);
+            if (offset < 0 || offset >= MAX_OFFSET) {
+                throw new RuntimeException("Invalid cursor");
+            }
+            return offset;
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+}
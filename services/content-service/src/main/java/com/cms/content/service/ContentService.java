@@ -1,13 +1,24 @@
 package com.cms.content.service;
 
+import com.cms.content.cache.CacheInvalidationBus;
+import com.cms.content.cache.CacheInvalidationEvent;
+import com.cms.content.cache.PublishedContentCache;
+import com.cms.content.compression.ContentBodyCodec;
+import com.cms.content.dto.ContentPageResponse;
 import com.cms.content.dto.ContentRequest;
 import com.cms.content.dto.ContentResponse;
+import com.cms.content.dto.ContentSummaryResponse;
+import com.cms.content.dto.ContentVersionPageResponse;
 import com.cms.content.dto.ContentVersionResponse;
+import com.cms.content.dto.ContentVersionSummaryResponse;
 import com.cms.content.entity.Content;
 import com.cms.content.entity.ContentVersion;
 import com.cms.content.repository.ContentRepository;
 import com.cms.content.repository.ContentVersionRepository;
+import com.cms.content.util.CursorCodec;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,8 +29,16 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 public class ContentService {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final LocalDateTime MAX_PUBLISHED_AT = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
     private final ContentRepository contentRepository;
     private final ContentVersionRepository contentVersionRepository;
+    private final PublishedContentCache publishedContentCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final ContentIndexService contentIndexService;
+    private final ContentVersionStorageService versionStorageService;
+    private final ContentBodyCodec bodyCodec;
 
     public List<ContentResponse> getAllContents() {
         return contentRepository.findAll().stream()
@@ -57,6 +76,54 @@ public class ContentService {
                 .collect(Collectors.toList());
     }
 
+    public ContentPageResponse getAllContentsPage(String cursor, int limit, boolean includeTotal) {
+        List<ContentSummaryResponse> rows = contentRepository.findSummaries(decodeIdCursor(cursor), pageOf(limit));
+        return toIdPage(rows, limit, includeTotal ? contentRepository.count() : null);
+    }
+
+    public ContentPageResponse getContentsByUniversityPage(Long universityId, String cursor, int limit, boolean includeTotal) {
+        List<ContentSummaryResponse> rows = contentRepository.findSummariesByUniversityId(
+                universityId, decodeIdCursor(cursor), pageOf(limit));
+        return toIdPage(rows, limit, includeTotal ? contentRepository.countByUniversityId(universityId) : null);
+    }
+
+    public ContentPageResponse getPublishedContentsPage(String cursor, int limit, boolean includeTotal) {
+        String[] after = decodePublishedCursor(cursor);
+        List<ContentSummaryResponse> rows = contentRepository.findSummariesByStatus(
+                Content.Status.PUBLISHED, LocalDateTime.parse(after[0]), Long.parseLong(after[1]), pageOf(limit));
+        return toPublishedPage(rows, limit,
+                includeTotal ? contentRepository.countByStatus(Content.Status.PUBLISHED) : null);
+    }
+
+    public ContentPageResponse getPublishedContentsByUniversityPage(
+            Long universityId, String cursor, int limit, boolean includeTotal) {
+        String[] after = decodePublishedCursor(cursor);
+        List<ContentSummaryResponse> rows = contentRepository.findSummariesByUniversityIdAndStatus(
+                universityId, Content.Status.PUBLISHED, LocalDateTime.parse(after[0]), Long.parseLong(after[1]),
+                pageOf(limit));
+        return toPublishedPage(rows, limit, includeTotal
+                ? contentRepository.countByUniversityIdAndStatus(universityId, Content.Status.PUBLISHED)
+                : null);
+    }
+
+    public ContentPageResponse getContentsByCategoryPage(
+            Long universityId, Long categoryId, String cursor, int limit, boolean includeTotal) {
+        List<ContentSummaryResponse> rows = contentRepository.findSummariesByUniversityIdAndCategoryId(
+                universityId, categoryId, decodeIdCursor(cursor), pageOf(limit));
+        return toIdPage(rows, limit, includeTotal
+                ? contentRepository.countByUniversityIdAndCategoryId(universityId, categoryId)
+                : null);
+    }
+
+    public ContentPageResponse getContentsByTypePage(
+            Long universityId, String contentType, String cursor, int limit, boolean includeTotal) {
+        List<ContentSummaryResponse> rows = contentRepository.findSummariesByUniversityIdAndContentType(
+                universityId, contentType, decodeIdCursor(cursor), pageOf(limit));
+        return toIdPage(rows, limit, includeTotal
+                ? contentRepository.countByUniversityIdAndContentType(universityId, contentType)
+                : null);
+    }
+
     public ContentResponse getContentById(Long id) {
         Content content = contentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Content not found"));
@@ -64,15 +131,29 @@ public class ContentService {
     }
 
     public ContentResponse getContentBySlug(String slug) {
+        ContentResponse cached = publishedContentCache.get(null, slug);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = publishedContentCache.currentGeneration();
         Content content = contentRepository.findBySlug(slug)
                 .orElseThrow(() -> new RuntimeException("Content not found"));
-        return toResponse(content);
+        ContentResponse response = toResponse(content);
+        publishedContentCache.put(null, slug, response, generation);
+        return response;
     }
 
     public ContentResponse getContentByUniversityAndSlug(Long universityId, String slug) {
+        ContentResponse cached = publishedContentCache.get(universityId, slug);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = publishedContentCache.currentGeneration();
         Content content = contentRepository.findByUniversityIdAndSlug(universityId, slug)
                 .orElseThrow(() -> new RuntimeException("Content not found"));
-        return toResponse(content);
+        ContentResponse response = toResponse(content);
+        publishedContentCache.put(universityId, slug, response, generation);
+        return response;
     }
 
     @Transactional
@@ -106,10 +187,13 @@ public class ContentService {
             content.setStatus(Content.Status.PUBLISHED);
         }
 
+        applyCompression(content);
         content = contentRepository.save(content);
+        indexCompressedBody(content);
         
         // 初回バージョンを作成
         createVersion(content, authorId, "Initial version");
+        invalidateCaches(content, content.getSlug());
         
         return toResponse(content);
     }
@@ -129,6 +213,9 @@ public class ContentService {
             throw new RuntimeException("Slug already exists for this university");
         }
 
+        String previousSlug = content.getSlug();
+        Content.Status previousStatus = content.getStatus();
+
         // バージョン管理：変更がある場合は新しいバージョンを作成
         boolean hasChanges = !content.getTitle().equals(request.getTitle()) ||
                             !content.getBody().equals(request.getBody()) ||
@@ -158,7 +245,16 @@ public class ContentService {
             content.setStatus(Content.Status.PUBLISHED);
         }
 
+        // 下書き・アーカイブから公開し直した場合は公開日時を更新する
+        // （古い公開日時のままだと、過ぎたスケジュール非公開日時で再びアーカイブされる）
+        if (previousStatus != Content.Status.PUBLISHED && content.getStatus() == Content.Status.PUBLISHED) {
+            content.setPublishedAt(LocalDateTime.now());
+        }
+
+        applyCompression(content);
         content = contentRepository.save(content);
+        indexCompressedBody(content);
+        invalidateCaches(content, previousSlug, content.getSlug());
         return toResponse(content);
     }
 
@@ -172,18 +268,46 @@ public class ContentService {
         }
 
         contentRepository.delete(content);
+        invalidateCaches(content, content.getSlug());
     }
 
-    public List<ContentVersionResponse> getContentVersions(Long contentId) {
-        return contentVersionRepository.findByContentIdOrderByVersionNumberDesc(contentId).stream()
+    // includeBody=false の場合は本文を復元せず body を null で返す
+    public List<ContentVersionResponse> getContentVersions(Long contentId, boolean includeBody) {
+        if (!includeBody) {
+            return contentVersionRepository.findSummaries(contentId, Integer.MAX_VALUE, Pageable.unpaged()).stream()
+                    .map(this::toVersionResponse)
+                    .collect(Collectors.toList());
+        }
+        return versionStorageService.loadAll(contentId).stream()
                 .map(this::toVersionResponse)
                 .collect(Collectors.toList());
     }
 
-    public ContentVersionResponse getContentVersion(Long contentId, Integer versionNumber) {
-        ContentVersion version = contentVersionRepository.findByContentIdAndVersionNumber(contentId, versionNumber)
+    public ContentVersionPageResponse getContentVersionsPage(Long contentId, String cursor, int limit,
+                                                             boolean includeTotal) {
+        List<ContentVersionSummaryResponse> rows = contentVersionRepository.findSummaries(
+                contentId, decodeVersionCursor(cursor), pageOf(limit));
+        boolean hasMore = rows.size() > limit;
+        List<ContentVersionSummaryResponse> items = hasMore ? rows.subList(0, limit) : rows;
+        return ContentVersionPageResponse.builder()
+                .items(items)
+                .nextCursor(hasMore ? CursorCodec.encode(items.get(items.size() - 1).getVersionNumber()) : null)
+                .hasMore(hasMore)
+                .totalCount(includeTotal ? contentVersionRepository.countByContentId(contentId).longValue() : null)
+                .build();
+    }
+
+    /**
+     * 保存済みのバージョンは変更されないので、行IDから強い ETag を作れる（本文を復元せずに 304 を返すため）。
+     */
+    public String getContentVersionETag(Long contentId, Integer versionNumber) {
+        Long id = contentVersionRepository.findIdByContentIdAndVersionNumber(contentId, versionNumber)
                 .orElseThrow(() -> new RuntimeException("Version not found"));
-        return toVersionResponse(version);
+        return "\"cv-" + id + "\"";
+    }
+
+    public ContentVersionResponse getContentVersion(Long contentId, Integer versionNumber) {
+        return toVersionResponse(versionStorageService.load(contentId, versionNumber));
     }
 
     @Transactional
@@ -191,20 +315,50 @@ public class ContentService {
         Content content = contentRepository.findById(contentId)
                 .orElseThrow(() -> new RuntimeException("Content not found"));
 
-        ContentVersion version = contentVersionRepository.findByContentIdAndVersionNumber(contentId, versionNumber)
-                .orElseThrow(() -> new RuntimeException("Version not found"));
+        ContentVersion version = versionStorageService.load(contentId, versionNumber);
 
+        String previousSlug = content.getSlug();
         content.setTitle(version.getTitle());
         content.setBody(version.getBody());
         content.setSlug(version.getSlug());
         content.setVersionNumber(content.getVersionNumber() + 1);
 
+        applyCompression(content);
         content = contentRepository.save(content);
+        indexCompressedBody(content);
         createVersion(content, authorId, "Restored from version " + versionNumber);
+        invalidateCaches(content, previousSlug, content.getSlug());
 
         return toResponse(content);
     }
 
+    // ローカルキャッシュはコミット後に即時無効化し、他レプリカには無効化チャネル経由で通知する
+    private void invalidateCaches(Content content, String... slugs) {
+        publishedContentCache.evictAfterCommit(content.getUniversityId(), slugs);
+        contentIndexService.refreshAfterCommit(content.getUniversityId(), List.of(slugs));
+        cacheInvalidationBus.publish(CacheInvalidationEvent.builder()
+                .entityType(CacheInvalidationEvent.EntityType.CONTENT)
+                .universityId(content.getUniversityId())
+                .entityId(content.getId())
+                .keys(List.of(slugs))
+                .build());
+    }
+
+    // 圧縮保存が有効な大学では本文とカスタムフィールドを共有辞書で圧縮して保存する
+    private void applyCompression(Content content) {
+        String body = content.getBody();
+        String customFields = content.getCustomFields();
+        content.setStoredBody(body, bodyCodec.compress(content.getUniversityId(), body));
+        content.setStoredCustomFields(customFields, bodyCodec.compress(content.getUniversityId(), customFields));
+    }
+
+    // 圧縮保存した本文は生成列から読めないため、平文から検索語彙を書き込む
+    private void indexCompressedBody(Content content) {
+        if (content.getBodyCompressed() != null) {
+            contentRepository.updateBodySearchVector(content.getId(), content.getBody());
+        }
+    }
+
     private void createVersion(Content content, Long authorId, String changeNote) {
         ContentVersion version = ContentVersion.builder()
                 .contentId(content.getId())
@@ -215,7 +369,79 @@ public class ContentService {
                 .authorId(authorId)
                 .changeNote(changeNote)
                 .build();
-        contentVersionRepository.save(version);
+        versionStorageService.save(version, content.getUniversityId());
+    }
+
+    private Pageable pageOf(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new RuntimeException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        // 次ページの有無を判定するため1件多く取得する
+        return PageRequest.of(0, limit + 1);
+    }
+
+    private Long decodeIdCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            return Long.parseLong(CursorCodec.decode(cursor, 1)[0]);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    private Integer decodeVersionCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Integer.MAX_VALUE;
+        }
+        try {
+            return Integer.parseInt(CursorCodec.decode(cursor, 1)[0]);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    private String[] decodePublishedCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return new String[]{MAX_PUBLISHED_AT.toString(), String.valueOf(Long.MAX_VALUE)};
+        }
+        String[] parts = CursorCodec.decode(cursor, 2);
+        try {
+            LocalDateTime.parse(parts[0]);
+            Long.parseLong(parts[1]);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+        return parts;
+    }
+
+    private ContentPageResponse toIdPage(List<ContentSummaryResponse> rows, int limit, Long totalCount) {
+        boolean hasMore = rows.size() > limit;
+        List<ContentSummaryResponse> items = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? CursorCodec.encode(items.get(items.size() - 1).getId()) : null;
+        return ContentPageResponse.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .totalCount(totalCount)
+                .build();
+    }
+
+    private ContentPageResponse toPublishedPage(List<ContentSummaryResponse> rows, int limit, Long totalCount) {
+        boolean hasMore = rows.size() > limit;
+        List<ContentSummaryResponse> items = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            ContentSummaryResponse last = items.get(items.size() - 1);
+            nextCursor = CursorCodec.encode(last.getPublishedAt(), last.getId());
+        }
+        return ContentPageResponse.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .totalCount(totalCount)
+                .build();
     }
 
     private ContentResponse toResponse(Content content) {
@@ -242,6 +468,19 @@ public class ContentService {
                 .build();
     }
 
+    private ContentVersionResponse toVersionResponse(ContentVersionSummaryResponse summary) {
+        return ContentVersionResponse.builder()
+                .id(summary.getId())
+                .contentId(summary.getContentId())
+                .versionNumber(summary.getVersionNumber())
+                .title(summary.getTitle())
+                .slug(summary.getSlug())
+                .authorId(summary.getAuthorId())
+                .changeNote(summary.getChangeNote())
+                .createdAt(summary.getCreatedAt())
+                .build();
+    }
+
     private ContentVersionResponse toVersionResponse(ContentVersion version) {
         return ContentVersionResponse.builder()
                 .id(version.getId())
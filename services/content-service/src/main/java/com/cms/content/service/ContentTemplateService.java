@@ -1,12 +1,19 @@
 package com.cms.content.service;
 
+import com.cms.content.cache.CacheInvalidationBus;
+import com.cms.content.cache.CacheInvalidationEvent;
+import com.cms.content.cache.CompiledTemplateCache;
+import com.cms.content.cache.PublishedContentCache;
 import com.cms.content.dto.ContentTemplateRequest;
 import com.cms.content.dto.ContentTemplateResponse;
 import com.cms.content.entity.ContentTemplate;
 import com.cms.content.repository.ContentTemplateRepository;
+import com.cms.content.template.TemplateParser;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -15,6 +22,9 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ContentTemplateService {
     private final ContentTemplateRepository templateRepository;
+    private final CompiledTemplateCache compiledTemplateCache;
+    private final PublishedContentCache publishedContentCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
 
     public List<ContentTemplateResponse> getTemplatesByUniversity(Long universityId) {
         return templateRepository.findByUniversityIdAndActiveTrue(universityId).stream()
@@ -36,6 +46,9 @@ public class ContentTemplateService {
 
     @Transactional
     public ContentTemplateResponse createTemplate(ContentTemplateRequest request) {
+        // 構文エラーのあるテンプレートは保存しない
+        TemplateParser.parse(request.getContent());
+
         ContentTemplate template = ContentTemplate.builder()
                 .universityId(request.getUniversityId())
                 .name(request.getName())
@@ -53,6 +66,7 @@ public class ContentTemplateService {
     public ContentTemplateResponse updateTemplate(Long id, ContentTemplateRequest request) {
         ContentTemplate template = templateRepository.findByIdAndUniversityId(id, request.getUniversityId())
                 .orElseThrow(() -> new RuntimeException("Template not found"));
+        TemplateParser.parse(request.getContent());
 
         template.setName(request.getName());
         template.setContent(request.getContent());
@@ -61,6 +75,7 @@ public class ContentTemplateService {
         template.setActive(request.getActive());
 
         template = templateRepository.save(template);
+        invalidateRendered(template);
         return toResponse(template);
     }
 
@@ -69,6 +84,30 @@ public class ContentTemplateService {
         ContentTemplate template = templateRepository.findByIdAndUniversityId(id, universityId)
                 .orElseThrow(() -> new RuntimeException("Template not found"));
         templateRepository.delete(template);
+        invalidateRendered(template);
+    }
+
+    // このテンプレートで描画済みの HTML をコミット後に捨て、他レプリカにも通知する
+    private void invalidateRendered(ContentTemplate template) {
+        Long templateId = template.getId();
+        Long universityId = template.getUniversityId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    compiledTemplateCache.evict(templateId);
+                    publishedContentCache.evictRendered(universityId, templateId);
+                }
+            });
+        } else {
+            compiledTemplateCache.evict(templateId);
+            publishedContentCache.evictRendered(universityId, templateId);
+        }
+        cacheInvalidationBus.publish(CacheInvalidationEvent.builder()
+                .entityType(CacheInvalidationEvent.EntityType.CONTENT_TEMPLATE)
+                .universityId(universityId)
+                .entityId(templateId)
+                .build());
     }
 
     private ContentTemplateResponse toResponse(ContentTemplate template) {
@@ -0,0 +1,52 @@
+package com.cms.content.service;
+
+import com.cms.content.cache.VersionDiffCache;
+import com.cms.content.dto.ContentVersionDiffResponse;
+import com.cms.content.entity.ContentVersion;
+import com.cms.content.version.VersionDiff;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Objects;
+
+@Service
+@RequiredArgsConstructor
+public class ContentVersionDiffService {
+    private static final int MAX_CONTEXT_LINES = 20;
+
+    private final ContentVersionStorageService versionStorageService;
+    private final VersionDiffCache diffCache;
+
+    @Transactional(readOnly = true)
+    public ContentVersionDiffResponse diff(Long contentId, Integer fromVersion, Integer toVersion, int context) {
+        if (context < 0 || context > MAX_CONTEXT_LINES) {
+            throw new RuntimeException("Context must be between 0 and " + MAX_CONTEXT_LINES);
+        }
+        VersionDiffCache.Key key = new VersionDiffCache.Key(contentId, fromVersion, toVersion, context);
+        ContentVersionDiffResponse cached = diffCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        ContentVersion from = versionStorageService.load(contentId, fromVersion);
+        ContentVersion to = versionStorageService.load(contentId, toVersion);
+        VersionDiff diff = VersionDiff.compute(from.getBody(), to.getBody(), context);
+        ContentVersionDiffResponse response = ContentVersionDiffResponse.builder()
+                .contentId(contentId)
+                .fromVersion(fromVersion)
+                .toVersion(toVersion)
+                .fromTitle(from.getTitle())
+                .toTitle(to.getTitle())
+                .titleChanged(!Objects.equals(from.getTitle(), to.getTitle()))
+                .fromSlug(from.getSlug())
+                .toSlug(to.getSlug())
+                .slugChanged(!Objects.equals(from.getSlug(), to.getSlug()))
+                .addedLines(diff.addedLines())
+                .removedLines(diff.removedLines())
+                .hunks(diff.hunks())
+                .build();
+        diffCache.put(key, response);
+        return response;
+    }
+}
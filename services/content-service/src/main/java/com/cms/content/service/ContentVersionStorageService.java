@@ -0,0 +1,260 @@
+package com.cms.content.service;
+
+import com.cms.content.compression.ContentBodyCodec;
+import com.cms.content.dto.ContentVersionCompactionResponse;
+import com.cms.content.dto.ContentVersionStorageResponse;
+import com.cms.content.entity.ContentVersion;
+import com.cms.content.repository.ContentVersionRepository;
+import com.cms.content.version.VersionDelta;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * コンテンツのバージョン本文を「定期的な全文スナップショット + 直前バージョンからの行差分」で保存する。
+ * 復元は直近の FULL から対象バージョンまでの差分を順に適用して行う。
+ * 差分が本文の半分を超える場合や、差分の段数が snapshot-interval に達した場合は全文で保存する。
+ */
+@Slf4j
+@Service
+public class ContentVersionStorageService {
+    private static final long COMPACTION_LOCK_KEY = 0x636d735f76657273L; // "cms_vers"
+
+    private final ContentVersionRepository versionRepository;
+    private final ContentBodyCodec bodyCodec;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer reconstructionTimer;
+    private final int snapshotInterval;
+
+    public ContentVersionStorageService(
+            ContentVersionRepository versionRepository,
+            ContentBodyCodec bodyCodec,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${cms.content.versions.snapshot-interval:20}") int snapshotInterval) {
+        this.versionRepository = versionRepository;
+        this.bodyCodec = bodyCodec;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotInterval = Math.max(snapshotInterval, 1);
+        this.reconstructionTimer = Timer.builder("cms.content.version.reconstruction")
+                .description("Time to rebuild a version body from its snapshot and deltas")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 新しいバージョンを保存する。直前のバージョンの本文を復元して差分を取る。
+     * 全文で保存する場合、圧縮保存が有効な大学では大学の共有辞書で圧縮する。
+     */
+    public ContentVersion save(ContentVersion version, Long universityId) {
+        ContentVersion previous = versionRepository.findTopByContentIdOrderByVersionNumberDesc(version.getContentId())
+                .orElse(null);
+        String previousBody = null;
+        if (previous != null) {
+            previousBody = previous.getStorageType() == ContentVersion.StorageType.FULL
+                    ? previous.getBody()
+                    : load(previous.getContentId(), previous.getVersionNumber()).getBody();
+        }
+        String body = version.getBody();
+        applyStoragePlan(version, body, previous, previousBody);
+        if (version.getStorageType() == ContentVersion.StorageType.FULL) {
+            version.setStoredBody(body, bodyCodec.compress(universityId, body));
+        }
+        return versionRepository.save(version);
+    }
+
+    /**
+     * 本文を復元したバージョンを返す（永続化コンテキストに属さないコピー）。
+     */
+    public ContentVersion load(Long contentId, Integer versionNumber) {
+        List<ContentVersion> chain = versionRepository.findReconstructionChain(contentId, versionNumber);
+        if (chain.isEmpty() || !chain.get(chain.size() - 1).getVersionNumber().equals(versionNumber)) {
+            throw new RuntimeException("Version not found");
+        }
+        ContentVersion target = chain.get(chain.size() - 1);
+        return withBody(target, reconstruct(chain, target));
+    }
+
+    /**
+     * 全バージョンを新しい順に返す（先頭から一度だけ差分を適用する）。
+     */
+    public List<ContentVersion> loadAll(Long contentId) {
+        List<ContentVersion> rows = versionRepository.findByContentIdOrderByVersionNumberAsc(contentId);
+        Map<Integer, String> bodies = replay(rows);
+        List<ContentVersion> versions = new ArrayList<>(rows.size());
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            versions.add(withBody(rows.get(i), bodies.get(rows.get(i).getVersionNumber())));
+        }
+        return versions;
+    }
+
+    // 毎晩、全文のまま保存されているバージョンを差分形式に変換する
+    @Scheduled(cron = "${cms.content.versions.compaction-cron:0 15 4 * * *}")
+    public void compactScheduled() {
+        ContentVersionCompactionResponse report = compact();
+        if (report.getVersionsRewritten() > 0) {
+            log.info("Compacted content versions: {} contents, {} versions rewritten, {} -> {} bytes in {} ms",
+                    report.getContentsProcessed(), report.getVersionsRewritten(), report.getBytesBefore(),
+                    report.getBytesAfter(), report.getDurationMillis());
+        }
+    }
+
+    public ContentVersionCompactionResponse compact() {
+        long started = System.nanoTime();
+        int processed = 0;
+        int skipped = 0;
+        int rewritten = 0;
+        long bytesBefore = 0;
+        long bytesAfter = 0;
+        for (Long contentId : versionRepository.findContentIdsToCompact(snapshotInterval)) {
+            // コンテンツ単位でトランザクションを分け、他のインスタンスが同じコンテンツを処理中なら飛ばす
+            long[] result = transactionTemplate.execute(status -> compactContent(contentId));
+            if (result == null) {
+                skipped++;
+                continue;
+            }
+            processed++;
+            rewritten += (int) result[0];
+            bytesBefore += result[1];
+            bytesAfter += result[2];
+        }
+        return ContentVersionCompactionResponse.builder()
+                .contentsProcessed(processed)
+                .contentsSkipped(skipped)
+                .versionsRewritten(rewritten)
+                .bytesBefore(bytesBefore)
+                .bytesAfter(bytesAfter)
+                .durationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started))
+                .build();
+    }
+
+    public ContentVersionStorageResponse getStorageStats() {
+        ContentVersionRepository.StorageTotals totals = versionRepository.getStorageTotals();
+        return ContentVersionStorageResponse.builder()
+                .versionCount(totals.getVersionCount())
+                .fullCount(totals.getFullCount())
+                .deltaCount(totals.getVersionCount() - totals.getFullCount())
+                .storedBytes(totals.getStoredBytes())
+                .logicalBytes(totals.getLogicalBytes())
+                .savingsRatio(totals.getLogicalBytes() > 0
+                        ? 1.0 - (double) totals.getStoredBytes() / totals.getLogicalBytes()
+                        : 0.0)
+                .reconstructionCount(reconstructionTimer.count())
+                .reconstructionMeanMillis(reconstructionTimer.mean(TimeUnit.MILLISECONDS))
+                .reconstructionMaxMillis(reconstructionTimer.max(TimeUnit.MILLISECONDS))
+                .build();
+    }
+
+    // 戻り値は {書き換えた行数, 変換前のバイト数, 変換後のバイト数}。ロックが取れなければ null
+    private long[] compactContent(Long contentId) {
+        if (!versionRepository.tryAdvisoryLock(COMPACTION_LOCK_KEY ^ contentId)) {
+            return null;
+        }
+        List<ContentVersion> rows = versionRepository.findByContentIdOrderByVersionNumberAsc(contentId);
+        Map<Integer, String> bodies = replay(rows);
+        long rewritten = 0;
+        long before = 0;
+        long after = 0;
+        ContentVersion previous = null;
+        for (ContentVersion row : rows) {
+            before += storedBytes(row);
+            String body = bodies.get(row.getVersionNumber());
+            ContentVersion.StorageType storageType = row.getStorageType();
+            Integer baseVersionNumber = row.getBaseVersionNumber();
+            applyStoragePlan(row, body, previous, previous != null ? bodies.get(previous.getVersionNumber()) : null);
+            if (row.getStorageType() != storageType || !Objects.equals(row.getBaseVersionNumber(), baseVersionNumber)) {
+                rewritten++;
+            }
+            after += storedBytes(row);
+            previous = row;
+        }
+        return new long[]{rewritten, before, after};
+    }
+
+    // 全文で保存するか、直前のバージョンからの差分で保存するかを決めて version に設定する
+    private void applyStoragePlan(ContentVersion version, String body, ContentVersion previous, String previousBody) {
+        version.setBodySize(body != null ? body.getBytes(StandardCharsets.UTF_8).length : 0);
+        if (body != null && previous != null && previousBody != null
+                && previous.getDeltaDepth() + 1 < snapshotInterval) {
+            String delta = VersionDelta.encode(previousBody, body);
+            if (delta.length() * 2 < body.length()) {
+                version.setStorageType(ContentVersion.StorageType.DELTA);
+                version.setBaseVersionNumber(previous.getVersionNumber());
+                version.setBodyDelta(delta);
+                version.setDeltaDepth(previous.getDeltaDepth() + 1);
+                version.setBody(null);
+                return;
+            }
+        }
+        version.setStorageType(ContentVersion.StorageType.FULL);
+        version.setBaseVersionNumber(null);
+        version.setBodyDelta(null);
+        version.setDeltaDepth(0);
+        // 既に同じ本文を持つ行（圧縮保存された FULL を含む）はそのままにする
+        if (!Objects.equals(version.getBody(), body)) {
+            version.setBody(body);
+        }
+    }
+
+    private String reconstruct(List<ContentVersion> chain, ContentVersion target) {
+        if (target.getStorageType() == ContentVersion.StorageType.FULL) {
+            return target.getBody();
+        }
+        return reconstructionTimer.record(() -> replay(chain).get(target.getVersionNumber()));
+    }
+
+    // 古い順に並んだ行から各バージョンの本文を復元する
+    private Map<Integer, String> replay(List<ContentVersion> rows) {
+        Map<Integer, String> bodies = new HashMap<>();
+        for (ContentVersion row : rows) {
+            if (row.getStorageType() == ContentVersion.StorageType.FULL) {
+                bodies.put(row.getVersionNumber(), row.getBody());
+                continue;
+            }
+            String base = bodies.get(row.getBaseVersionNumber());
+            if (base == null) {
+                throw new IllegalStateException("Base version " + row.getBaseVersionNumber()
+                        + " is missing for content " + row.getContentId() + " version " + row.getVersionNumber());
+            }
+            bodies.put(row.getVersionNumber(), VersionDelta.apply(base, row.getBodyDelta()));
+        }
+        return bodies;
+    }
+
+    private static long storedBytes(ContentVersion version) {
+        String stored = version.getStorageType() == ContentVersion.StorageType.FULL
+                ? version.getBody()
+                : version.getBodyDelta();
+        return stored != null ? stored.getBytes(StandardCharsets.UTF_8).length : 0;
+    }
+
+    private static ContentVersion withBody(ContentVersion version, String body) {
+        return ContentVersion.builder()
+                .id(version.getId())
+                .contentId(version.getContentId())
+                .versionNumber(version.getVersionNumber())
+                .title(version.getTitle())
+                .body(body)
+                .slug(version.getSlug())
+                .authorId(version.getAuthorId())
+                .changeNote(version.getChangeNote())
+                .storageType(version.getStorageType())
+                .baseVersionNumber(version.getBaseVersionNumber())
+                .deltaDepth(version.getDeltaDepth())
+                .bodySize(version.getBodySize())
+                .createdAt(version.getCreatedAt())
+                .build();
+    }
+}
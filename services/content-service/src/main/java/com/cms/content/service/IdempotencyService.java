@@ -0,0 +1,156 @@
+package com.cms.content.service;
+
+import com.cms.content.entity.IdempotencyRecord;
+import com.cms.content.exception.ConflictException;
+import com.cms.content.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 支払い系の書き込みを冪等キー付きで実行する。
+ * - 同じキーの再送には保存済みのレスポンスを返す（処理は1回だけ実行される）
+ * - 楽観ロックの競合時は新しいトランザクションで再試行する
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int maxAttempts;
+    private final Duration ttl;
+
+    public IdempotencyService(
+            IdempotencyRecordRepository recordRepository,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            @Value("${cms.payment.idempotency.max-attempts:3}") int maxAttempts,
+            @Value("${cms.payment.idempotency.ttl:24h}") Duration ttl) {
+        this.recordRepository = recordRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.maxAttempts = maxAttempts;
+        this.ttl = ttl;
+    }
+
+    /**
+     * action を1つのトランザクションで実行し、key が指定されていれば結果を同じトランザクションで記録する。
+     * request はパス変数を含めたリクエスト内容で、同じキーでの別内容の再送を検出するために使う。
+     */
+    public <T> T execute(String scope, String key, Object request, Class<T> responseType, Supplier<T> action) {
+        String requestHash = key != null ? hash(request) : null;
+        if (key != null) {
+            if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+                throw new RuntimeException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+            }
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            // 再試行時も、競合相手が同じキーの処理であればその結果を返す
+            if (key != null) {
+                Optional<T> replay = replay(scope, key, requestHash, responseType);
+                if (replay.isPresent()) {
+                    return replay.get();
+                }
+            }
+            try {
+                return transactionTemplate.execute(status -> {
+                    T result = action.get();
+                    if (key != null) {
+                        recordRepository.saveAndFlush(IdempotencyRecord.builder()
+                                .scope(scope)
+                                .idempotencyKey(key)
+                                .requestHash(requestHash)
+                                .responseBody(toJson(result))
+                                .build());
+                    }
+                    return result;
+                });
+            } catch (DataIntegrityViolationException e) {
+                // 同じキーの並行リクエストが先にコミットした場合はその結果を返す
+                if (key != null) {
+                    Optional<T> replay = replay(scope, key, requestHash, responseType);
+                    if (replay.isPresent()) {
+                        return replay.get();
+                    }
+                }
+                throw e;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.debug("Optimistic lock conflict on {} (attempt {}/{}), retrying", scope, attempt, maxAttempts);
+                backoff(attempt);
+            }
+        }
+    }
+
+    // 期限切れの冪等キーを毎時削除する
+    @Scheduled(cron = "${cms.payment.idempotency.cleanup-cron:0 15 * * * *}")
+    @Transactional
+    public void deleteExpiredRecords() {
+        int deleted = recordRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+        if (deleted > 0) {
+            log.info("Deleted {} expired idempotency records", deleted);
+        }
+    }
+
+    private <T> Optional<T> replay(String scope, String key, String requestHash, Class<T> responseType) {
+        return recordRepository.findByScopeAndIdempotencyKey(scope, key).map(record -> {
+            if (!record.getRequestHash().equals(requestHash)) {
+                throw new ConflictException("Idempotency-Key was already used with a different request");
+            }
+            try {
+                return objectMapper.readValue(record.getResponseBody(), responseType);
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Stored idempotent response could not be read", e);
+            }
+        });
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(toJson(request).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Response could not be serialized", e);
+        }
+    }
+
+    private void backoff(int attempt) {
+        try {
+            Thread.sleep(attempt * 20L + ThreadLocalRandom.current().nextLong(20));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while retrying", e);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.cms.content.service;
+
+import com.cms.content.entity.Payment;
+import com.cms.content.entity.PaymentReconciliation;
+import com.cms.content.payment.ExportFormat;
+import com.cms.content.repository.PaymentReconciliationRepository;
+import com.cms.content.repository.PaymentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 支払い・消込データを大学単位でストリーム出力する。
+ * 行はサーバーサイドカーソルから1件ずつ読み、そのままレスポンスへ書き出す（全件をメモリに載せない）。
+ */
+@Service
+public class PaymentExportService {
+    private static final LocalDateTime MIN_DATE = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_DATE = LocalDateTime.of(9999, 12, 31, 0, 0);
+    // この件数ごとに書き出してフラッシュする（JSONL の消込情報もこの単位でまとめて取得する）
+    private static final int PAGE_SIZE = 1000;
+
+    private static final String PAYMENT_CSV_HEADER = "id,user_id,university_id,flow_id,payment_type,amount,currency,"
+            + "status,payment_method,transaction_id,paid_at,notes,created_at,updated_at";
+    private static final String RECONCILIATION_CSV_HEADER = "id,payment_id,user_id,university_id,reconciled_amount,"
+            + "status,reconciliation_method,reconciled_at,reconciled_by,notes,created_at,updated_at";
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentReconciliationRepository reconciliationRepository;
+    private final PaymentService paymentService;
+    private final PaymentReconciliationService reconciliationService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+    public PaymentExportService(PaymentRepository paymentRepository,
+                                PaymentReconciliationRepository reconciliationRepository,
+                                PaymentService paymentService,
+                                PaymentReconciliationService reconciliationService,
+                                EntityManager entityManager,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper) {
+        this.paymentRepository = paymentRepository;
+        this.reconciliationRepository = reconciliationRepository;
+        this.paymentService = paymentService;
+        this.reconciliationService = reconciliationService;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * from は作成日の下限（含む）、to は上限（含む）。null の場合は制限なし。
+     */
+    public void exportPayments(Long universityId, Collection<Payment.PaymentStatus> statuses,
+                               LocalDate from, LocalDate to, ExportFormat format, OutputStream out) {
+        Collection<Payment.PaymentStatus> statusFilter = statuses == null || statuses.isEmpty()
+                ? Arrays.asList(Payment.PaymentStatus.values())
+                : statuses;
+        export(format, out, PAYMENT_CSV_HEADER,
+                () -> paymentRepository.streamForExport(universityId, statusFilter, lowerBound(from), upperBound(to)),
+                payments -> format == ExportFormat.CSV
+                        ? payments.stream()
+                                .map(payment -> csvRow(payment.getId(), payment.getUserId(), payment.getUniversityId(),
+                                        payment.getFlowId(), payment.getPaymentType(), payment.getAmount(),
+                                        payment.getCurrency(), payment.getStatus(), payment.getPaymentMethod(),
+                                        payment.getTransactionId(), payment.getPaidAt(), payment.getNotes(),
+                                        payment.getCreatedAt(), payment.getUpdatedAt()))
+                                .collect(Collectors.toList())
+                        : paymentService.toResponses(payments).stream()
+                                .map(this::json)
+                                .collect(Collectors.toList()));
+    }
+
+    public void exportReconciliations(Long universityId,
+                                      Collection<PaymentReconciliation.ReconciliationStatus> statuses,
+                                      LocalDate from, LocalDate to, ExportFormat format, OutputStream out) {
+        Collection<PaymentReconciliation.ReconciliationStatus> statusFilter = statuses == null || statuses.isEmpty()
+                ? Arrays.asList(PaymentReconciliation.ReconciliationStatus.values())
+                : statuses;
+        export(format, out, RECONCILIATION_CSV_HEADER,
+                () -> reconciliationRepository.streamForExport(
+                        universityId, statusFilter, lowerBound(from), upperBound(to)),
+                reconciliations -> reconciliations.stream()
+                        .map(reconciliation -> format == ExportFormat.CSV
+                                ? csvRow(reconciliation.getId(), reconciliation.getPaymentId(),
+                                        reconciliation.getUserId(), reconciliation.getUniversityId(),
+                                        reconciliation.getReconciledAmount(), reconciliation.getStatus(),
+                                        reconciliation.getReconciliationMethod(), reconciliation.getReconciledAt(),
+                                        reconciliation.getReconciledBy(), reconciliation.getNotes(),
+                                        reconciliation.getCreatedAt(), reconciliation.getUpdatedAt())
+                                : json(reconciliationService.toResponse(reconciliation)))
+                        .collect(Collectors.toList()));
+    }
+
+    private <T> void export(ExportFormat format, OutputStream out, String csvHeader,
+                            Supplier<Stream<T>> rows,
+                            Function<List<T>, List<String>> toLines) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        // ストリームの間だけカーソル用のトランザクションを保持する
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<T> stream = rows.get()) {
+                if (format == ExportFormat.CSV) {
+                    writer.write('\uFEFF'); // Excelで文字化けしないようBOMを付ける
+                    writer.write(csvHeader);
+                    writer.write('\n');
+                }
+                List<T> page = new ArrayList<>(PAGE_SIZE);
+                for (T row : (Iterable<T>) stream::iterator) {
+                    page.add(row);
+                    if (page.size() == PAGE_SIZE) {
+                        writePage(writer, page, toLines);
+                    }
+                }
+                writePage(writer, page, toLines);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private <T> void writePage(Writer writer, List<T> page, Function<List<T>, List<String>> toLines)
+            throws IOException {
+        for (String line : toLines.apply(page)) {
+            writer.write(line);
+            writer.write('\n');
+        }
+        // 読み込んだエンティティを永続化コンテキストに溜めない
+        page.forEach(entityManager::detach);
+        page.clear();
+        writer.flush();
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String csvRow(Object... values) {
+        return Arrays.stream(values)
+                .map(PaymentExportService::csvValue)
+                .collect(Collectors.joining(","));
+    }
+
+    static String csvValue(Object value) {
+        String text = Objects.toString(value, "");
+        // 自由入力の文字列が Excel で数式として実行されないよう先頭に ' を付ける（数値・日時はそのまま）
+        if (value instanceof CharSequence && startsLikeFormula(text)) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+
+    private static boolean startsLikeFormula(String text) {
+        if (text.isEmpty()) {
+            return false;
+        }
+        char first = text.charAt(0);
+        return first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r';
+    }
+
+    private static LocalDateTime lowerBound(LocalDate from) {
+        return from != null ? from.atStartOfDay() : MIN_DATE;
+    }
+
+    private static LocalDateTime upperBound(LocalDate to) {
+        return to != null ? to.plusDays(1).atStartOfDay() : MAX_DATE;
+    }
+}
@@ -4,6 +4,7 @@ import com.cms.content.dto.PaymentReconciliationRequest;
 import com.cms.content.dto.PaymentReconciliationResponse;
 import com.cms.content.entity.Payment;
 import com.cms.content.entity.PaymentReconciliation;
+import com.cms.content.payment.PaymentStatusPublisher;
 import com.cms.content.repository.PaymentRepository;
 import com.cms.content.repository.PaymentReconciliationRepository;
 import lombok.RequiredArgsConstructor;
@@ -18,6 +19,8 @@ import java.util.stream.Collectors;
 public class PaymentReconciliationService {
     private final PaymentReconciliationRepository reconciliationRepository;
     private final PaymentRepository paymentRepository;
+    private final PaymentRollupService rollupService;
+    private final PaymentStatusPublisher statusPublisher;
 
     public List<PaymentReconciliationResponse> getReconciliationsByPayment(Long paymentId) {
         return reconciliationRepository.findByPaymentId(paymentId).stream()
@@ -45,13 +48,13 @@ public class PaymentReconciliationService {
 
     @Transactional
     public PaymentReconciliationResponse createReconciliation(PaymentReconciliationRequest request) {
-        // 支払いが存在するか確認
-        Payment payment = paymentRepository.findById(request.getPaymentId())
+        // 支払いが存在するか確認（並行した消込とはバージョンで競合させる）
+        Payment payment = paymentRepository.findVersionedById(request.getPaymentId())
                 .orElseThrow(() -> new RuntimeException("Payment not found"));
 
         // 既に完了した消込があるか確認
-        if (reconciliationRepository.findByPaymentIdAndStatus(
-                request.getPaymentId(), PaymentReconciliation.ReconciliationStatus.COMPLETED).isPresent()) {
+        if (reconciliationRepository.existsByPaymentIdAndStatus(
+                request.getPaymentId(), PaymentReconciliation.ReconciliationStatus.COMPLETED)) {
             throw new RuntimeException("Payment already reconciled");
         }
 
@@ -70,8 +73,7 @@ public class PaymentReconciliationService {
 
         // 消込が完了した場合、支払いステータスを更新
         if (reconciliation.getStatus() == PaymentReconciliation.ReconciliationStatus.COMPLETED) {
-            payment.setStatus(Payment.PaymentStatus.COMPLETED);
-            paymentRepository.save(payment);
+            completePayment(payment);
         }
 
         return toResponse(reconciliation);
@@ -92,10 +94,7 @@ public class PaymentReconciliationService {
 
         // 消込が完了した場合、支払いステータスを更新
         if (reconciliation.getStatus() == PaymentReconciliation.ReconciliationStatus.COMPLETED) {
-            Payment payment = paymentRepository.findById(reconciliation.getPaymentId())
-                    .orElseThrow(() -> new RuntimeException("Payment not found"));
-            payment.setStatus(Payment.PaymentStatus.COMPLETED);
-            paymentRepository.save(payment);
+            completePayment(lockPaymentForCompletion(reconciliation));
         }
 
         return toResponse(reconciliation);
@@ -111,10 +110,7 @@ public class PaymentReconciliationService {
         reconciliation = reconciliationRepository.save(reconciliation);
 
         // 支払いステータスを更新
-        Payment payment = paymentRepository.findById(reconciliation.getPaymentId())
-                .orElseThrow(() -> new RuntimeException("Payment not found"));
-        payment.setStatus(Payment.PaymentStatus.COMPLETED);
-        paymentRepository.save(payment);
+        completePayment(lockPaymentForCompletion(reconciliation));
 
         return toResponse(reconciliation);
     }
@@ -126,7 +122,28 @@ public class PaymentReconciliationService {
         reconciliationRepository.delete(reconciliation);
     }
 
-    private PaymentReconciliationResponse toResponse(PaymentReconciliation reconciliation) {
+    // 同じ支払いに他の完了済み消込がないことを確認し、支払いのバージョンを進める
+    private Payment lockPaymentForCompletion(PaymentReconciliation reconciliation) {
+        Payment payment = paymentRepository.findVersionedById(reconciliation.getPaymentId())
+                .orElseThrow(() -> new RuntimeException("Payment not found"));
+        if (reconciliationRepository.existsByPaymentIdAndStatusAndIdNot(
+                reconciliation.getPaymentId(), PaymentReconciliation.ReconciliationStatus.COMPLETED,
+                reconciliation.getId())) {
+            throw new RuntimeException("Payment already reconciled");
+        }
+        return payment;
+    }
+
+    private void completePayment(Payment payment) {
+        PaymentRollupService.PaymentState before = PaymentRollupService.PaymentState.of(payment);
+        payment.setStatus(Payment.PaymentStatus.COMPLETED);
+        // @PreUpdate で設定される paidAt を集計に反映するためフラッシュする
+        payment = paymentRepository.saveAndFlush(payment);
+        rollupService.recordChange(before, PaymentRollupService.PaymentState.of(payment));
+        statusPublisher.publishIfChanged(payment, before.status());
+    }
+
+    PaymentReconciliationResponse toResponse(PaymentReconciliation reconciliation) {
         return PaymentReconciliationResponse.builder()
                 .id(reconciliation.getId())
                 .paymentId(reconciliation.getPaymentId())
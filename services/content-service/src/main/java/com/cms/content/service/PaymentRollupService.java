@@ -0,0 +1,206 @@
+package com.cms.content.service;
+
+import com.cms.content.dto.PaymentTotalResponse;
+import com.cms.content.entity.Payment;
+import com.cms.content.entity.PaymentDailyTotal;
+import com.cms.content.repository.PaymentDailyTotalRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PaymentRollupService {
+    private static final long REBUILD_LOCK_KEY = 0x636d735f706179L; // "cms_pay"
+    private static final long TOTALS_WRITE_LOCK_KEY = 0x636d735f70746f74L; // "cms_ptot"
+
+    private final PaymentDailyTotalRepository dailyTotalRepository;
+
+    /**
+     * 期間内の合計をフロー×支払い種別×ステータスごとに返す。期間の指定がない場合は当月。
+     */
+    public List<PaymentTotalResponse> getTotals(Long universityId, LocalDate from, LocalDate to,
+                                                Collection<Payment.PaymentStatus> statuses) {
+        Map<TotalKey, PaymentTotalResponse> totals = new LinkedHashMap<>();
+        for (PaymentDailyTotal daily : findDailyTotals(universityId, from, to, statuses)) {
+            TotalKey key = new TotalKey(daily.getFlowId(), daily.getPaymentType(), daily.getStatus());
+            PaymentTotalResponse total = totals.computeIfAbsent(key, k -> PaymentTotalResponse.builder()
+                    .universityId(universityId)
+                    .flowId(k.flowId())
+                    .paymentType(k.paymentType())
+                    .status(k.status())
+                    .totalAmount(BigDecimal.ZERO)
+                    .paymentCount(0L)
+                    .build());
+            total.setTotalAmount(total.getTotalAmount().add(daily.getTotalAmount()));
+            total.setPaymentCount(total.getPaymentCount() + daily.getPaymentCount());
+        }
+        return totals.values().stream()
+                .filter(total -> total.getPaymentCount() != 0)
+                .collect(Collectors.toList());
+    }
+
+    public List<PaymentTotalResponse> getDailyTotals(Long universityId, LocalDate from, LocalDate to,
+                                                     Collection<Payment.PaymentStatus> statuses) {
+        return findDailyTotals(universityId, from, to, statuses).stream()
+                .filter(daily -> daily.getPaymentCount() != 0)
+                .map(daily -> PaymentTotalResponse.builder()
+                        .universityId(daily.getUniversityId())
+                        .flowId(daily.getFlowId())
+                        .paymentType(daily.getPaymentType())
+                        .status(daily.getStatus())
+                        .businessDate(daily.getBusinessDate())
+                        .totalAmount(daily.getTotalAmount())
+                        .paymentCount(daily.getPaymentCount())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 支払いの変更を集計テーブルに反映する。支払いの更新と同じトランザクションで呼び出すこと。
+     * before が null の場合は新規作成、after が null の場合は削除を表す。
+     */
+    @Transactional
+    public void recordChange(PaymentState before, PaymentState after) {
+        recordChanges(List.of(new PaymentChange(before, after)));
+    }
+
+    @Transactional
+    public void recordChanges(Collection<PaymentChange> changes) {
+        Map<PaymentState.Key, Delta> deltas = new LinkedHashMap<>();
+        for (PaymentChange change : changes) {
+            if (Objects.equals(change.before(), change.after())) {
+                continue;
+            }
+            if (change.before() != null) {
+                deltas.computeIfAbsent(change.before().key(), k -> new Delta())
+                        .add(change.before().amount().negate(), -1);
+            }
+            if (change.after() != null) {
+                deltas.computeIfAbsent(change.after().key(), k -> new Delta())
+                        .add(change.after().amount(), 1);
+            }
+        }
+        deltas.values().removeIf(delta -> delta.count == 0 && delta.amount.signum() == 0);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        dailyTotalRepository.acquireSharedAdvisoryLock(TOTALS_WRITE_LOCK_KEY);
+        deltas.forEach((key, delta) -> dailyTotalRepository.addTotal(key.universityId(), key.flowId(),
+                key.paymentType(), key.status().name(), key.businessDate(), delta.amount, delta.count));
+    }
+
+    // 集計テーブルが空のまま起動した場合（初回デプロイ時など）は既存の支払いから構築する
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initializeTotals() {
+        if (dailyTotalRepository.count() == 0) {
+            rebuild();
+        }
+    }
+
+    // 毎晩、集計テーブルを payments の実データから再構築して差分のずれを解消する
+    @Scheduled(cron = "${cms.analytics.payment-rebuild-cron:0 30 3 * * *}")
+    @Transactional
+    public void rebuildTotals() {
+        rebuild();
+    }
+
+    private void rebuild() {
+        if (!dailyTotalRepository.tryAdvisoryLock(REBUILD_LOCK_KEY)) {
+            log.info("Skipping payment totals rebuild: another instance is running it");
+            return;
+        }
+        // 実行中の差分反映のコミットを待ち、再構築が終わるまで新たな反映を止める
+        dailyTotalRepository.acquireAdvisoryLock(TOTALS_WRITE_LOCK_KEY);
+        int deleted = dailyTotalRepository.deleteAllTotals();
+        int rebuilt = dailyTotalRepository.rebuildTotals();
+        log.info("Rebuilt payment daily totals: {} rows replaced by {} rows", deleted, rebuilt);
+    }
+
+    private List<PaymentDailyTotal> findDailyTotals(Long universityId, LocalDate from, LocalDate to,
+                                                    Collection<Payment.PaymentStatus> statuses) {
+        LocalDate today = LocalDate.now();
+        LocalDate start = from != null ? from : today.withDayOfMonth(1);
+        LocalDate end = to != null ? to : today.withDayOfMonth(today.lengthOfMonth());
+        if (statuses == null || statuses.isEmpty()) {
+            return dailyTotalRepository.findByUniversityIdAndBusinessDateBetweenOrderByBusinessDateAsc(
+                    universityId, start, end);
+        }
+        return dailyTotalRepository.findByUniversityIdAndStatusInAndBusinessDateBetweenOrderByBusinessDateAsc(
+                universityId, statuses, start, end);
+    }
+
+    /**
+     * 集計に関わる支払いの属性。変更前の値は支払いを書き換える前に取得しておくこと。
+     */
+    public record PaymentState(Long universityId, Long flowId, String paymentType, Payment.PaymentStatus status,
+                               BigDecimal amount, LocalDate businessDate) {
+        public static PaymentState of(Payment payment) {
+            return new PaymentState(payment.getUniversityId(), payment.getFlowId(), payment.getPaymentType(),
+                    payment.getStatus(), payment.getAmount(), businessDate(payment));
+        }
+
+        // 再構築SQLの COALESCE(paid_at, created_at) と同じ規則。paidAt は @PreUpdate で設定されるため、
+        // 完了に変わる更新ではフラッシュ後の支払いから取得すること
+        private static LocalDate businessDate(Payment payment) {
+            if (payment.getPaidAt() != null) {
+                return payment.getPaidAt().toLocalDate();
+            }
+            if (payment.getCreatedAt() != null) {
+                return payment.getCreatedAt().toLocalDate();
+            }
+            return LocalDate.now();
+        }
+
+        Key key() {
+            return new Key(universityId, flowId, paymentType, status, businessDate);
+        }
+
+        record Key(Long universityId, Long flowId, String paymentType, Payment.PaymentStatus status,
+                   LocalDate businessDate) {
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof PaymentState other
+                    && key().equals(other.key())
+                    && amount.compareTo(other.amount) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return key().hashCode();
+        }
+    }
+
+    public record PaymentChange(PaymentState before, PaymentState after) {
+    }
+
+    private record TotalKey(Long flowId, String paymentType, Payment.PaymentStatus status) {
+    }
+
+    private static class Delta {
+        private BigDecimal amount = BigDecimal.ZERO;
+        private long count;
+
+        void add(BigDecimal amountDelta, long countDelta) {
+            amount = amount.add(amountDelta);
+            count += countDelta;
+        }
+    }
+}
@@ -1,47 +1,90 @@
 package com.cms.content.service;
 
+import com.cms.content.dto.PaymentCallbackRequest;
+import com.cms.content.dto.PaymentPageResponse;
 import com.cms.content.dto.PaymentRequest;
 import com.cms.content.dto.PaymentResponse;
 import com.cms.content.dto.PaymentReconciliationResponse;
 import com.cms.content.entity.Payment;
 import com.cms.content.entity.PaymentReconciliation;
+import com.cms.content.exception.ConflictException;
+import com.cms.content.payment.PaymentStatusPublisher;
 import com.cms.content.repository.PaymentRepository;
 import com.cms.content.repository.PaymentReconciliationRepository;
+import com.cms.content.repository.ProcedureFlowRepository;
+import com.cms.content.repository.ProcedureStepRepository;
+import com.cms.content.util.CursorCodec;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class PaymentService {
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int RECONCILIATION_BATCH_SIZE = 1000;
+    // 決済代行会社からの通知で許す遷移（完了後は返金のみ、失敗・返金・キャンセルからは変更しない）
+    private static final Map<Payment.PaymentStatus, Set<Payment.PaymentStatus>> CALLBACK_TRANSITIONS = Map.of(
+            Payment.PaymentStatus.PENDING, EnumSet.of(Payment.PaymentStatus.PROCESSING,
+                    Payment.PaymentStatus.COMPLETED, Payment.PaymentStatus.FAILED, Payment.PaymentStatus.CANCELLED),
+            Payment.PaymentStatus.PROCESSING, EnumSet.of(Payment.PaymentStatus.COMPLETED,
+                    Payment.PaymentStatus.FAILED, Payment.PaymentStatus.CANCELLED),
+            Payment.PaymentStatus.COMPLETED, EnumSet.of(Payment.PaymentStatus.REFUNDED));
+
     private final PaymentRepository paymentRepository;
+    private final ProcedureFlowRepository flowRepository;
+    private final ProcedureStepRepository stepRepository;
     private final PaymentReconciliationRepository reconciliationRepository;
+    private final PaymentRollupService rollupService;
+    private final PaymentStatusPublisher statusPublisher;
 
     public List<PaymentResponse> getPaymentsByUser(Long userId) {
-        return paymentRepository.findByUserId(userId).stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+        return toResponses(paymentRepository.findByUserId(userId));
     }
 
     public List<PaymentResponse> getPaymentsByUniversity(Long universityId) {
-        return paymentRepository.findByUniversityId(universityId).stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+        return toResponses(paymentRepository.findByUniversityId(universityId));
     }
 
     public List<PaymentResponse> getPaymentsByUserAndUniversity(Long userId, Long universityId) {
-        return paymentRepository.findByUserIdAndUniversityId(userId, universityId).stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+        return toResponses(paymentRepository.findByUserIdAndUniversityId(userId, universityId));
     }
 
     public List<PaymentResponse> getPaymentsByFlow(Long flowId) {
-        return paymentRepository.findByFlowId(flowId).stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+        return toResponses(paymentRepository.findByFlowId(flowId));
+    }
+
+    public PaymentPageResponse getPaymentsByUniversityPage(Long universityId, Payment.PaymentStatus status,
+                                                           String cursor, int limit, boolean includeTotal) {
+        Long afterId = decodeIdCursor(cursor);
+        List<Payment> rows = status == null
+                ? paymentRepository.findByUniversityIdAndIdLessThanOrderByIdDesc(universityId, afterId, pageOf(limit))
+                : paymentRepository.findByUniversityIdAndStatusAndIdLessThanOrderByIdDesc(
+                        universityId, status, afterId, pageOf(limit));
+        Long totalCount = null;
+        if (includeTotal) {
+            totalCount = status == null
+                    ? paymentRepository.countByUniversityId(universityId)
+                    : paymentRepository.countByUniversityIdAndStatus(universityId, status);
+        }
+
+        boolean hasMore = rows.size() > limit;
+        List<Payment> items = hasMore ? rows.subList(0, limit) : rows;
+        return PaymentPageResponse.builder()
+                .items(toResponses(items))
+                .nextCursor(hasMore ? CursorCodec.encode(items.get(items.size() - 1).getId()) : null)
+                .hasMore(hasMore)
+                .totalCount(totalCount)
+                .build();
     }
 
     public PaymentResponse getPaymentById(Long id, Long userId) {
@@ -50,22 +93,58 @@ public class PaymentService {
         return toResponse(payment);
     }
 
+    public PaymentResponse getPaymentByTransactionId(String transactionId) {
+        return toResponse(findByTransactionId(transactionId));
+    }
+
+    // 決済代行会社からのステータス通知（取引IDで支払いを特定する）
+    @Transactional
+    public PaymentResponse applyGatewayCallback(String transactionId, PaymentCallbackRequest request) {
+        Payment payment = findByTransactionId(transactionId);
+        if (payment.getStatus() == request.getStatus()) {
+            return toResponse(payment);
+        }
+        // 遅れて届いた古い通知で完了済みの支払いを未払いに戻したりしない
+        if (!CALLBACK_TRANSITIONS.getOrDefault(payment.getStatus(), Set.of()).contains(request.getStatus())) {
+            throw new ConflictException("Payment status cannot change from "
+                    + payment.getStatus() + " to " + request.getStatus());
+        }
+        PaymentRollupService.PaymentState before = PaymentRollupService.PaymentState.of(payment);
+
+        payment.setStatus(request.getStatus());
+        if (request.getPaymentMethod() != null) {
+            payment.setPaymentMethod(request.getPaymentMethod());
+        }
+        if (request.getPaidAt() != null && request.getStatus() == Payment.PaymentStatus.COMPLETED) {
+            payment.setPaidAt(request.getPaidAt());
+        }
+
+        payment = paymentRepository.saveAndFlush(payment);
+        rollupService.recordChange(before, PaymentRollupService.PaymentState.of(payment));
+        statusPublisher.publishIfChanged(payment, before.status());
+        return toResponse(payment);
+    }
+
     @Transactional
     public PaymentResponse createPayment(PaymentRequest request) {
+        validateStep(request.getStepId(), request.getFlowId(), request.getUniversityId());
         Payment payment = Payment.builder()
                 .userId(request.getUserId())
                 .universityId(request.getUniversityId())
                 .flowId(request.getFlowId())
+                .stepId(request.getStepId())
                 .paymentType(request.getPaymentType())
                 .amount(request.getAmount())
                 .currency(request.getCurrency())
                 .status(request.getStatus())
                 .paymentMethod(request.getPaymentMethod())
-                .transactionId(request.getTransactionId())
+                .transactionId(normalizeTransactionId(request.getTransactionId()))
                 .notes(request.getNotes())
                 .build();
 
         payment = paymentRepository.save(payment);
+        rollupService.recordChange(null, PaymentRollupService.PaymentState.of(payment));
+        statusPublisher.publishIfChanged(payment, null);
         return toResponse(payment);
     }
 
@@ -73,16 +152,25 @@ public class PaymentService {
     public PaymentResponse updatePayment(Long id, PaymentRequest request) {
         Payment payment = paymentRepository.findByIdAndUserId(id, request.getUserId())
                 .orElseThrow(() -> new RuntimeException("Payment not found"));
+        if (request.getVersion() != null && !request.getVersion().equals(payment.getVersion())) {
+            throw new ConflictException("Payment was modified by another request");
+        }
+        PaymentRollupService.PaymentState before = PaymentRollupService.PaymentState.of(payment);
+        validateStep(request.getStepId(), payment.getFlowId(), payment.getUniversityId());
 
+        payment.setStepId(request.getStepId());
         payment.setPaymentType(request.getPaymentType());
         payment.setAmount(request.getAmount());
         payment.setCurrency(request.getCurrency());
         payment.setStatus(request.getStatus());
         payment.setPaymentMethod(request.getPaymentMethod());
-        payment.setTransactionId(request.getTransactionId());
+        payment.setTransactionId(normalizeTransactionId(request.getTransactionId()));
         payment.setNotes(request.getNotes());
 
-        payment = paymentRepository.save(payment);
+        // @PreUpdate で設定される paidAt を集計に反映するためフラッシュする
+        payment = paymentRepository.saveAndFlush(payment);
+        rollupService.recordChange(before, PaymentRollupService.PaymentState.of(payment));
+        statusPublisher.publishIfChanged(payment, before.status());
         return toResponse(payment);
     }
 
@@ -90,9 +178,12 @@ public class PaymentService {
     public PaymentResponse completePayment(Long id, Long userId) {
         Payment payment = paymentRepository.findByIdAndUserId(id, userId)
                 .orElseThrow(() -> new RuntimeException("Payment not found"));
+        PaymentRollupService.PaymentState before = PaymentRollupService.PaymentState.of(payment);
 
         payment.setStatus(Payment.PaymentStatus.COMPLETED);
-        payment = paymentRepository.save(payment);
+        payment = paymentRepository.saveAndFlush(payment);
+        rollupService.recordChange(before, PaymentRollupService.PaymentState.of(payment));
+        statusPublisher.publishIfChanged(payment, before.status());
         return toResponse(payment);
     }
 
@@ -101,13 +192,77 @@ public class PaymentService {
         Payment payment = paymentRepository.findByIdAndUserId(id, userId)
                 .orElseThrow(() -> new RuntimeException("Payment not found"));
         paymentRepository.delete(payment);
+        rollupService.recordChange(PaymentRollupService.PaymentState.of(payment), null);
+    }
+
+    // 決済代行会社からの通知は取引IDだけで届くため、一意制約のインデックスで引く
+    private Payment findByTransactionId(String transactionId) {
+        return paymentRepository.findByTransactionId(transactionId)
+                .orElseThrow(() -> new RuntimeException("Payment not found"));
+    }
+
+    // 支払いに紐付けるステップは、支払いのフロー（かつ同じ大学のフロー）に属していること
+    private void validateStep(Long stepId, Long flowId, Long universityId) {
+        if (stepId == null) {
+            return;
+        }
+        flowRepository.findByIdAndUniversityId(flowId, universityId)
+                .flatMap(flow -> stepRepository.findByIdAndFlowId(stepId, flow.getId()))
+                .orElseThrow(() -> new RuntimeException("Step not found"));
+    }
+
+    // 空文字の取引IDは一意制約に引っかかるため null として保存する
+    private static String normalizeTransactionId(String transactionId) {
+        return transactionId == null || transactionId.isBlank() ? null : transactionId.trim();
+    }
+
+    private Pageable pageOf(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new RuntimeException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        // 次ページの有無を判定するため1件多く取得する
+        return PageRequest.of(0, limit + 1);
+    }
+
+    private Long decodeIdCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            return Long.parseLong(CursorCodec.decode(cursor, 1)[0]);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    // 消込情報を IN 句でまとめて取得する（支払い1件ごとの問い合わせを避ける）
+    List<PaymentResponse> toResponses(List<Payment> payments) {
+        Map<Long, PaymentReconciliation> reconciliationsByPaymentId = new HashMap<>();
+        for (int from = 0; from < payments.size(); from += RECONCILIATION_BATCH_SIZE) {
+            List<Long> paymentIds = payments.subList(from, Math.min(from + RECONCILIATION_BATCH_SIZE, payments.size()))
+                    .stream()
+                    .map(Payment::getId)
+                    .collect(Collectors.toList());
+            reconciliationRepository.findByPaymentIdInAndStatus(
+                            paymentIds, PaymentReconciliation.ReconciliationStatus.COMPLETED)
+                    .forEach(r -> reconciliationsByPaymentId.merge(r.getPaymentId(), r, PaymentService::latest));
+        }
+        return payments.stream()
+                .map(payment -> toResponse(payment, reconciliationsByPaymentId.get(payment.getId())))
+                .collect(Collectors.toList());
+    }
+
+    private static PaymentReconciliation latest(PaymentReconciliation a, PaymentReconciliation b) {
+        return a.getId() >= b.getId() ? a : b;
     }
 
     private PaymentResponse toResponse(Payment payment) {
-        PaymentReconciliation reconciliation = reconciliationRepository
-                .findByPaymentIdAndStatus(payment.getId(), PaymentReconciliation.ReconciliationStatus.COMPLETED)
-                .orElse(null);
+        List<PaymentReconciliation> reconciliations = reconciliationRepository.findByPaymentIdInAndStatus(
+                List.of(payment.getId()), PaymentReconciliation.ReconciliationStatus.COMPLETED);
+        return toResponse(payment, reconciliations.stream().reduce(PaymentService::latest).orElse(null));
+    }
 
+    PaymentResponse toResponse(Payment payment, PaymentReconciliation reconciliation) {
         PaymentReconciliationResponse reconciliationResponse = null;
         if (reconciliation != null) {
             reconciliationResponse = PaymentReconciliationResponse.builder()
@@ -131,6 +286,7 @@ public class PaymentService {
                 .userId(payment.getUserId())
                 .universityId(payment.getUniversityId())
                 .flowId(payment.getFlowId())
+                .stepId(payment.getStepId())
                 .paymentType(payment.getPaymentType())
                 .amount(payment.getAmount())
                 .currency(payment.getCurrency())
@@ -140,6 +296,7 @@ public class PaymentService {
                 .paidAt(payment.getPaidAt())
                 .notes(payment.getNotes())
                 .reconciliation(reconciliationResponse)
+                .version(payment.getVersion())
                 .createdAt(payment.getCreatedAt())
                 .updatedAt(payment.getUpdatedAt())
                 .build();
@@ -1,9 +1,15 @@
 package com.cms.content.service;
 
+import com.cms.content.cache.CacheInvalidationBus;
+import com.cms.content.cache.CacheInvalidationEvent;
 import com.cms.content.dto.*;
 import com.cms.content.entity.ProcedureFlow;
 import com.cms.content.entity.ProcedureProgress;
 import com.cms.content.entity.ProcedureStep;
+import com.cms.content.procedure.ProcedureFlowGraph;
+import com.cms.content.procedure.ProcedureFlowGraphCache;
+import com.cms.content.procedure.ProcedureProgressSnapshot;
+import com.cms.content.procedure.ProcedureProgressSnapshotCache;
 import com.cms.content.repository.ProcedureFlowRepository;
 import com.cms.content.repository.ProcedureProgressRepository;
 import com.cms.content.repository.ProcedureStepRepository;
@@ -11,7 +17,13 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,58 +32,63 @@ public class ProcedureFlowService {
     private final ProcedureFlowRepository flowRepository;
     private final ProcedureStepRepository stepRepository;
     private final ProcedureProgressRepository progressRepository;
+    private final ProcedureFlowGraphCache flowGraphCache;
+    private final ProcedureProgressSnapshotCache progressSnapshotCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
 
-    public List<ProcedureFlowResponse> getFlowsByUniversity(Long universityId) {
-        return flowRepository.findByUniversityIdAndActiveTrue(universityId).stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+    public List<ProcedureFlowResponse> getFlowsByUniversity(Long universityId, boolean includeSteps) {
+        return toResponses(flowRepository.findByUniversityIdAndActiveTrue(universityId), includeSteps);
     }
 
-    public List<ProcedureFlowResponse> getFlowsByType(Long universityId, String flowType) {
-        return flowRepository.findByUniversityIdAndFlowTypeAndActiveTrue(universityId, flowType).stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+    public List<ProcedureFlowResponse> getFlowsByType(Long universityId, String flowType, boolean includeSteps) {
+        return toResponses(
+                flowRepository.findByUniversityIdAndFlowTypeAndActiveTrue(universityId, flowType), includeSteps);
     }
 
     public ProcedureFlowDetailResponse getFlowDetail(Long id, Long universityId, Long userId) {
         ProcedureFlow flow = flowRepository.findByIdAndUniversityId(id, universityId)
                 .orElseThrow(() -> new RuntimeException("Flow not found"));
 
-        List<ProcedureStep> steps = stepRepository.findByFlowIdAndActiveTrueOrderByStepOrderAsc(id);
-        
+        // グラフはキャッシュの世代確認の後に読み込んだステップからコンパイルさせる。
+        // キャッシュになかった場合は、そのとき読み込んだステップ一覧をレスポンスにも使う
+        AtomicReference<List<ProcedureStep>> loadedSteps = new AtomicReference<>();
+        ProcedureFlowGraph graph = flowGraphCache.get(id, () -> {
+            List<ProcedureStep> activeSteps = stepRepository.findByFlowIdAndActiveTrueOrderByStepOrderAsc(id);
+            loadedSteps.set(activeSteps);
+            return activeSteps;
+        });
+        List<ProcedureStep> steps = loadedSteps.get() != null
+            ? loadedSteps.get()
+            : stepRepository.findByFlowIdAndActiveTrueOrderByStepOrderAsc(id);
+
+        // 進捗行（フロー外の依存先を含む）は1回だけ読み込み、スナップショットの構築にも同じ行を使う
+        List<ProcedureProgress> progressRows = userId != null
+            ? loadProgressRows(userId, id, graph)
+            : List.of();
+        Map<Long, ProcedureProgress> progressByStepId = new HashMap<>();
+        for (ProcedureProgress progress : progressRows) {
+            progressByStepId.put(progress.getStepId(), progress);
+        }
+
+        // ステップの状態・開始可否・集計値はすべてスナップショットから取り、1つのレスポンス内で食い違わないようにする
+        ProcedureProgressSnapshot snapshot = userId != null
+            ? progressSnapshotCache.get(userId, id, graph, () -> progressRows)
+            : ProcedureProgressSnapshot.build(graph, List.of());
+        BitSet blocked = snapshot.blocked();
+
         List<ProcedureStepWithProgressResponse> stepsWithProgress = steps.stream()
                 .map(step -> {
-                    ProcedureProgress.ProgressStatus progressStatus = ProcedureProgress.ProgressStatus.NOT_STARTED;
-                    ProcedureProgress progress = null;
-                    if (userId != null) {
-                        progress = progressRepository.findByUserIdAndStepId(userId, step.getId()).orElse(null);
-                        if (progress != null) {
-                            progressStatus = progress.getStatus();
-                        }
-                    }
+                    ProcedureProgress progress = progressByStepId.get(step.getId());
+                    // グラフに未反映のステップ（無効化の到着前に追加されたもの）は進捗行の状態を使う
+                    int index = graph.indexOf(step.getId());
+                    ProcedureProgress.ProgressStatus progressStatus = index >= 0
+                        ? snapshot.statusOf(step.getId())
+                        : progress != null ? progress.getStatus() : ProcedureProgress.ProgressStatus.NOT_STARTED;
 
                     // 依存ステップの完了チェック
-                    Boolean canStart = true;
-                    if (step.getDependsOnStepIds() != null && !step.getDependsOnStepIds().isEmpty()) {
-                        String[] dependsOnIds = step.getDependsOnStepIds().split(",");
-                        for (String dependsOnId : dependsOnIds) {
-                            try {
-                                Long dependsOnStepId = Long.parseLong(dependsOnId.trim());
-                                ProcedureProgress dependsOnProgress = userId != null 
-                                    ? progressRepository.findByUserIdAndStepId(userId, dependsOnStepId).orElse(null)
-                                    : null;
-                                if (dependsOnProgress == null || 
-                                    dependsOnProgress.getStatus() != ProcedureProgress.ProgressStatus.COMPLETED) {
-                                    canStart = false;
-                                    if (progressStatus == ProcedureProgress.ProgressStatus.NOT_STARTED) {
-                                        progressStatus = ProcedureProgress.ProgressStatus.BLOCKED;
-                                    }
-                                    break;
-                                }
-                            } catch (NumberFormatException e) {
-                                // 無効なIDは無視
-                            }
-                        }
+                    Boolean canStart = index < 0 || !blocked.get(index);
+                    if (!canStart && progressStatus == ProcedureProgress.ProgressStatus.NOT_STARTED) {
+                        progressStatus = ProcedureProgress.ProgressStatus.BLOCKED;
                     }
 
                     return ProcedureStepWithProgressResponse.builder()
@@ -96,14 +113,10 @@ public class ProcedureFlowService {
                 })
                 .collect(Collectors.toList());
 
-        // 統計情報の計算
-        Long totalSteps = (long) steps.size();
-        Long completedSteps = userId != null 
-            ? progressRepository.countByUserIdAndFlowIdAndStatus(userId, id, ProcedureProgress.ProgressStatus.COMPLETED)
-            : 0L;
-        Long inProgressSteps = userId != null
-            ? progressRepository.countByUserIdAndFlowIdAndStatus(userId, id, ProcedureProgress.ProgressStatus.IN_PROGRESS)
-            : 0L;
+        // 統計情報の計算（スナップショットの集計値を使用）
+        Long totalSteps = (long) snapshot.totalSteps();
+        Long completedSteps = (long) snapshot.completedSteps();
+        Long inProgressSteps = (long) snapshot.inProgressSteps();
         Long notStartedSteps = totalSteps - completedSteps - inProgressSteps;
         Double completionRate = totalSteps > 0 ? (completedSteps.doubleValue() / totalSteps.doubleValue()) * 100 : 0.0;
 
@@ -126,6 +139,40 @@ public class ProcedureFlowService {
                 .build();
     }
 
+    public ProcedureFlowProgressSummaryResponse getFlowProgressSummary(Long id, Long universityId, Long userId) {
+        flowRepository.findByIdAndUniversityId(id, universityId)
+                .orElseThrow(() -> new RuntimeException("Flow not found"));
+
+        ProcedureFlowGraph graph = flowGraphCache.get(id,
+                () -> stepRepository.findByFlowIdAndActiveTrueOrderByStepOrderAsc(id));
+        ProcedureProgressSnapshot snapshot = progressSnapshotCache.get(userId, id, graph,
+                () -> loadProgressRows(userId, id, graph));
+
+        BitSet blocked = snapshot.blocked();
+        List<Long> blockedStepIds = new ArrayList<>();
+        for (int index = blocked.nextSetBit(0); index >= 0; index = blocked.nextSetBit(index + 1)) {
+            long stepId = graph.stepIdAt(index);
+            ProcedureProgress.ProgressStatus status = snapshot.statusOf(stepId);
+            if (status == ProcedureProgress.ProgressStatus.NOT_STARTED) {
+                blockedStepIds.add(stepId);
+            }
+        }
+
+        long totalSteps = snapshot.totalSteps();
+        long completedSteps = snapshot.completedSteps();
+        long inProgressSteps = snapshot.inProgressSteps();
+        return ProcedureFlowProgressSummaryResponse.builder()
+                .flowId(id)
+                .userId(userId)
+                .totalSteps(totalSteps)
+                .completedSteps(completedSteps)
+                .inProgressSteps(inProgressSteps)
+                .notStartedSteps(totalSteps - completedSteps - inProgressSteps)
+                .completionRate(totalSteps > 0 ? ((double) completedSteps / totalSteps) * 100 : 0.0)
+                .blockedStepIds(blockedStepIds)
+                .build();
+    }
+
     @Transactional
     public ProcedureFlowResponse createFlow(ProcedureFlowRequest request) {
         ProcedureFlow flow = ProcedureFlow.builder()
@@ -161,6 +208,43 @@ public class ProcedureFlowService {
         ProcedureFlow flow = flowRepository.findByIdAndUniversityId(id, universityId)
                 .orElseThrow(() -> new RuntimeException("Flow not found"));
         flowRepository.delete(flow);
+        flowGraphCache.evictAfterCommit(id);
+        cacheInvalidationBus.publish(CacheInvalidationEvent.builder()
+                .entityType(CacheInvalidationEvent.EntityType.PROCEDURE_FLOW)
+                .universityId(universityId)
+                .entityId(id)
+                .build());
+    }
+
+    // スナップショット構築用の進捗行（キャッシュの世代確認の後に読み込む）
+    private List<ProcedureProgress> loadProgressRows(Long userId, Long flowId, ProcedureFlowGraph graph) {
+        List<ProcedureProgress> rows = new ArrayList<>(progressRepository.findByUserIdAndFlowId(userId, flowId));
+        if (graph.hasExternalDependencies()) {
+            List<Long> externalStepIds = Arrays.stream(graph.externalDependsOnStepIds())
+                    .boxed()
+                    .collect(Collectors.toList());
+            rows.addAll(progressRepository.findByUserIdAndStepIdIn(userId, externalStepIds));
+        }
+        return rows;
+    }
+
+    // 一覧表示用: 対象フローのステップを1回のIN検索でまとめて取得する
+    private List<ProcedureFlowResponse> toResponses(List<ProcedureFlow> flows, boolean includeSteps) {
+        if (!includeSteps || flows.isEmpty()) {
+            return flows.stream()
+                    .map(flow -> toResponse(flow, null))
+                    .collect(Collectors.toList());
+        }
+
+        List<Long> flowIds = flows.stream().map(ProcedureFlow::getId).collect(Collectors.toList());
+        Map<Long, List<ProcedureStepResponse>> stepsByFlowId = stepRepository
+                .findByFlowIdInAndActiveTrueOrderByFlowIdAscStepOrderAsc(flowIds).stream()
+                .map(this::stepToResponse)
+                .collect(Collectors.groupingBy(ProcedureStepResponse::getFlowId));
+
+        return flows.stream()
+                .map(flow -> toResponse(flow, stepsByFlowId.getOrDefault(flow.getId(), List.of())))
+                .collect(Collectors.toList());
     }
 
     private ProcedureFlowResponse toResponse(ProcedureFlow flow) {
@@ -168,7 +252,10 @@ public class ProcedureFlowService {
                 .stream()
                 .map(this::stepToResponse)
                 .collect(Collectors.toList());
+        return toResponse(flow, steps);
+    }
 
+    private ProcedureFlowResponse toResponse(ProcedureFlow flow, List<ProcedureStepResponse> steps) {
         return ProcedureFlowResponse.builder()
                 .id(flow.getId())
                 .universityId(flow.getUniversityId())
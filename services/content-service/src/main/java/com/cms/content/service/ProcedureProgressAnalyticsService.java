@@ -0,0 +1,179 @@
+package com.cms.content.service;
+
+import com.cms.content.dto.ProcedureFlowAnalyticsResponse;
+import com.cms.content.dto.ProcedureStepAnalyticsResponse;
+import com.cms.content.entity.ProcedureFlow;
+import com.cms.content.entity.ProcedureProgress;
+import com.cms.content.entity.ProcedureStep;
+import com.cms.content.entity.ProcedureStepStatusCount;
+import com.cms.content.repository.ProcedureFlowRepository;
+import com.cms.content.repository.ProcedureStepRepository;
+import com.cms.content.repository.ProcedureStepStatusCountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProcedureProgressAnalyticsService {
+    private static final long RECONCILE_LOCK_KEY = 0x636d735f70726fL; // "cms_pro"
+    private static final long COUNTS_WRITE_LOCK_KEY = 0x636d735f70636e74L; // "cms_pcnt"
+
+    private final ProcedureStepStatusCountRepository statusCountRepository;
+    private final ProcedureFlowRepository flowRepository;
+    private final ProcedureStepRepository stepRepository;
+
+    public List<ProcedureFlowAnalyticsResponse> getAnalyticsByUniversity(Long universityId) {
+        List<ProcedureFlow> flows = flowRepository.findByUniversityIdAndActiveTrue(universityId);
+        return toResponses(flows, statusCountRepository.findByUniversityId(universityId));
+    }
+
+    public ProcedureFlowAnalyticsResponse getAnalyticsByFlow(Long flowId, Long universityId) {
+        ProcedureFlow flow = flowRepository.findByIdAndUniversityId(flowId, universityId)
+                .orElseThrow(() -> new RuntimeException("Flow not found"));
+        return toResponses(List.of(flow), statusCountRepository.findByFlowId(flowId)).get(0);
+    }
+
+    /**
+     * 進捗ステータスの遷移を集計テーブルに反映する。進捗の更新と同じトランザクションで呼び出すこと。
+     * from が null の場合は新規作成、to が null の場合は削除を表す。
+     */
+    @Transactional
+    public void recordTransition(ProcedureProgress progress,
+                                 ProcedureProgress.ProgressStatus from,
+                                 ProcedureProgress.ProgressStatus to) {
+        recordTransitions(List.of(new StatusTransition(progress, from, to)));
+    }
+
+    /**
+     * 複数の遷移をステップ×ステータスごとに合算してから反映する（一括更新用）。
+     */
+    @Transactional
+    public void recordTransitions(Collection<StatusTransition> transitions) {
+        Map<CountKey, Long> deltas = new LinkedHashMap<>();
+        for (StatusTransition transition : transitions) {
+            if (transition.from() == transition.to()) {
+                continue;
+            }
+            ProcedureProgress progress = transition.progress();
+            if (transition.from() != null) {
+                deltas.merge(CountKey.of(progress, transition.from()), -1L, Long::sum);
+            }
+            if (transition.to() != null) {
+                deltas.merge(CountKey.of(progress, transition.to()), 1L, Long::sum);
+            }
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        statusCountRepository.acquireSharedAdvisoryLock(COUNTS_WRITE_LOCK_KEY);
+        deltas.forEach((key, delta) -> statusCountRepository.addCount(
+                key.universityId(), key.flowId(), key.stepId(), key.status().name(), delta));
+    }
+
+    // 集計テーブルが空のまま起動した場合（初回デプロイ時など）は既存の進捗から構築する
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initializeCounts() {
+        if (statusCountRepository.count() == 0) {
+            rebuild();
+        }
+    }
+
+    // 毎晩、集計テーブルを procedure_progress の実データから再構築して差分のずれを解消する
+    @Scheduled(cron = "${cms.analytics.progress-reconcile-cron:0 0 3 * * *}")
+    @Transactional
+    public void reconcileCounts() {
+        rebuild();
+    }
+
+    private void rebuild() {
+        if (!statusCountRepository.tryAdvisoryLock(RECONCILE_LOCK_KEY)) {
+            log.info("Skipping progress count reconciliation: another instance is running it");
+            return;
+        }
+        // 実行中の差分反映のコミットを待ち、再構築が終わるまで新たな反映を止める
+        statusCountRepository.acquireAdvisoryLock(COUNTS_WRITE_LOCK_KEY);
+        int deleted = statusCountRepository.deleteAllCounts();
+        int rebuilt = statusCountRepository.rebuildCounts();
+        log.info("Reconciled procedure progress counts: {} rows replaced by {} rows", deleted, rebuilt);
+    }
+
+    private List<ProcedureFlowAnalyticsResponse> toResponses(List<ProcedureFlow> flows,
+                                                             List<ProcedureStepStatusCount> counts) {
+        Map<Long, Map<ProcedureProgress.ProgressStatus, Long>> countsByStepId = counts.stream()
+                .collect(Collectors.groupingBy(ProcedureStepStatusCount::getStepId,
+                        Collectors.toMap(ProcedureStepStatusCount::getStatus,
+                                ProcedureStepStatusCount::getProgressCount,
+                                Long::sum,
+                                () -> new EnumMap<>(ProcedureProgress.ProgressStatus.class))));
+
+        List<Long> flowIds = flows.stream().map(ProcedureFlow::getId).collect(Collectors.toList());
+        Map<Long, List<ProcedureStep>> stepsByFlowId = flowIds.isEmpty()
+                ? Map.of()
+                : stepRepository.findByFlowIdInAndActiveTrueOrderByFlowIdAscStepOrderAsc(flowIds).stream()
+                        .collect(Collectors.groupingBy(ProcedureStep::getFlowId));
+
+        return flows.stream()
+                .map(flow -> {
+                    Map<ProcedureProgress.ProgressStatus, Long> flowCounts = emptyCounts();
+                    List<ProcedureStepAnalyticsResponse> steps = stepsByFlowId
+                            .getOrDefault(flow.getId(), List.of()).stream()
+                            .map(step -> {
+                                Map<ProcedureProgress.ProgressStatus, Long> stepCounts = emptyCounts();
+                                countsByStepId.getOrDefault(step.getId(), Map.of())
+                                        .forEach((status, count) -> stepCounts.merge(status, count, Long::sum));
+                                stepCounts.forEach((status, count) -> flowCounts.merge(status, count, Long::sum));
+                                return ProcedureStepAnalyticsResponse.builder()
+                                        .stepId(step.getId())
+                                        .name(step.getName())
+                                        .stepOrder(step.getStepOrder())
+                                        .statusCounts(stepCounts)
+                                        .build();
+                            })
+                            .collect(Collectors.toList());
+
+                    return ProcedureFlowAnalyticsResponse.builder()
+                            .flowId(flow.getId())
+                            .universityId(flow.getUniversityId())
+                            .name(flow.getName())
+                            .flowType(flow.getFlowType())
+                            .statusCounts(flowCounts)
+                            .steps(steps)
+                            .build();
+                })
+                .collect(Collectors.toList());
+    }
+
+    public record StatusTransition(ProcedureProgress progress,
+                                   ProcedureProgress.ProgressStatus from,
+                                   ProcedureProgress.ProgressStatus to) {
+    }
+
+    private record CountKey(Long universityId, Long flowId, Long stepId, ProcedureProgress.ProgressStatus status) {
+        static CountKey of(ProcedureProgress progress, ProcedureProgress.ProgressStatus status) {
+            return new CountKey(progress.getUniversityId(), progress.getFlowId(), progress.getStepId(), status);
+        }
+    }
+
+    private Map<ProcedureProgress.ProgressStatus, Long> emptyCounts() {
+        Map<ProcedureProgress.ProgressStatus, Long> counts = new EnumMap<>(ProcedureProgress.ProgressStatus.class);
+        for (ProcedureProgress.ProgressStatus status : ProcedureProgress.ProgressStatus.values()) {
+            counts.put(status, 0L);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,245 @@
+package com.cms.content.service;
+
+import com.cms.content.cache.CacheInvalidationBus;
+import com.cms.content.cache.CacheInvalidationEvent;
+import com.cms.content.dto.ProcedureProgressBulkRequest;
+import com.cms.content.dto.ProcedureProgressBulkResponse;
+import com.cms.content.entity.ProcedureProgress;
+import com.cms.content.entity.ProcedureFlow;
+import com.cms.content.entity.ProcedureStep;
+import com.cms.content.procedure.ProcedureProgressSnapshotCache;
+import com.cms.content.repository.ProcedureFlowRepository;
+import com.cms.content.repository.ProcedureProgressRepository;
+import com.cms.content.repository.ProcedureStepRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 職員による進捗の一括更新（振込ファイル到着後の一括完了など）。
+ * JDBCバッチの INSERT ... ON CONFLICT でチャンク単位に upsert し、行ごとの結果を返す。
+ */
+@Slf4j
+@Service
+public class ProcedureProgressBulkService {
+    private static final String UPSERT_SQL = "INSERT INTO procedure_progress "
+            + "(user_id, step_id, flow_id, university_id, status, notes, started_at, completed_at, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (user_id, step_id) DO UPDATE SET "
+            + "status = EXCLUDED.status, "
+            + "notes = COALESCE(EXCLUDED.notes, procedure_progress.notes), "
+            + "started_at = COALESCE(procedure_progress.started_at, EXCLUDED.started_at), "
+            + "completed_at = COALESCE(procedure_progress.completed_at, EXCLUDED.completed_at), "
+            + "updated_at = EXCLUDED.updated_at";
+
+    private final ProcedureProgressRepository progressRepository;
+    private final ProcedureStepRepository stepRepository;
+    private final ProcedureFlowRepository flowRepository;
+    private final ProcedureProgressAnalyticsService analyticsService;
+    private final ProcedureProgressSnapshotCache progressSnapshotCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public ProcedureProgressBulkService(
+            ProcedureProgressRepository progressRepository,
+            ProcedureStepRepository stepRepository,
+            ProcedureFlowRepository flowRepository,
+            ProcedureProgressAnalyticsService analyticsService,
+            ProcedureProgressSnapshotCache progressSnapshotCache,
+            CacheInvalidationBus cacheInvalidationBus,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${cms.procedure.bulk-progress.chunk-size:500}") int chunkSize) {
+        this.progressRepository = progressRepository;
+        this.stepRepository = stepRepository;
+        this.flowRepository = flowRepository;
+        this.analyticsService = analyticsService;
+        this.progressSnapshotCache = progressSnapshotCache;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+    }
+
+    public ProcedureProgressBulkResponse bulkUpdate(ProcedureProgressBulkRequest request) {
+        List<ProcedureProgressBulkRequest.Item> items = request.getItems();
+        ProcedureProgressBulkResponse.ItemResult[] results = new ProcedureProgressBulkResponse.ItemResult[items.size()];
+
+        // 参照ステップを一括取得（フローIDの解決と存在チェック）
+        // 他大学のフローに属するステップは存在しないものとして扱う
+        Set<Long> stepIds = items.stream()
+                .map(ProcedureProgressBulkRequest.Item::getStepId)
+                .collect(Collectors.toSet());
+        List<ProcedureStep> steps = stepRepository.findAllById(stepIds);
+        Set<Long> ownFlowIds = flowRepository.findByIdInAndUniversityId(
+                        steps.stream().map(ProcedureStep::getFlowId).collect(Collectors.toSet()),
+                        request.getUniversityId()).stream()
+                .map(ProcedureFlow::getId)
+                .collect(Collectors.toSet());
+        Map<Long, ProcedureStep> stepsById = steps.stream()
+                .filter(step -> ownFlowIds.contains(step.getFlowId()))
+                .collect(Collectors.toMap(ProcedureStep::getId, Function.identity()));
+
+        List<Integer> writable = new ArrayList<>(items.size());
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            ProcedureProgressBulkRequest.Item item = items.get(i);
+            if (!stepsById.containsKey(item.getStepId())) {
+                results[i] = failed(i, item, "Step not found");
+            } else if (!seen.add(item.getUserId() + ":" + item.getStepId())) {
+                // 同一行への複数指定は結果が順序依存になるため受け付けない
+                results[i] = failed(i, item, "Duplicate userId/stepId in request");
+            } else {
+                writable.add(i);
+            }
+        }
+
+        for (int from = 0; from < writable.size(); from += chunkSize) {
+            List<Integer> chunk = writable.subList(from, Math.min(from + chunkSize, writable.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        upsertChunk(request.getUniversityId(), items, chunk, stepsById, results));
+            } catch (RuntimeException e) {
+                log.warn("Bulk progress chunk of {} rows failed", chunk.size(), e);
+                for (int index : chunk) {
+                    results[index] = failed(index, items.get(index), "Chunk failed: " + e.getMessage());
+                }
+            }
+        }
+
+        List<ProcedureProgressBulkResponse.ItemResult> resultList = List.of(results);
+        int failed = (int) resultList.stream()
+                .filter(r -> r.getOutcome() == ProcedureProgressBulkResponse.Outcome.FAILED)
+                .count();
+        return ProcedureProgressBulkResponse.builder()
+                .total(items.size())
+                .succeeded(items.size() - failed)
+                .failed(failed)
+                .results(resultList)
+                .build();
+    }
+
+    private void upsertChunk(Long universityId,
+                             List<ProcedureProgressBulkRequest.Item> items,
+                             List<Integer> chunk,
+                             Map<Long, ProcedureStep> stepsById,
+                             ProcedureProgressBulkResponse.ItemResult[] results) {
+        // 既存ステータスを行ロック付きで取得し、集計とスナップショットの差分に使う
+        Set<Long> userIds = new HashSet<>();
+        Set<Long> stepIds = new HashSet<>();
+        for (int index : chunk) {
+            userIds.add(items.get(index).getUserId());
+            stepIds.add(items.get(index).getStepId());
+        }
+        Map<String, ProcedureProgress.ProgressStatus> existing = new HashMap<>();
+        for (ProcedureProgress progress : progressRepository.findForUpdateByUserIdInAndStepIdIn(userIds, stepIds)) {
+            existing.put(progress.getUserId() + ":" + progress.getStepId(), progress.getStatus());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp nowTs = Timestamp.valueOf(now);
+        List<Object[]> batchArgs = new ArrayList<>(chunk.size());
+        List<ProcedureProgressAnalyticsService.StatusTransition> transitions = new ArrayList<>(chunk.size());
+        Map<Long, Set<Long>> flowIdsByUserId = new LinkedHashMap<>();
+        List<ProcedureProgressBulkResponse.ItemResult> chunkResults = new ArrayList<>(chunk.size());
+
+        for (int index : chunk) {
+            ProcedureProgressBulkRequest.Item item = items.get(index);
+            ProcedureStep step = stepsById.get(item.getStepId());
+            ProcedureProgress.ProgressStatus previous = existing.get(item.getUserId() + ":" + item.getStepId());
+            ProcedureProgress.ProgressStatus status = item.getStatus();
+
+            if (previous == status && item.getNotes() == null) {
+                chunkResults.add(result(index, item, ProcedureProgressBulkResponse.Outcome.UNCHANGED, previous));
+                continue;
+            }
+
+            batchArgs.add(new Object[]{
+                    item.getUserId(), item.getStepId(), step.getFlowId(), universityId, status.name(), item.getNotes(),
+                    status == ProcedureProgress.ProgressStatus.IN_PROGRESS ? nowTs : null,
+                    status == ProcedureProgress.ProgressStatus.COMPLETED ? nowTs : null,
+                    nowTs, nowTs});
+            ProcedureProgress progress = ProcedureProgress.builder()
+                    .userId(item.getUserId())
+                    .stepId(item.getStepId())
+                    .flowId(step.getFlowId())
+                    .universityId(universityId)
+                    .status(status)
+                    .build();
+            transitions.add(new ProcedureProgressAnalyticsService.StatusTransition(progress, previous, status));
+            flowIdsByUserId.computeIfAbsent(item.getUserId(), k -> new HashSet<>()).add(step.getFlowId());
+            chunkResults.add(result(index, item, previous == null
+                    ? ProcedureProgressBulkResponse.Outcome.CREATED
+                    : ProcedureProgressBulkResponse.Outcome.UPDATED, previous));
+        }
+
+        if (!batchArgs.isEmpty()) {
+            int[] argTypes = {Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.VARCHAR, Types.VARCHAR,
+                    Types.TIMESTAMP, Types.TIMESTAMP, Types.TIMESTAMP, Types.TIMESTAMP};
+            jdbcTemplate.batchUpdate(UPSERT_SQL, batchArgs, argTypes);
+            analyticsService.recordTransitions(transitions);
+
+            for (ProcedureProgressAnalyticsService.StatusTransition transition : transitions) {
+                ProcedureProgress progress = transition.progress();
+                progressSnapshotCache.applyAfterCommit(
+                        progress.getUserId(), progress.getFlowId(), progress.getStepId(), progress.getStatus());
+            }
+            // 他レプリカへの通知はユーザー単位にまとめる
+            flowIdsByUserId.forEach((userId, flowIds) -> cacheInvalidationBus.publish(CacheInvalidationEvent.builder()
+                    .entityType(CacheInvalidationEvent.EntityType.PROCEDURE_PROGRESS)
+                    .universityId(universityId)
+                    .entityId(userId)
+                    .keys(flowIds.stream().map(String::valueOf).collect(Collectors.toList()))
+                    .build()));
+        }
+
+        // コミットに失敗した場合は呼び出し側で FAILED に上書きされる
+        for (ProcedureProgressBulkResponse.ItemResult result : chunkResults) {
+            results[result.getIndex()] = result;
+        }
+    }
+
+    private ProcedureProgressBulkResponse.ItemResult result(int index,
+                                                            ProcedureProgressBulkRequest.Item item,
+                                                            ProcedureProgressBulkResponse.Outcome outcome,
+                                                            ProcedureProgress.ProgressStatus previous) {
+        return ProcedureProgressBulkResponse.ItemResult.builder()
+                .index(index)
+                .userId(item.getUserId())
+                .stepId(item.getStepId())
+                .outcome(outcome)
+                .previousStatus(previous)
+                .status(item.getStatus())
+                .build();
+    }
+
+    private ProcedureProgressBulkResponse.ItemResult failed(int index,
+                                                            ProcedureProgressBulkRequest.Item item,
+                                                            String error) {
+        return ProcedureProgressBulkResponse.ItemResult.builder()
+                .index(index)
+                .userId(item.getUserId())
+                .stepId(item.getStepId())
+                .outcome(ProcedureProgressBulkResponse.Outcome.FAILED)
+                .status(item.getStatus())
+                .error(error)
+                .build();
+    }
+}
@@ -1,11 +1,14 @@
 package com.cms.content.service;
 
+import com.cms.content.cache.CacheInvalidationBus;
+import com.cms.content.cache.CacheInvalidationEvent;
 import com.cms.content.dto.ProcedureProgressRequest;
 import com.cms.content.dto.ProcedureProgressResponse;
 import com.cms.content.dto.ProcedureStepResponse;
 import com.cms.content.entity.ProcedureFlow;
 import com.cms.content.entity.ProcedureProgress;
 import com.cms.content.entity.ProcedureStep;
+import com.cms.content.procedure.ProcedureProgressSnapshotCache;
 import com.cms.content.repository.ProcedureFlowRepository;
 import com.cms.content.repository.ProcedureProgressRepository;
 import com.cms.content.repository.ProcedureStepRepository;
@@ -14,6 +17,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,17 +27,16 @@ public class ProcedureProgressService {
     private final ProcedureProgressRepository progressRepository;
     private final ProcedureStepRepository stepRepository;
     private final ProcedureFlowRepository flowRepository;
+    private final ProcedureProgressSnapshotCache progressSnapshotCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final ProcedureProgressAnalyticsService analyticsService;
 
-    public List<ProcedureProgressResponse> getProgressByUserAndFlow(Long userId, Long flowId) {
-        return progressRepository.findByUserIdAndFlowId(userId, flowId).stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+    public List<ProcedureProgressResponse> getProgressByUserAndFlow(Long userId, Long flowId, boolean includeStep) {
+        return toResponses(progressRepository.findByUserIdAndFlowId(userId, flowId), includeStep);
     }
 
-    public List<ProcedureProgressResponse> getProgressByUser(Long userId, Long universityId) {
-        return progressRepository.findByUserIdAndUniversityId(userId, universityId).stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+    public List<ProcedureProgressResponse> getProgressByUser(Long userId, Long universityId, boolean includeStep) {
+        return toResponses(progressRepository.findByUserIdAndUniversityId(userId, universityId), includeStep);
     }
 
     public ProcedureProgressResponse getProgress(Long userId, Long stepId) {
@@ -50,6 +54,7 @@ public class ProcedureProgressService {
     public ProcedureProgressResponse updateProgress(ProcedureProgressRequest request) {
         ProcedureProgress progress = progressRepository.findByUserIdAndStepId(
                 request.getUserId(), request.getStepId()).orElse(null);
+        ProcedureProgress.ProgressStatus previousStatus = progress != null ? progress.getStatus() : null;
 
         if (progress == null) {
             // ステップからフローIDを取得
@@ -70,6 +75,7 @@ public class ProcedureProgressService {
         }
 
         progress = progressRepository.save(progress);
+        onStatusChanged(progress, previousStatus, progress.getStatus());
         return toResponse(progress);
     }
 
@@ -77,6 +83,7 @@ public class ProcedureProgressService {
     public ProcedureProgressResponse startStep(Long userId, Long stepId, Long universityId) {
         ProcedureProgress progress = progressRepository.findByUserIdAndStepId(userId, stepId)
                 .orElse(null);
+        ProcedureProgress.ProgressStatus previousStatus = progress != null ? progress.getStatus() : null;
 
         if (progress == null) {
             ProcedureStep step = stepRepository.findById(stepId)
@@ -94,6 +101,7 @@ public class ProcedureProgressService {
         }
 
         progress = progressRepository.save(progress);
+        onStatusChanged(progress, previousStatus, progress.getStatus());
         return toResponse(progress);
     }
 
@@ -101,39 +109,89 @@ public class ProcedureProgressService {
     public ProcedureProgressResponse completeStep(Long userId, Long stepId) {
         ProcedureProgress progress = progressRepository.findByUserIdAndStepId(userId, stepId)
                 .orElseThrow(() -> new RuntimeException("Progress not found"));
+        ProcedureProgress.ProgressStatus previousStatus = progress.getStatus();
 
         progress.setStatus(ProcedureProgress.ProgressStatus.COMPLETED);
         progress = progressRepository.save(progress);
+        onStatusChanged(progress, previousStatus, progress.getStatus());
         return toResponse(progress);
     }
 
+    /**
+     * ステップを完了にする（進捗がなければ作成する）。既に完了している場合は何もしない。
+     * 支払い完了イベントなど、同じ通知が複数回届きうる経路から呼び出す。
+     */
+    @Transactional
+    public void completeStepIfNeeded(Long userId, Long stepId, Long flowId, Long universityId, String notes) {
+        ProcedureProgress progress = progressRepository.findByUserIdAndStepId(userId, stepId).orElse(null);
+        ProcedureProgress.ProgressStatus previousStatus = progress != null ? progress.getStatus() : null;
+        if (previousStatus == ProcedureProgress.ProgressStatus.COMPLETED) {
+            return;
+        }
+
+        if (progress == null) {
+            progress = ProcedureProgress.builder()
+                    .userId(userId)
+                    .stepId(stepId)
+                    .flowId(flowId)
+                    .universityId(universityId)
+                    .notes(notes)
+                    .build();
+        }
+        progress.setStatus(ProcedureProgress.ProgressStatus.COMPLETED);
+        progress = progressRepository.save(progress);
+        onStatusChanged(progress, previousStatus, progress.getStatus());
+    }
+
     @Transactional
     public void deleteProgress(Long userId, Long stepId) {
         ProcedureProgress progress = progressRepository.findByUserIdAndStepId(userId, stepId)
                 .orElseThrow(() -> new RuntimeException("Progress not found"));
         progressRepository.delete(progress);
+        onStatusChanged(progress, progress.getStatus(), null);
     }
 
-    private ProcedureProgressResponse toResponse(ProcedureProgress progress) {
-        ProcedureStep step = stepRepository.findById(progress.getStepId()).orElse(null);
-        ProcedureStepResponse stepResponse = null;
-        if (step != null) {
-            stepResponse = ProcedureStepResponse.builder()
-                    .id(step.getId())
-                    .flowId(step.getFlowId())
-                    .contentId(step.getContentId())
-                    .name(step.getName())
-                    .description(step.getDescription())
-                    .stepOrder(step.getStepOrder())
-                    .requiredRole(step.getRequiredRole())
-                    .isRequired(step.getIsRequired())
-                    .dependsOnStepIds(step.getDependsOnStepIds())
-                    .active(step.getActive())
-                    .createdAt(step.getCreatedAt())
-                    .updatedAt(step.getUpdatedAt())
-                    .build();
+    // 集計テーブルを同一トランザクションで更新し、進捗スナップショットはコミット後に差分更新する
+    // newStatus が null の場合は進捗の削除を表す
+    private void onStatusChanged(ProcedureProgress progress,
+                                 ProcedureProgress.ProgressStatus previousStatus,
+                                 ProcedureProgress.ProgressStatus newStatus) {
+        analyticsService.recordTransition(progress, previousStatus, newStatus);
+        progressSnapshotCache.applyAfterCommit(progress.getUserId(), progress.getFlowId(), progress.getStepId(),
+                newStatus != null ? newStatus : ProcedureProgress.ProgressStatus.NOT_STARTED);
+        cacheInvalidationBus.publish(CacheInvalidationEvent.builder()
+                .entityType(CacheInvalidationEvent.EntityType.PROCEDURE_PROGRESS)
+                .universityId(progress.getUniversityId())
+                .entityId(progress.getUserId())
+                .keys(List.of(String.valueOf(progress.getFlowId())))
+                .build());
+    }
+
+    // 参照ステップを一括取得し、同じステップのレスポンスは使い回す
+    private List<ProcedureProgressResponse> toResponses(List<ProcedureProgress> progresses, boolean includeStep) {
+        if (!includeStep) {
+            return progresses.stream()
+                    .map(progress -> toResponse(progress, null))
+                    .collect(Collectors.toList());
         }
+        Set<Long> stepIds = progresses.stream()
+                .map(ProcedureProgress::getStepId)
+                .collect(Collectors.toSet());
+        Map<Long, ProcedureStepResponse> stepResponses = stepRepository.findAllById(stepIds).stream()
+                .collect(Collectors.toMap(ProcedureStep::getId, this::toStepResponse));
+        return progresses.stream()
+                .map(progress -> toResponse(progress, stepResponses.get(progress.getStepId())))
+                .collect(Collectors.toList());
+    }
 
+    private ProcedureProgressResponse toResponse(ProcedureProgress progress) {
+        ProcedureStepResponse stepResponse = stepRepository.findById(progress.getStepId())
+                .map(this::toStepResponse)
+                .orElse(null);
+        return toResponse(progress, stepResponse);
+    }
+
+    private ProcedureProgressResponse toResponse(ProcedureProgress progress, ProcedureStepResponse stepResponse) {
         return ProcedureProgressResponse.builder()
                 .id(progress.getId())
                 .userId(progress.getUserId())
@@ -149,5 +207,21 @@ public class ProcedureProgressService {
                 .updatedAt(progress.getUpdatedAt())
                 .build();
     }
-}
 
+    private ProcedureStepResponse toStepResponse(ProcedureStep step) {
+        return ProcedureStepResponse.builder()
+                .id(step.getId())
+                .flowId(step.getFlowId())
+                .contentId(step.getContentId())
+                .name(step.getName())
+                .description(step.getDescription())
+                .stepOrder(step.getStepOrder())
+                .requiredRole(step.getRequiredRole())
+                .isRequired(step.getIsRequired())
+                .dependsOnStepIds(step.getDependsOnStepIds())
+                .active(step.getActive())
+                .createdAt(step.getCreatedAt())
+                .updatedAt(step.getUpdatedAt())
+                .build();
+    }
+}
@@ -1,8 +1,12 @@
 package com.cms.content.service;
 
+import com.cms.content.cache.CacheInvalidationBus;
+import com.cms.content.cache.CacheInvalidationEvent;
 import com.cms.content.dto.ProcedureStepRequest;
 import com.cms.content.dto.ProcedureStepResponse;
 import com.cms.content.entity.ProcedureStep;
+import com.cms.content.procedure.ProcedureFlowGraph;
+import com.cms.content.procedure.ProcedureFlowGraphCache;
 import com.cms.content.repository.ProcedureStepRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -15,6 +19,8 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ProcedureStepService {
     private final ProcedureStepRepository stepRepository;
+    private final ProcedureFlowGraphCache flowGraphCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
 
     public List<ProcedureStepResponse> getStepsByFlow(Long flowId) {
         return stepRepository.findByFlowIdAndActiveTrueOrderByStepOrderAsc(flowId).stream()
@@ -30,6 +36,8 @@ public class ProcedureStepService {
 
     @Transactional
     public ProcedureStepResponse createStep(ProcedureStepRequest request) {
+        ProcedureFlowGraph.parseDependsOnStepIds(request.getDependsOnStepIds(), true);
+
         ProcedureStep step = ProcedureStep.builder()
                 .flowId(request.getFlowId())
                 .contentId(request.getContentId())
@@ -43,6 +51,7 @@ public class ProcedureStepService {
                 .build();
 
         step = stepRepository.save(step);
+        recompileFlowGraph(step.getFlowId());
         return toResponse(step);
     }
 
@@ -50,6 +59,7 @@ public class ProcedureStepService {
     public ProcedureStepResponse updateStep(Long id, ProcedureStepRequest request) {
         ProcedureStep step = stepRepository.findByIdAndFlowId(id, request.getFlowId())
                 .orElseThrow(() -> new RuntimeException("Step not found"));
+        ProcedureFlowGraph.parseDependsOnStepIds(request.getDependsOnStepIds(), true);
 
         step.setContentId(request.getContentId());
         step.setName(request.getName());
@@ -61,6 +71,7 @@ public class ProcedureStepService {
         step.setActive(request.getActive());
 
         step = stepRepository.save(step);
+        recompileFlowGraph(step.getFlowId());
         return toResponse(step);
     }
 
@@ -69,6 +80,21 @@ public class ProcedureStepService {
         ProcedureStep step = stepRepository.findByIdAndFlowId(id, flowId)
                 .orElseThrow(() -> new RuntimeException("Step not found"));
         stepRepository.delete(step);
+        invalidateFlowGraph(flowId);
+    }
+
+    // 変更後のステップ構成で依存グラフを検証し、循環があればトランザクションごと拒否する
+    private void recompileFlowGraph(Long flowId) {
+        ProcedureFlowGraph.compileStrict(flowId, stepRepository.findByFlowIdAndActiveTrueOrderByStepOrderAsc(flowId));
+        invalidateFlowGraph(flowId);
+    }
+
+    private void invalidateFlowGraph(Long flowId) {
+        flowGraphCache.evictAfterCommit(flowId);
+        cacheInvalidationBus.publish(CacheInvalidationEvent.builder()
+                .entityType(CacheInvalidationEvent.EntityType.PROCEDURE_FLOW)
+                .entityId(flowId)
+                .build());
     }
 
     private ProcedureStepResponse toResponse(ProcedureStep step) {
@@ -1,5 +1,7 @@
 package com.cms.content.service;
 
+import com.cms.content.cache.CacheInvalidationBus;
+import com.cms.content.cache.CacheInvalidationEvent;
 import com.cms.content.dto.UniversityFieldConfigRequest;
 import com.cms.content.dto.UniversityFieldConfigResponse;
 import com.cms.content.entity.UniversityFieldConfig;
@@ -17,6 +19,7 @@ import java.util.stream.Collectors;
 public class UniversityFieldConfigService {
     private final UniversityFieldConfigRepository fieldConfigRepository;
     private final UniversityRepository universityRepository;
+    private final CacheInvalidationBus cacheInvalidationBus;
 
     public List<UniversityFieldConfigResponse> getFieldConfigsByUniversity(Long universityId) {
         return fieldConfigRepository.findByUniversityId(universityId).stream()
@@ -72,6 +75,7 @@ public class UniversityFieldConfigService {
                 .build();
 
         config = fieldConfigRepository.save(config);
+        publishInvalidation(config.getUniversityId(), config.getId());
         return toResponse(config);
     }
 
@@ -89,6 +93,7 @@ public class UniversityFieldConfigService {
             }
         }
 
+        Long previousUniversityId = config.getUniversityId();
         config.setUniversityId(request.getUniversityId());
         config.setFieldKey(request.getFieldKey());
         config.setFieldName(request.getFieldName());
@@ -104,6 +109,10 @@ public class UniversityFieldConfigService {
         config.setDescription(request.getDescription());
 
         config = fieldConfigRepository.save(config);
+        if (!previousUniversityId.equals(config.getUniversityId())) {
+            publishInvalidation(previousUniversityId, config.getId());
+        }
+        publishInvalidation(config.getUniversityId(), config.getId());
         return toResponse(config);
     }
 
@@ -112,11 +121,21 @@ public class UniversityFieldConfigService {
         UniversityFieldConfig config = fieldConfigRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Field config not found"));
         fieldConfigRepository.delete(config);
+        publishInvalidation(config.getUniversityId(), config.getId());
     }
 
     @Transactional
     public void deleteFieldConfigsByUniversity(Long universityId) {
         fieldConfigRepository.deleteByUniversityId(universityId);
+        publishInvalidation(universityId, null);
+    }
+
+    private void publishInvalidation(Long universityId, Long configId) {
+        cacheInvalidationBus.publish(CacheInvalidationEvent.builder()
+                .entityType(CacheInvalidationEvent.EntityType.UNIVERSITY_FIELD_CONFIG)
+                .universityId(universityId)
+                .entityId(configId)
+                .build());
     }
 
     private UniversityFieldConfigResponse toResponse(UniversityFieldConfig config) {
@@ -1,5 +1,7 @@
 package com.cms.content.service;
 
+import com.cms.content.cache.CacheInvalidationBus;
+import com.cms.content.cache.CacheInvalidationEvent;
 import com.cms.content.dto.UniversityLayoutConfigRequest;
 import com.cms.content.dto.UniversityLayoutConfigResponse;
 import com.cms.content.entity.UniversityLayoutConfig;
@@ -17,6 +19,7 @@ import java.util.stream.Collectors;
 public class UniversityLayoutConfigService {
     private final UniversityLayoutConfigRepository layoutConfigRepository;
     private final UniversityRepository universityRepository;
+    private final CacheInvalidationBus cacheInvalidationBus;
 
     public List<UniversityLayoutConfigResponse> getLayoutConfigsByUniversity(Long universityId) {
         return layoutConfigRepository.findByUniversityId(universityId).stream()
@@ -79,6 +82,7 @@ public class UniversityLayoutConfigService {
                 .build();
 
         config = layoutConfigRepository.save(config);
+        publishInvalidation(config.getUniversityId(), config.getId());
         return toResponse(config);
     }
 
@@ -100,6 +104,7 @@ public class UniversityLayoutConfigService {
             }
         }
 
+        Long previousUniversityId = config.getUniversityId();
         config.setUniversityId(request.getUniversityId());
         config.setLayoutType(request.getLayoutType());
         config.setSectionKey(request.getSectionKey());
@@ -112,6 +117,10 @@ public class UniversityLayoutConfigService {
         config.setDescription(request.getDescription());
 
         config = layoutConfigRepository.save(config);
+        if (!previousUniversityId.equals(config.getUniversityId())) {
+            publishInvalidation(previousUniversityId, config.getId());
+        }
+        publishInvalidation(config.getUniversityId(), config.getId());
         return toResponse(config);
     }
 
@@ -120,11 +129,21 @@ public class UniversityLayoutConfigService {
         UniversityLayoutConfig config = layoutConfigRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Layout config not found"));
         layoutConfigRepository.delete(config);
+        publishInvalidation(config.getUniversityId(), config.getId());
     }
 
     @Transactional
     public void deleteLayoutConfigsByUniversity(Long universityId) {
         layoutConfigRepository.deleteByUniversityId(universityId);
+        publishInvalidation(universityId, null);
+    }
+
+    private void publishInvalidation(Long universityId, Long configId) {
+        cacheInvalidationBus.publish(CacheInvalidationEvent.builder()
+                .entityType(CacheInvalidationEvent.EntityType.UNIVERSITY_LAYOUT_CONFIG)
+                .universityId(universityId)
+                .entityId(configId)
+                .build());
     }
 
     private UniversityLayoutConfigResponse toResponse(UniversityLayoutConfig config) {
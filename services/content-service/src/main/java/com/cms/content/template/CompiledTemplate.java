@@ -0,0 +1,152 @@
+package com.cms.content.template;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link TemplateParser} で解析済みのテンプレート。スレッドセーフで、何度でも描画できる。
+ * 出力は Writer へ順に書き出すので、描画結果全体を文字列として組み立てない。
+ */
+public final class CompiledTemplate {
+    private final List<Node> nodes;
+    private final int sourceLength;
+
+    sealed interface Node permits Text, Variable, Section {
+    }
+
+    record Text(String text) implements Node {
+    }
+
+    record Variable(String[] path, boolean escape) implements Node {
+    }
+
+    record Section(String[] path, boolean inverted, List<Node> children) implements Node {
+    }
+
+    CompiledTemplate(List<Node> nodes, int sourceLength) {
+        this.nodes = List.copyOf(nodes);
+        this.sourceLength = sourceLength;
+    }
+
+    public void render(Map<String, Object> model, Writer out) throws IOException {
+        Deque<Object> scopes = new ArrayDeque<>();
+        scopes.push(model);
+        render(nodes, scopes, out);
+    }
+
+    // 描画結果の大きさの見積もり（バッファの初期容量用）
+    public int sourceLength() {
+        return sourceLength;
+    }
+
+    private static void render(List<Node> nodes, Deque<Object> scopes, Writer out) throws IOException {
+        for (Node node : nodes) {
+            if (node instanceof Text text) {
+                out.write(text.text());
+            } else if (node instanceof Variable variable) {
+                Object value = resolve(variable.path(), scopes);
+                if (value == null) {
+                    continue;
+                }
+                if (variable.escape()) {
+                    escape(String.valueOf(value), out);
+                } else {
+                    out.write(String.valueOf(value));
+                }
+            } else if (node instanceof Section section) {
+                renderSection(section, resolve(section.path(), scopes), scopes, out);
+            }
+        }
+    }
+
+    private static void renderSection(Section section, Object value, Deque<Object> scopes, Writer out)
+            throws IOException {
+        if (section.inverted()) {
+            if (!isTruthy(value)) {
+                render(section.children(), scopes, out);
+            }
+            return;
+        }
+        // 反転セクションと対になるよう、偽とみなす値（空のオブジェクトを含む）では描画しない
+        if (!isTruthy(value)) {
+            return;
+        }
+        if (value instanceof Collection<?> items) {
+            for (Object item : items) {
+                scopes.push(item);
+                render(section.children(), scopes, out);
+                scopes.pop();
+            }
+        } else if (value instanceof Map<?, ?>) {
+            scopes.push(value);
+            render(section.children(), scopes, out);
+            scopes.pop();
+        } else {
+            render(section.children(), scopes, out);
+        }
+    }
+
+    // 先頭の名前は内側のスコープから順に探し、残りはその値の中を辿る
+    private static Object resolve(String[] path, Deque<Object> scopes) {
+        if (path.length == 0) {
+            return scopes.peek();
+        }
+        Object value = null;
+        boolean found = false;
+        for (Object scope : scopes) {
+            if (scope instanceof Map<?, ?> map && map.containsKey(path[0])) {
+                value = map.get(path[0]);
+                found = true;
+                break;
+            }
+        }
+        if (!found) {
+            return null;
+        }
+        for (int i = 1; i < path.length && value != null; i++) {
+            value = value instanceof Map<?, ?> map ? map.get(path[i]) : null;
+        }
+        return value;
+    }
+
+    private static boolean isTruthy(Object value) {
+        if (value == null || Boolean.FALSE.equals(value)) {
+            return false;
+        }
+        if (value instanceof String string) {
+            return !string.isEmpty();
+        }
+        if (value instanceof Collection<?> collection) {
+            return !collection.isEmpty();
+        }
+        if (value instanceof Map<?, ?> map) {
+            return !map.isEmpty();
+        }
+        return true;
+    }
+
+    private static void escape(String text, Writer out) throws IOException {
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            String replacement = switch (text.charAt(i)) {
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '&' -> "&amp;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (replacement != null) {
+                out.write(text, start, i - start);
+                out.write(replacement);
+                start = i + 1;
+            }
+        }
+        out.write(text, start, text.length() - start);
+    }
+}
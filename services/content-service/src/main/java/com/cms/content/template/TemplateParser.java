@@ -0,0 +1,103 @@
+package com.cms.content.template;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * ContentTemplate.content（Mustache の部分集合）を解析する。
+ * <ul>
+ *   <li>{@code {{name}}} HTML エスケープして出力、{@code {{{name}}}} / {@code {{& name}}} そのまま出力</li>
+ *   <li>{@code {{#name}}...{{/name}}} 値があれば描画（リストは要素ごと、オブジェクトはその中で描画）</li>
+ *   <li>{@code {{^name}}...{{/name}}} 値がなければ描画、{@code {{! ...}}} コメント</li>
+ * </ul>
+ * 名前は "fields.deadline" のようにドットで辿り、"." はセクション内の現在の要素を表す。
+ */
+public final class TemplateParser {
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+    private static final Pattern NAME = Pattern.compile("\\.|[^\\s{}.]+(\\.[^\\s{}.]+)*");
+
+    private TemplateParser() {
+    }
+
+    public static CompiledTemplate parse(String source) {
+        String text = source != null ? source : "";
+        Deque<OpenSection> open = new ArrayDeque<>();
+        List<CompiledTemplate.Node> nodes = new ArrayList<>();
+        StringBuilder pending = new StringBuilder();
+
+        int position = 0;
+        while (position < text.length()) {
+            int start = text.indexOf(OPEN, position);
+            if (start < 0) {
+                pending.append(text, position, text.length());
+                break;
+            }
+            pending.append(text, position, start);
+
+            boolean triple = text.startsWith("{{{", start);
+            String close = triple ? "}}}" : CLOSE;
+            int contentStart = start + (triple ? 3 : 2);
+            int end = text.indexOf(close, contentStart);
+            if (end < 0) {
+                throw new RuntimeException("Invalid template: unclosed tag at " + start);
+            }
+            String tag = text.substring(contentStart, end).strip();
+            position = end + close.length();
+
+            char sigil = triple || tag.isEmpty() ? ' ' : tag.charAt(0);
+            if (sigil == '!') {
+                continue;
+            }
+            flushText(pending, nodes);
+            switch (sigil) {
+                case '#', '^' -> {
+                    String name = name(tag.substring(1), start);
+                    open.push(new OpenSection(name, sigil == '^', nodes));
+                    nodes = new ArrayList<>();
+                }
+                case '/' -> {
+                    String name = name(tag.substring(1), start);
+                    if (open.isEmpty() || !open.peek().name().equals(name)) {
+                        throw new RuntimeException("Invalid template: unexpected {{/" + name + "}} at " + start);
+                    }
+                    OpenSection section = open.pop();
+                    section.parent().add(new CompiledTemplate.Section(path(name), section.inverted(), nodes));
+                    nodes = section.parent();
+                }
+                case '&' -> nodes.add(new CompiledTemplate.Variable(path(name(tag.substring(1), start)), false));
+                default -> nodes.add(new CompiledTemplate.Variable(path(name(tag, start)), !triple));
+            }
+        }
+        if (!open.isEmpty()) {
+            throw new RuntimeException("Invalid template: unclosed section '" + open.peek().name() + "'");
+        }
+        flushText(pending, nodes);
+        return new CompiledTemplate(nodes, text.length());
+    }
+
+    private static void flushText(StringBuilder pending, List<CompiledTemplate.Node> nodes) {
+        if (!pending.isEmpty()) {
+            nodes.add(new CompiledTemplate.Text(pending.toString()));
+            pending.setLength(0);
+        }
+    }
+
+    private static String name(String raw, int position) {
+        String name = raw.strip();
+        if (!NAME.matcher(name).matches()) {
+            throw new RuntimeException("Invalid template: bad name '" + name + "' at " + position);
+        }
+        return name;
+    }
+
+    private static String[] path(String name) {
+        return name.equals(".") ? new String[0] : name.split("\\.");
+    }
+
+    private record OpenSection(String name, boolean inverted, List<CompiledTemplate.Node> parent) {
+    }
+}
@@ -0,0 +1,176 @@
+package com.cms.content.version;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Myers の O(ND) 差分アルゴリズム。トークン列（行・単語など）の編集を連続した範囲単位で返す。
+ * 共通の先頭・末尾は先に取り除き、編集距離が maxEdits を超えた場合は中間部分を丸ごと置き換えとみなす。
+ */
+public final class MyersDiff {
+    public static final int DEFAULT_MAX_EDITS = 2000;
+
+    public enum Op {
+        EQUAL, DELETE, INSERT
+    }
+
+    /**
+     * a[aStart, aEnd) と b[bStart, bEnd) の対応。EQUAL は両方、DELETE は a 側、INSERT は b 側の範囲だけが意味を持つ。
+     */
+    public record Edit(Op op, int aStart, int aEnd, int bStart, int bEnd) {
+    }
+
+    private MyersDiff() {
+    }
+
+    public static <T> List<Edit> diff(List<T> a, List<T> b) {
+        return diff(a, b, DEFAULT_MAX_EDITS);
+    }
+
+    public static <T> List<Edit> diff(List<T> a, List<T> b, int maxEdits) {
+        // equals の比較を避けるためトークンを整数に置き換える
+        Map<T, Integer> ids = new HashMap<>();
+        int[] x = new int[a.size()];
+        int[] y = new int[b.size()];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = ids.computeIfAbsent(a.get(i), t -> ids.size());
+        }
+        for (int i = 0; i < y.length; i++) {
+            y[i] = ids.computeIfAbsent(b.get(i), t -> ids.size());
+        }
+        return diff(x, y, maxEdits);
+    }
+
+    public static List<Edit> diff(int[] a, int[] b, int maxEdits) {
+        int prefix = 0;
+        while (prefix < a.length && prefix < b.length && a[prefix] == b[prefix]) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < a.length - prefix && suffix < b.length - prefix
+                && a[a.length - 1 - suffix] == b[b.length - 1 - suffix]) {
+            suffix++;
+        }
+
+        Builder edits = new Builder();
+        edits.equal(0, 0, prefix);
+        int aEnd = a.length - suffix;
+        int bEnd = b.length - suffix;
+        if (!middle(a, prefix, aEnd, b, prefix, bEnd, maxEdits, edits)) {
+            edits.delete(prefix, aEnd, prefix);
+            edits.insert(aEnd, prefix, bEnd);
+        }
+        edits.equal(aEnd, bEnd, suffix);
+        return edits.build();
+    }
+
+    // 共通部分を除いた中間部分の差分。編集距離が上限を超えたら false を返す
+    private static boolean middle(int[] a, int aStart, int aEnd, int[] b, int bStart, int bEnd, int maxEdits,
+                                  Builder edits) {
+        int n = aEnd - aStart;
+        int m = bEnd - bStart;
+        if (n == 0 || m == 0) {
+            edits.delete(aStart, aEnd, bStart);
+            edits.insert(aEnd, bStart, bEnd);
+            return true;
+        }
+        int max = Math.min(n + m, maxEdits);
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+        // 各 d の開始時点の v（k = -d-1 .. d+1 の範囲だけを保存する）
+        List<int[]> trace = new ArrayList<>();
+        for (int d = 0; d <= max; d++) {
+            int[] slice = new int[2 * d + 3];
+            System.arraycopy(v, offset - d - 1, slice, 0, slice.length);
+            trace.add(slice);
+            for (int k = -d; k <= d; k += 2) {
+                int xPos = (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1]))
+                        ? v[offset + k + 1]
+                        : v[offset + k - 1] + 1;
+                int yPos = xPos - k;
+                while (xPos < n && yPos < m && a[aStart + xPos] == b[bStart + yPos]) {
+                    xPos++;
+                    yPos++;
+                }
+                v[offset + k] = xPos;
+                if (xPos >= n && yPos >= m) {
+                    backtrack(trace, n, m, aStart, bStart, edits);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void backtrack(List<int[]> trace, int n, int m, int aStart, int bStart, Builder edits) {
+        List<Edit> reversed = new ArrayList<>();
+        int x = n;
+        int y = m;
+        for (int d = trace.size() - 1; d >= 0; d--) {
+            int[] v = trace.get(d);
+            int base = d + 1; // slice 内での k = 0 の位置
+            int k = x - y;
+            int prevK = (k == -d || (k != d && v[base + k - 1] < v[base + k + 1])) ? k + 1 : k - 1;
+            int prevX = v[base + prevK];
+            int prevY = prevX - prevK;
+            while (x > prevX && y > prevY) {
+                x--;
+                y--;
+                reversed.add(new Edit(Op.EQUAL, aStart + x, aStart + x + 1, bStart + y, bStart + y + 1));
+            }
+            if (d > 0) {
+                if (x == prevX) {
+                    reversed.add(new Edit(Op.INSERT, aStart + x, aStart + x, bStart + prevY, bStart + prevY + 1));
+                } else {
+                    reversed.add(new Edit(Op.DELETE, aStart + prevX, aStart + prevX + 1, bStart + y, bStart + y));
+                }
+            }
+            x = prevX;
+            y = prevY;
+        }
+        Collections.reverse(reversed);
+        reversed.forEach(edits::add);
+    }
+
+    // 同じ種類の隣接する編集を1つの範囲にまとめる
+    private static final class Builder {
+        private final List<Edit> edits = new ArrayList<>();
+
+        void equal(int aStart, int bStart, int length) {
+            if (length > 0) {
+                add(new Edit(Op.EQUAL, aStart, aStart + length, bStart, bStart + length));
+            }
+        }
+
+        void delete(int aStart, int aEnd, int bPos) {
+            if (aEnd > aStart) {
+                add(new Edit(Op.DELETE, aStart, aEnd, bPos, bPos));
+            }
+        }
+
+        void insert(int aPos, int bStart, int bEnd) {
+            if (bEnd > bStart) {
+                add(new Edit(Op.INSERT, aPos, aPos, bStart, bEnd));
+            }
+        }
+
+        void add(Edit edit) {
+            if (!edits.isEmpty()) {
+                Edit last = edits.get(edits.size() - 1);
+                if (last.op() == edit.op() && last.aEnd() == edit.aStart() && last.bEnd() == edit.bStart()) {
+                    edits.set(edits.size() - 1,
+                            new Edit(edit.op(), last.aStart(), edit.aEnd(), last.bStart(), edit.bEnd()));
+                    return;
+                }
+            }
+            edits.add(edit);
+        }
+
+        List<Edit> build() {
+            return edits;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.cms.content.version;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 本文の行単位の差分を文字列に符号化する。1行に1命令で、"=n" は n 行そのまま、"-n" は n 行削除、
+ * "+n" は続く n 行を挿入する。行は '\n' で区切るので挿入行に命令と紛らわしい内容が含まれても問題ない。
+ */
+public final class VersionDelta {
+    private static final String LINE_SEPARATOR = "\n";
+
+    private VersionDelta() {
+    }
+
+    public static List<String> lines(String text) {
+        return Arrays.asList((text != null ? text : "").split(LINE_SEPARATOR, -1));
+    }
+
+    public static String encode(String from, String to) {
+        List<String> a = lines(from);
+        List<String> b = lines(to);
+        StringBuilder out = new StringBuilder();
+        for (MyersDiff.Edit edit : MyersDiff.diff(a, b)) {
+            switch (edit.op()) {
+                case EQUAL -> out.append('=').append(edit.aEnd() - edit.aStart()).append(LINE_SEPARATOR);
+                case DELETE -> out.append('-').append(edit.aEnd() - edit.aStart()).append(LINE_SEPARATOR);
+                case INSERT -> {
+                    out.append('+').append(edit.bEnd() - edit.bStart()).append(LINE_SEPARATOR);
+                    for (String line : b.subList(edit.bStart(), edit.bEnd())) {
+                        out.append(line).append(LINE_SEPARATOR);
+                    }
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    public static String apply(String from, String delta) {
+        List<String> source = lines(from);
+        List<String> script = lines(delta);
+        List<String> result = new ArrayList<>(source.size());
+        int position = 0;
+        int i = 0;
+        // 末尾の区切りの後ろは空要素になる
+        while (i < script.size() - 1) {
+            String command = script.get(i++);
+            int count;
+            try {
+                count = Integer.parseInt(command.substring(1));
+            } catch (RuntimeException e) {
+                throw new IllegalStateException("Corrupted version delta: " + command);
+            }
+            if (count < 0) {
+                throw new IllegalStateException("Corrupted version delta: " + command);
+            }
+            switch (command.charAt(0)) {
+                case '=' -> {
+                    requireBaseLines(source, position, count);
+                    result.addAll(source.subList(position, position + count));
+                    position += count;
+                }
+                case '-' -> {
+                    requireBaseLines(source, position, count);
+                    position += count;
+                }
+                case '+' -> {
+                    if (i + count > script.size() - 1) {
+                        throw new IllegalStateException("Corrupted version delta: " + command);
+                    }
+                    result.addAll(script.subList(i, i + count));
+                    i += count;
+                }
+                default -> throw new IllegalStateException("Corrupted version delta: " + command);
+            }
+        }
+        if (position != source.size()) {
+            throw new IllegalStateException("Version delta does not match its base version");
+        }
+        return String.join(LINE_SEPARATOR, result);
+    }
+
+    private static void requireBaseLines(List<String> source, int position, int count) {
+        if (position + count > source.size()) {
+            throw new IllegalStateException("Version delta does not match its base version");
+        }
+    }
+}
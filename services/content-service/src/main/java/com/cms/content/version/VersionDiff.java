@@ -0,0 +1,213 @@
+package com.cms.content.version;
+
+import com.cms.content.dto.ContentVersionDiffResponse;
+import com.cms.content.dto.ContentVersionDiffResponse.Hunk;
+import com.cms.content.dto.ContentVersionDiffResponse.Line;
+import com.cms.content.dto.ContentVersionDiffResponse.LineType;
+import com.cms.content.dto.ContentVersionDiffResponse.Segment;
+import com.cms.content.dto.ContentVersionDiffResponse.SegmentType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 本文の差分を unified diff と同じ考え方のハンク（変更行 + 前後 context 行）に分ける。
+ * 削除行と追加行が対になる場合は、その行の中を単語単位（漢字・かなは1文字単位）でも比較する。
+ */
+public final class VersionDiff {
+    // 単語単位の比較をする行の長さの上限（これより長い行は行単位の差分だけにする）
+    private static final int MAX_WORD_DIFF_LINE_LENGTH = 10_000;
+
+    private final List<String> from;
+    private final List<String> to;
+    private final int context;
+    private final List<Hunk> hunks = new ArrayList<>();
+    private Hunk current;
+    private int added;
+    private int removed;
+
+    private VersionDiff(List<String> from, List<String> to, int context) {
+        this.from = from;
+        this.to = to;
+        this.context = context;
+    }
+
+    public static VersionDiff compute(String fromBody, String toBody, int context) {
+        VersionDiff diff = new VersionDiff(VersionDelta.lines(fromBody), VersionDelta.lines(toBody), context);
+        diff.build(MyersDiff.diff(diff.from, diff.to));
+        return diff;
+    }
+
+    public List<Hunk> hunks() {
+        return hunks;
+    }
+
+    public int addedLines() {
+        return added;
+    }
+
+    public int removedLines() {
+        return removed;
+    }
+
+    private void build(List<MyersDiff.Edit> edits) {
+        int i = 0;
+        while (i < edits.size()) {
+            MyersDiff.Edit edit = edits.get(i);
+            if (edit.op() == MyersDiff.Op.EQUAL) {
+                boolean last = i == edits.size() - 1;
+                equal(edit, last);
+                i++;
+                continue;
+            }
+            // 連続する削除・追加を1つの変更ブロックとして扱う
+            int aStart = edit.aStart();
+            int bStart = edit.bStart();
+            int aEnd = aStart;
+            int bEnd = bStart;
+            while (i < edits.size() && edits.get(i).op() != MyersDiff.Op.EQUAL) {
+                aEnd = Math.max(aEnd, edits.get(i).aEnd());
+                bEnd = Math.max(bEnd, edits.get(i).bEnd());
+                i++;
+            }
+            change(aStart, aEnd, bStart, bEnd);
+        }
+        closeHunk();
+    }
+
+    private void equal(MyersDiff.Edit edit, boolean last) {
+        int length = edit.aEnd() - edit.aStart();
+        if (current == null) {
+            return;
+        }
+        if (last || length > 2 * context) {
+            // 前のハンクの後ろに context 行だけ付けて閉じる（残りの末尾 context 行は次のハンクの先頭になる）
+            addContext(edit.aStart(), edit.bStart(), Math.min(context, length));
+            closeHunk();
+        } else {
+            addContext(edit.aStart(), edit.bStart(), length);
+        }
+    }
+
+    private void change(int aStart, int aEnd, int bStart, int bEnd) {
+        if (current == null) {
+            int leading = Math.min(context, Math.min(aStart, bStart));
+            current = Hunk.builder()
+                    .fromStart(aStart - leading + 1)
+                    .toStart(bStart - leading + 1)
+                    .fromLines(0)
+                    .toLines(0)
+                    .lines(new ArrayList<>())
+                    .build();
+            addContext(aStart - leading, bStart - leading, leading);
+        }
+        int pairs = Math.min(aEnd - aStart, bEnd - bStart);
+        for (int a = aStart; a < aEnd; a++) {
+            Line line = line(LineType.REMOVED, a + 1, null, from.get(a));
+            if (a - aStart < pairs) {
+                line.setSegments(wordSegments(from.get(a), to.get(bStart + a - aStart), SegmentType.REMOVED));
+            }
+            current.getLines().add(line);
+            current.setFromLines(current.getFromLines() + 1);
+            removed++;
+        }
+        for (int b = bStart; b < bEnd; b++) {
+            Line line = line(LineType.ADDED, null, b + 1, to.get(b));
+            if (b - bStart < pairs) {
+                line.setSegments(wordSegments(from.get(aStart + b - bStart), to.get(b), SegmentType.ADDED));
+            }
+            current.getLines().add(line);
+            current.setToLines(current.getToLines() + 1);
+            added++;
+        }
+    }
+
+    private void addContext(int aStart, int bStart, int count) {
+        for (int i = 0; i < count; i++) {
+            current.getLines().add(line(LineType.CONTEXT, aStart + i + 1, bStart + i + 1, from.get(aStart + i)));
+        }
+        current.setFromLines(current.getFromLines() + count);
+        current.setToLines(current.getToLines() + count);
+    }
+
+    private void closeHunk() {
+        if (current != null) {
+            hunks.add(current);
+            current = null;
+        }
+    }
+
+    private static Line line(LineType type, Integer fromLineNumber, Integer toLineNumber, String text) {
+        return Line.builder()
+                .type(type)
+                .fromLineNumber(fromLineNumber)
+                .toLineNumber(toLineNumber)
+                .text(text)
+                .build();
+    }
+
+    // 削除行なら EQUAL と REMOVED、追加行なら EQUAL と ADDED の区間に分ける
+    private static List<Segment> wordSegments(String fromLine, String toLine, SegmentType changeType) {
+        if (fromLine.length() > MAX_WORD_DIFF_LINE_LENGTH || toLine.length() > MAX_WORD_DIFF_LINE_LENGTH) {
+            return null;
+        }
+        List<String> a = tokenize(fromLine);
+        List<String> b = tokenize(toLine);
+        List<Segment> segments = new ArrayList<>();
+        for (MyersDiff.Edit edit : MyersDiff.diff(a, b)) {
+            if (edit.op() == MyersDiff.Op.EQUAL) {
+                append(segments, SegmentType.EQUAL, a.subList(edit.aStart(), edit.aEnd()));
+            } else if (edit.op() == MyersDiff.Op.DELETE && changeType == SegmentType.REMOVED) {
+                append(segments, SegmentType.REMOVED, a.subList(edit.aStart(), edit.aEnd()));
+            } else if (edit.op() == MyersDiff.Op.INSERT && changeType == SegmentType.ADDED) {
+                append(segments, SegmentType.ADDED, b.subList(edit.bStart(), edit.bEnd()));
+            }
+        }
+        return segments;
+    }
+
+    private static void append(List<Segment> segments, SegmentType type, List<String> tokens) {
+        String text = String.join("", tokens);
+        if (text.isEmpty()) {
+            return;
+        }
+        if (!segments.isEmpty() && segments.get(segments.size() - 1).getType() == type) {
+            Segment last = segments.get(segments.size() - 1);
+            last.setText(last.getText() + text);
+        } else {
+            segments.add(Segment.builder().type(type).text(text).build());
+        }
+    }
+
+    // 英数字の連続・空白の連続はまとめて1語、漢字・かな・記号は1文字を1語とする
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            int codePoint = text.codePointAt(i);
+            int end = i + Character.charCount(codePoint);
+            if (isWordChar(codePoint)) {
+                while (end < text.length() && isWordChar(text.codePointAt(end))) {
+                    end += Character.charCount(text.codePointAt(end));
+                }
+            } else if (Character.isWhitespace(codePoint)) {
+                while (end < text.length() && Character.isWhitespace(text.codePointAt(end))) {
+                    end += Character.charCount(text.codePointAt(end));
+                }
+            }
+            tokens.add(text.substring(i, end));
+            i = end;
+        }
+        return tokens;
+    }
+
+    private static boolean isWordChar(int codePoint) {
+        if (!Character.isLetterOrDigit(codePoint)) {
+            return false;
+        }
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script != Character.UnicodeScript.HAN
+                && script != Character.UnicodeScript.HIRAGANA
+                && script != Character.UnicodeScript.KATAKANA;
+    }
+}
@@ -255,3 +255,5 @@ SELECT setval('procedure_steps_id_seq', (SELECT MAX(id) FROM procedure_steps));
 
 
 
+-- 公開日時が未設定の公開済みコンテンツを補完（公開日時によるキーセットページネーション用）
+UPDATE contents SET published_at = updated_at WHERE status = 'PUBLISHED' AND published_at IS NULL;
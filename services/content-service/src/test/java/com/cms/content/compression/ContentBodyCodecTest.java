@@ -0,0 +1,173 @@
+package com.cms.content.compression;
+
+import com.cms.content.entity.ContentBodyDictionary;
+import com.cms.content.repository.ContentBodyDictionaryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ContentBodyCodecTest {
+    private static final long UNIVERSITY_ID = 1L;
+    private static final String BODY = "<p>入学手続きのご案内</p>\n<p>手続きの期限までに入学金を納付してください。</p>\n".repeat(40);
+
+    private ContentBodyDictionaryRepository dictionaryRepository;
+
+    @BeforeEach
+    void setUp() {
+        dictionaryRepository = mock(ContentBodyDictionaryRepository.class);
+    }
+
+    @Test
+    void headerCarriesFormatDictionaryAndLength() {
+        byte[] raw = BODY.getBytes(StandardCharsets.UTF_8);
+        byte[] data = ContentBodyCodec.deflate(raw, 42L, null);
+
+        assertEquals('C', data[0]);
+        assertEquals('Z', data[1]);
+        assertEquals(1, data[2]);
+        ByteBuffer header = ByteBuffer.wrap(data, 3, 12);
+        assertEquals(42L, header.getLong());
+        assertEquals(raw.length, header.getInt());
+    }
+
+    @Test
+    void roundTripsWithoutDictionary() {
+        ContentBodyCodec codec = codec(DataSize.ofBytes(0));
+
+        byte[] data = codec.compress(UNIVERSITY_ID, BODY);
+
+        assertNotNull(data);
+        assertTrue(data.length < BODY.getBytes(StandardCharsets.UTF_8).length);
+        assertEquals(0L, dictionaryId(data));
+        assertEquals(BODY, codec.decompress(data));
+        assertEquals(1L, codec.decompressCount());
+    }
+
+    @Test
+    void roundTripsWithDictionary() {
+        ContentBodyDictionary dictionary = dictionary(7L, "<p>入学手続きのご案内</p>\n<p>期限までに入学金を納付してください。</p>");
+        when(dictionaryRepository.findTopByUniversityIdOrderByIdDesc(UNIVERSITY_ID))
+                .thenReturn(Optional.of(dictionary));
+        when(dictionaryRepository.findById(7L)).thenReturn(Optional.of(dictionary));
+        String body = "<p>入学手続きのご案内</p>";
+
+        byte[] data = codec(DataSize.ofBytes(0)).compress(UNIVERSITY_ID, body);
+
+        assertNotNull(data);
+        assertEquals(7L, dictionaryId(data));
+        assertTrue(data.length < ContentBodyCodec.deflate(body.getBytes(StandardCharsets.UTF_8), 0L, null).length);
+        // 辞書をまだ読み込んでいない別のインスタンス（他のレプリカ）でも辞書IDから展開できる
+        assertEquals(body, codec(DataSize.ofBytes(0)).decompress(data));
+    }
+
+    @Test
+    void newDictionaryIsUsedForLaterWrites() {
+        ContentBodyCodec codec = codec(DataSize.ofBytes(0));
+        ContentBodyDictionary dictionary = dictionary(8L, BODY.substring(0, 100));
+
+        codec.dictionaryCreated(dictionary);
+        byte[] data = codec.compress(UNIVERSITY_ID, BODY);
+
+        assertEquals(8L, codec.currentDictionaryId(UNIVERSITY_ID));
+        assertEquals(8L, dictionaryId(data));
+        assertEquals(BODY, codec.decompress(data));
+    }
+
+    @Test
+    void leavesBodyPlainWhenCompressionDoesNotApply() {
+        ContentBodyCodec codec = codec(DataSize.ofKilobytes(1));
+
+        assertNull(codec.compress(2L, BODY));
+        assertNull(codec.compress(null, BODY));
+        assertNull(codec.compress(UNIVERSITY_ID, null));
+        assertNull(codec.compress(UNIVERSITY_ID, "short body"));
+        // 圧縮しても小さくならない
+        assertNull(codec(DataSize.ofBytes(0)).compress(UNIVERSITY_ID, "x"));
+    }
+
+    @Test
+    void rejectsUnknownFormat() {
+        ContentBodyCodec codec = codec(DataSize.ofBytes(0));
+        byte[] data = ContentBodyCodec.deflate(BODY.getBytes(StandardCharsets.UTF_8), 0L, null);
+
+        byte[] badMagic = data.clone();
+        badMagic[0] = 'X';
+        byte[] badVersion = data.clone();
+        badVersion[2] = 2;
+
+        byte[] shorterThanHeader = Arrays.copyOf(data, 14);
+        byte[] plain = BODY.getBytes(StandardCharsets.UTF_8);
+
+        for (byte[] bytes : List.of(badMagic, badVersion, shorterThanHeader, plain)) {
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> codec.decompress(bytes));
+            assertEquals("Unsupported compressed body format", e.getMessage());
+        }
+    }
+
+    @Test
+    void rejectsTruncatedData() {
+        ContentBodyCodec codec = codec(DataSize.ofBytes(0));
+        byte[] data = ContentBodyCodec.deflate(BODY.getBytes(StandardCharsets.UTF_8), 0L, null);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> codec.decompress(Arrays.copyOf(data, data.length / 2)));
+
+        assertEquals("Compressed body is truncated", e.getMessage());
+    }
+
+    @Test
+    void rejectsCorruptedData() {
+        ContentBodyCodec codec = codec(DataSize.ofBytes(0));
+        byte[] data = ContentBodyCodec.deflate(BODY.getBytes(StandardCharsets.UTF_8), 0L, null);
+        // 予約済みのブロック種別（BTYPE=11）にする
+        Arrays.fill(data, 15, data.length, (byte) 0xFF);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> codec.decompress(data));
+
+        assertEquals("Compressed body is corrupted", e.getMessage());
+    }
+
+    @Test
+    void rejectsMissingDictionary() {
+        ContentBodyCodec codec = codec(DataSize.ofBytes(0));
+        byte[] data = ContentBodyCodec.deflate(BODY.getBytes(StandardCharsets.UTF_8), 99L, new byte[]{1, 2, 3});
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> codec.decompress(data));
+
+        assertEquals("Compression dictionary 99 not found", e.getMessage());
+    }
+
+    private ContentBodyCodec codec(DataSize minSize) {
+        return new ContentBodyCodec(dictionaryRepository, new SimpleMeterRegistry(), List.of(UNIVERSITY_ID),
+                minSize, Duration.ofMinutes(5));
+    }
+
+    private static ContentBodyDictionary dictionary(long id, String text) {
+        return ContentBodyDictionary.builder()
+                .id(id)
+                .universityId(UNIVERSITY_ID)
+                .dictionary(text.getBytes(StandardCharsets.UTF_8))
+                .sampleCount(1)
+                .build();
+    }
+
+    private static long dictionaryId(byte[] data) {
+        return ByteBuffer.wrap(data, 3, 8).getLong();
+    }
+}
@@ -0,0 +1,55 @@
+package com.cms.content.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PaymentExportServiceTest {
+
+    @Test
+    void plainValuesAreWrittenAsIs() {
+        assertEquals("bank_transfer", PaymentExportService.csvValue("bank_transfer"));
+        assertEquals("", PaymentExportService.csvValue(null));
+        assertEquals("", PaymentExportService.csvValue(""));
+    }
+
+    @Test
+    void quotesValuesWithSeparatorsQuotesAndLineBreaks() {
+        assertEquals("\"a,b\"", PaymentExportService.csvValue("a,b"));
+        assertEquals("\"say \"\"hi\"\"\"", PaymentExportService.csvValue("say \"hi\""));
+        assertEquals("\"line1\nline2\"", PaymentExportService.csvValue("line1\nline2"));
+        assertEquals("\"line1\r\nline2\"", PaymentExportService.csvValue("line1\r\nline2"));
+    }
+
+    @Test
+    void neutralisesStringsThatLookLikeFormulas() {
+        assertEquals("'=1+1", PaymentExportService.csvValue("=1+1"));
+        assertEquals("'+81-3-1234", PaymentExportService.csvValue("+81-3-1234"));
+        assertEquals("'-2", PaymentExportService.csvValue("-2"));
+        assertEquals("'@SUM(A1:A2)", PaymentExportService.csvValue("@SUM(A1:A2)"));
+        assertEquals("'\tx", PaymentExportService.csvValue("\tx"));
+        assertEquals("\"'\rx\"", PaymentExportService.csvValue("\rx"));
+    }
+
+    @Test
+    void neutralisedFormulasAreStillQuotedWhenNeeded() {
+        assertEquals("\"'=HYPERLINK(\"\"http://example.com\"\",\"\"x\"\")\"",
+                PaymentExportService.csvValue("=HYPERLINK(\"http://example.com\",\"x\")"));
+    }
+
+    @Test
+    void leavesNumbersAndDatesAlone() {
+        assertEquals("-1500.00", PaymentExportService.csvValue(new BigDecimal("-1500.00")));
+        assertEquals("-3", PaymentExportService.csvValue(-3L));
+        assertEquals("2024-04-01T09:30", PaymentExportService.csvValue(LocalDateTime.of(2024, 4, 1, 9, 30)));
+    }
+
+    @Test
+    void joinsRowWithCommas() {
+        assertEquals("1,-100,'=cmd,\"a,b\",",
+                PaymentExportService.csvRow(1L, new BigDecimal("-100"), "=cmd", "a,b", null));
+    }
+}
@@ -0,0 +1,131 @@
+package com.cms.content.template;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CompiledTemplateTest {
+
+    @Test
+    void escapesHtmlInVariables() throws IOException {
+        String title = "<script>alert('x') && \"y\"</script>";
+
+        assertEquals("&lt;script&gt;alert(&#39;x&#39;) &amp;&amp; &quot;y&quot;&lt;/script&gt;",
+                render("{{title}}", Map.of("title", title)));
+    }
+
+    @Test
+    void tripleAndAmpersandWriteRawValues() throws IOException {
+        Map<String, Object> model = Map.of("body", "<p>a & b</p>");
+
+        assertEquals("<p>a & b</p>|<p>a & b</p>", render("{{{body}}}|{{& body}}", model));
+    }
+
+    @Test
+    void missingAndNullValuesRenderEmpty() throws IOException {
+        Map<String, Object> model = new HashMap<>();
+        model.put("empty", null);
+
+        assertEquals("[][][]", render("[{{missing}}][{{empty}}][{{missing.deeper}}]", model));
+    }
+
+    @Test
+    void nonStringValuesUseToString() throws IOException {
+        assertEquals("3 true 1.5", render("{{n}} {{b}} {{d}}", Map.of("n", 3, "b", true, "d", 1.5)));
+    }
+
+    @Test
+    void dottedNamesWalkNestedMaps() throws IOException {
+        Map<String, Object> model = Map.of("fields", Map.of("deadline", Map.of("date", "2024-04-01")));
+
+        assertEquals("2024-04-01", render("{{fields.deadline.date}}", model));
+        assertEquals("", render("{{fields.deadline.date.year}}", model));
+    }
+
+    @Test
+    void sectionIteratesOverLists() throws IOException {
+        Map<String, Object> model = Map.of("items", List.of(
+                Map.of("name", "A & B"),
+                Map.of("name", "C")));
+
+        assertEquals("<li>A &amp; B</li><li>C</li>", render("{{#items}}<li>{{name}}</li>{{/items}}", model));
+    }
+
+    @Test
+    void dotIsTheCurrentItem() throws IOException {
+        assertEquals("1,2,3,", render("{{#numbers}}{{.}},{{/numbers}}", Map.of("numbers", List.of(1, 2, 3))));
+    }
+
+    @Test
+    void sectionOverMapPushesItsScope() throws IOException {
+        Map<String, Object> model = Map.of("title", "outer", "author", Map.of("name", "Sato"));
+
+        // 内側のスコープにない名前は外側から探す
+        assertEquals("Sato / outer", render("{{#author}}{{name}} / {{title}}{{/author}}", model));
+    }
+
+    @Test
+    void innerScopeShadowsOuterScope() throws IOException {
+        Map<String, Object> model = Map.of("name", "outer", "child", Map.of("name", "inner"));
+
+        assertEquals("inner outer", render("{{#child}}{{name}}{{/child}} {{name}}", model));
+    }
+
+    @Test
+    void sectionRendersOnlyForTruthyValues() throws IOException {
+        Map<String, Object> model = new HashMap<>();
+        model.put("yes", true);
+        model.put("no", false);
+        model.put("text", "x");
+        model.put("blank", "");
+        model.put("none", null);
+        model.put("emptyList", List.of());
+        model.put("emptyMap", Map.of());
+        model.put("zero", 0);
+
+        String template = "{{#yes}}yes {{/yes}}{{#no}}no {{/no}}{{#text}}text {{/text}}{{#blank}}blank {{/blank}}"
+                + "{{#none}}none {{/none}}{{#emptyList}}emptyList {{/emptyList}}{{#emptyMap}}emptyMap {{/emptyMap}}"
+                + "{{#zero}}zero {{/zero}}{{#missing}}missing {{/missing}}";
+
+        assertEquals("yes text zero ", render(template, model));
+    }
+
+    @Test
+    void invertedSectionRendersForFalsyValues() throws IOException {
+        Map<String, Object> model = new HashMap<>();
+        model.put("no", false);
+        model.put("emptyList", List.of());
+        model.put("emptyMap", Map.of());
+        model.put("text", "x");
+        model.put("items", List.of("a"));
+
+        String template = "{{^no}}no {{/no}}{{^emptyList}}emptyList {{/emptyList}}{{^emptyMap}}emptyMap {{/emptyMap}}"
+                + "{{^missing}}missing {{/missing}}{{^text}}text {{/text}}{{^items}}items {{/items}}";
+
+        assertEquals("no emptyList emptyMap missing ", render(template, model));
+    }
+
+    @Test
+    void templateCanBeRenderedRepeatedly() throws IOException {
+        CompiledTemplate template = TemplateParser.parse("<h1>{{title}}</h1>");
+
+        assertEquals("<h1>a</h1>", render(template, Map.of("title", "a")));
+        assertEquals("<h1>b</h1>", render(template, Map.of("title", "b")));
+    }
+
+    private static String render(String source, Map<String, Object> model) throws IOException {
+        return render(TemplateParser.parse(source), model);
+    }
+
+    private static String render(CompiledTemplate template, Map<String, Object> model) throws IOException {
+        StringWriter out = new StringWriter();
+        template.render(model, out);
+        return out.toString();
+    }
+}
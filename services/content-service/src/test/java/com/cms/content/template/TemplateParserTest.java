@@ -0,0 +1,88 @@
+package com.cms.content.template;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TemplateParserTest {
+
+    @Test
+    void plainTextIsKeptAsIs() throws IOException {
+        assertEquals("<p>{ not a tag }</p>", render("<p>{ not a tag }</p>", Map.of()));
+        assertEquals("", render("", Map.of()));
+        assertEquals("", render(null, Map.of()));
+    }
+
+    @Test
+    void commentsAreDropped() throws IOException {
+        assertEquals("ab", render("a{{! note with {braces} }}b", Map.of()));
+    }
+
+    @Test
+    void whitespaceInsideTagsIsIgnored() throws IOException {
+        assertEquals("x x", render("{{ name }} {{#flag}}{{  name  }}{{/ flag }}",
+                Map.of("name", "x", "flag", true)));
+    }
+
+    @Test
+    void nestedSectionsCloseInOrder() throws IOException {
+        Map<String, Object> model = Map.of("rows", List.of(
+                Map.of("cells", List.of("a", "b")),
+                Map.of("cells", List.of("c"))));
+
+        assertEquals("[a,b,][c,]", render("{{#rows}}[{{#cells}}{{.}},{{/cells}}]{{/rows}}", model));
+    }
+
+    @Test
+    void sourceLengthIsTheTemplateLength() {
+        assertEquals(12, TemplateParser.parse("{{title}} - ").sourceLength());
+    }
+
+    @Test
+    void rejectsUnclosedTag() {
+        assertMessage("Invalid template: unclosed tag at 4", "abc {{title");
+        assertMessage("Invalid template: unclosed tag at 0", "{{{body}}");
+    }
+
+    @Test
+    void rejectsUnexpectedClosingTag() {
+        assertMessage("Invalid template: unexpected {{/items}} at 6", "text: {{/items}}");
+        assertMessage("Invalid template: unexpected {{/b}} at 12", "{{#a}}{{/a}}{{/b}}");
+    }
+
+    @Test
+    void rejectsMismatchedNesting() {
+        assertMessage("Invalid template: unexpected {{/a}} at 12", "{{#a}}{{#b}}{{/a}}{{/b}}");
+    }
+
+    @Test
+    void rejectsUnclosedSection() {
+        assertMessage("Invalid template: unclosed section 'items'", "{{#items}}<li>{{.}}</li>");
+        assertMessage("Invalid template: unclosed section 'inner'", "{{#outer}}{{^inner}}");
+    }
+
+    @Test
+    void rejectsBadNames() {
+        assertMessage("Invalid template: bad name '' at 2", "a {{}}");
+        assertMessage("Invalid template: bad name 'two words' at 0", "{{two words}}");
+        assertMessage("Invalid template: bad name 'fields..x' at 0", "{{#fields..x}}{{/fields..x}}");
+        assertMessage("Invalid template: bad name '.name' at 3", "-- {{&.name}}");
+    }
+
+    private static void assertMessage(String expected, String source) {
+        RuntimeException e = assertThrows(RuntimeException.class, () -> TemplateParser.parse(source));
+        assertEquals(expected, e.getMessage());
+    }
+
+    private static String render(String source, Map<String, Object> model) throws IOException {
+        StringWriter out = new StringWriter();
+        TemplateParser.parse(source).render(model, out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,191 @@
+package com.cms.content.version;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MyersDiffTest {
+
+    @Test
+    void identicalSequencesAreOneEqualRange() {
+        List<MyersDiff.Edit> edits = MyersDiff.diff(List.of("a", "b", "c"), List.of("a", "b", "c"));
+
+        assertEquals(List.of(new MyersDiff.Edit(MyersDiff.Op.EQUAL, 0, 3, 0, 3)), edits);
+    }
+
+    @Test
+    void emptyInputs() {
+        assertEquals(List.of(), MyersDiff.diff(List.of(), List.of()));
+        assertEquals(List.of(new MyersDiff.Edit(MyersDiff.Op.INSERT, 0, 0, 0, 2)),
+                MyersDiff.diff(List.of(), List.of("x", "y")));
+        assertEquals(List.of(new MyersDiff.Edit(MyersDiff.Op.DELETE, 0, 2, 0, 0)),
+                MyersDiff.diff(List.of("x", "y"), List.of()));
+    }
+
+    @Test
+    void adjacentEditsOfTheSameKindAreMerged() {
+        List<MyersDiff.Edit> edits = MyersDiff.diff(tokens("a b c d"), tokens("a x y d"));
+
+        assertValidScript(tokens("a b c d"), tokens("a x y d"), edits);
+        assertEquals(4, edits.size());
+        assertEquals(new MyersDiff.Edit(MyersDiff.Op.EQUAL, 0, 1, 0, 1), edits.get(0));
+        assertEquals(new MyersDiff.Edit(MyersDiff.Op.DELETE, 1, 3, 1, 1), edits.get(1));
+        assertEquals(new MyersDiff.Edit(MyersDiff.Op.INSERT, 3, 3, 1, 3), edits.get(2));
+        assertEquals(new MyersDiff.Edit(MyersDiff.Op.EQUAL, 3, 4, 3, 4), edits.get(3));
+    }
+
+    @Test
+    void findsShortestEditScriptOfPaperExample() {
+        // Myers (1986) の例: ABCABBA → CBABAC の編集距離は 5
+        List<String> a = tokens("A B C A B B A");
+        List<String> b = tokens("C B A B A C");
+        List<MyersDiff.Edit> edits = MyersDiff.diff(a, b);
+
+        assertValidScript(a, b, edits);
+        assertEquals(4, equalTokens(edits));
+    }
+
+    @Test
+    void randomSequencesProduceValidMinimalScripts() {
+        Random random = new Random(20240401L);
+        for (int round = 0; round < 2000; round++) {
+            // 語彙を小さくして一致・不一致が入り混じるようにする
+            int alphabet = 1 + random.nextInt(4);
+            int[] a = randomSequence(random, random.nextInt(25), alphabet);
+            int[] b = random.nextBoolean()
+                    ? mutate(random, a, alphabet)
+                    : randomSequence(random, random.nextInt(25), alphabet);
+
+            List<MyersDiff.Edit> edits = MyersDiff.diff(a, b, MyersDiff.DEFAULT_MAX_EDITS);
+
+            assertValidScript(a, b, edits);
+            assertEquals(lcsLength(a, b), equalTokens(edits), "not minimal for round " + round);
+        }
+    }
+
+    @Test
+    void fallsBackToReplacingTheMiddleWhenMaxEditsIsExceeded() {
+        List<String> a = tokens("head a b c d e tail");
+        List<String> b = tokens("head v w x y z tail");
+        List<MyersDiff.Edit> edits = MyersDiff.diff(a, b, 3);
+
+        assertValidScript(a, b, edits);
+        assertEquals(List.of(
+                new MyersDiff.Edit(MyersDiff.Op.EQUAL, 0, 1, 0, 1),
+                new MyersDiff.Edit(MyersDiff.Op.DELETE, 1, 6, 1, 1),
+                new MyersDiff.Edit(MyersDiff.Op.INSERT, 6, 6, 1, 6),
+                new MyersDiff.Edit(MyersDiff.Op.EQUAL, 6, 7, 6, 7)), edits);
+    }
+
+    @Test
+    void fallbackScriptsAreStillValidForRandomInput() {
+        Random random = new Random(7L);
+        for (int round = 0; round < 500; round++) {
+            int[] a = randomSequence(random, random.nextInt(40), 3);
+            int[] b = randomSequence(random, random.nextInt(40), 3);
+            int maxEdits = random.nextInt(6);
+
+            List<MyersDiff.Edit> edits = MyersDiff.diff(a, b, maxEdits);
+
+            assertValidScript(a, b, edits);
+        }
+    }
+
+    // 編集が a・b の両方を先頭から隙間なく覆い、EQUAL の範囲が実際に一致していること
+    private static void assertValidScript(List<String> a, List<String> b, List<MyersDiff.Edit> edits) {
+        assertValidScript(ids(a, a, b), ids(b, a, b), edits);
+    }
+
+    private static void assertValidScript(int[] a, int[] b, List<MyersDiff.Edit> edits) {
+        int aPos = 0;
+        int bPos = 0;
+        MyersDiff.Op previous = null;
+        for (MyersDiff.Edit edit : edits) {
+            assertEquals(aPos, edit.aStart(), () -> "gap in a at " + edit);
+            assertEquals(bPos, edit.bStart(), () -> "gap in b at " + edit);
+            assertTrue(edit.op() != previous, () -> "unmerged " + edit);
+            switch (edit.op()) {
+                case EQUAL -> {
+                    assertEquals(edit.aEnd() - edit.aStart(), edit.bEnd() - edit.bStart());
+                    for (int i = 0; i < edit.aEnd() - edit.aStart(); i++) {
+                        assertEquals(a[edit.aStart() + i], b[edit.bStart() + i], () -> "unequal " + edit);
+                    }
+                }
+                case DELETE -> assertEquals(edit.bStart(), edit.bEnd());
+                case INSERT -> assertEquals(edit.aStart(), edit.aEnd());
+            }
+            assertTrue(edit.aEnd() > edit.aStart() || edit.bEnd() > edit.bStart(), () -> "empty " + edit);
+            aPos = edit.aEnd();
+            bPos = edit.bEnd();
+            previous = edit.op();
+        }
+        assertEquals(a.length, aPos);
+        assertEquals(b.length, bPos);
+    }
+
+    private static int equalTokens(List<MyersDiff.Edit> edits) {
+        return edits.stream()
+                .filter(edit -> edit.op() == MyersDiff.Op.EQUAL)
+                .mapToInt(edit -> edit.aEnd() - edit.aStart())
+                .sum();
+    }
+
+    private static int lcsLength(int[] a, int[] b) {
+        int[][] table = new int[a.length + 1][b.length + 1];
+        for (int i = a.length - 1; i >= 0; i--) {
+            for (int j = b.length - 1; j >= 0; j--) {
+                table[i][j] = a[i] == b[j] ? table[i + 1][j + 1] + 1 : Math.max(table[i + 1][j], table[i][j + 1]);
+            }
+        }
+        return table[0][0];
+    }
+
+    private static int[] randomSequence(Random random, int length, int alphabet) {
+        int[] sequence = new int[length];
+        for (int i = 0; i < length; i++) {
+            sequence[i] = random.nextInt(alphabet);
+        }
+        return sequence;
+    }
+
+    // 元の列に少数の挿入・削除・置換を加える（実際の編集に近い入力）
+    private static int[] mutate(Random random, int[] source, int alphabet) {
+        List<Integer> result = new ArrayList<>();
+        for (int token : source) {
+            result.add(token);
+        }
+        int changes = random.nextInt(5);
+        for (int i = 0; i < changes; i++) {
+            int position = result.isEmpty() ? 0 : random.nextInt(result.size());
+            switch (random.nextInt(3)) {
+                case 0 -> result.add(position, random.nextInt(alphabet));
+                case 1 -> {
+                    if (!result.isEmpty()) {
+                        result.remove(position);
+                    }
+                }
+                default -> {
+                    if (!result.isEmpty()) {
+                        result.set(position, random.nextInt(alphabet));
+                    }
+                }
+            }
+        }
+        return result.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static List<String> tokens(String text) {
+        return List.of(text.split(" "));
+    }
+
+    private static int[] ids(List<String> sequence, List<String> a, List<String> b) {
+        List<String> vocabulary = new ArrayList<>(a);
+        vocabulary.addAll(b);
+        return sequence.stream().mapToInt(vocabulary::indexOf).toArray();
+    }
+}
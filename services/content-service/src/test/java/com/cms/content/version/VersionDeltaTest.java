@@ -0,0 +1,111 @@
+package com.cms.content.version;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VersionDeltaTest {
+
+    @Test
+    void encodesLineCommands() {
+        String delta = VersionDelta.encode("a\nb\nc", "a\nx\nc\nd");
+
+        assertEquals("=1\n-1\n+1\nx\n=1\n+1\nd\n", delta);
+    }
+
+    @Test
+    void roundTripsEdgeCases() {
+        String[][] cases = {
+                {"", ""},
+                {"", "new"},
+                {"old", ""},
+                {"same\nbody", "same\nbody"},
+                {"line\n", "line"},
+                {"line", "line\n"},
+                {"\n\n", "\n"},
+                {"a\nb\nc", "c\nb\na"},
+                // 命令と紛らわしい内容の行
+                {"=1\n-2", "+3\n=1\n-2\n"},
+                {"日本語の本文\n二行目", "日本語の本文\n変更した二行目"},
+        };
+        for (String[] pair : cases) {
+            assertRoundTrip(pair[0], pair[1]);
+        }
+    }
+
+    @Test
+    void nullIsTreatedAsEmpty() {
+        assertEquals("", VersionDelta.apply(null, VersionDelta.encode(null, "")));
+        assertEquals("text", VersionDelta.apply("", VersionDelta.encode(null, "text")));
+    }
+
+    @Test
+    void roundTripsRandomEdits() {
+        Random random = new Random(42L);
+        String[] vocabulary = {"", "a", "b", "c", "=1", "+1", "-1", "本文"};
+        for (int round = 0; round < 1000; round++) {
+            List<String> from = new ArrayList<>();
+            int length = random.nextInt(20);
+            for (int i = 0; i < length; i++) {
+                from.add(vocabulary[random.nextInt(vocabulary.length)]);
+            }
+            List<String> to = new ArrayList<>(from);
+            int changes = random.nextInt(6);
+            for (int i = 0; i < changes; i++) {
+                int position = random.nextInt(to.size() + 1);
+                if (random.nextBoolean() || to.isEmpty() || position == to.size()) {
+                    to.add(position, vocabulary[random.nextInt(vocabulary.length)]);
+                } else {
+                    to.remove(position);
+                }
+            }
+            assertRoundTrip(String.join("\n", from), String.join("\n", to));
+        }
+    }
+
+    @Test
+    void rejectsUnknownCommand() {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> VersionDelta.apply("a", "*1\n"));
+
+        assertEquals("Corrupted version delta: *1", e.getMessage());
+    }
+
+    @Test
+    void rejectsMalformedCounts() {
+        assertThrows(IllegalStateException.class, () -> VersionDelta.apply("a", "=x\n"));
+        assertThrows(IllegalStateException.class, () -> VersionDelta.apply("a", "\n"));
+        assertThrows(IllegalStateException.class, () -> VersionDelta.apply("a", "=-1\n"));
+    }
+
+    @Test
+    void rejectsInsertRunningPastTheEnd() {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> VersionDelta.apply("a", "=1\n+3\nx\n"));
+
+        assertEquals("Corrupted version delta: +3", e.getMessage());
+    }
+
+    @Test
+    void rejectsDeltaForADifferentBase() {
+        String delta = VersionDelta.encode("a\nb\nc", "a\nc");
+
+        IllegalStateException shorter = assertThrows(IllegalStateException.class,
+                () -> VersionDelta.apply("a\nb", delta));
+        IllegalStateException longer = assertThrows(IllegalStateException.class,
+                () -> VersionDelta.apply("a\nb\nc\nd", delta));
+
+        assertEquals("Version delta does not match its base version", shorter.getMessage());
+        assertEquals("Version delta does not match its base version", longer.getMessage());
+    }
+
+    private static void assertRoundTrip(String from, String to) {
+        assertEquals(to, VersionDelta.apply(from, VersionDelta.encode(from, to)),
+                () -> "round trip failed: " + from.replace("\n", "\\n") + " -> " + to.replace("\n", "\\n"));
+    }
+}
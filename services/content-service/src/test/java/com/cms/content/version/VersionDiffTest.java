@@ -0,0 +1,171 @@
+package com.cms.content.version;
+
+import com.cms.content.dto.ContentVersionDiffResponse.Hunk;
+import com.cms.content.dto.ContentVersionDiffResponse.Line;
+import com.cms.content.dto.ContentVersionDiffResponse.LineType;
+import com.cms.content.dto.ContentVersionDiffResponse.Segment;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class VersionDiffTest {
+
+    @Test
+    void identicalBodiesHaveNoHunks() {
+        VersionDiff diff = VersionDiff.compute("a\nb\nc", "a\nb\nc", 3);
+
+        assertEquals(List.of(), diff.hunks());
+        assertEquals(0, diff.addedLines());
+        assertEquals(0, diff.removedLines());
+    }
+
+    @Test
+    void changedLineIsSurroundedByContext() {
+        VersionDiff diff = VersionDiff.compute("a\nb\nc\nd\ne", "a\nb\nX\nd\ne", 1);
+
+        assertEquals(List.of(List.of("@@ -2,3 +2,3 @@", " b", "-c", "+X", " d")), render(diff));
+        assertEquals(1, diff.addedLines());
+        assertEquals(1, diff.removedLines());
+    }
+
+    @Test
+    void lineNumbersFollowEachSide() {
+        Hunk hunk = VersionDiff.compute("a\nb\nc", "a\nnew\nb\nc", 1).hunks().get(0);
+        List<Line> lines = hunk.getLines();
+
+        assertEquals(List.of(" a", "+new", " b"), render(hunk).subList(1, 4));
+        assertEquals(Arrays.asList(1, 1), lineNumbers(lines.get(0)));
+        assertEquals(Arrays.asList(null, 2), lineNumbers(lines.get(1)));
+        assertEquals(Arrays.asList(2, 3), lineNumbers(lines.get(2)));
+    }
+
+    @Test
+    void distantChangesAreSeparateHunks() {
+        VersionDiff diff = VersionDiff.compute(
+                "1\n2\n3\n4\n5\n6\n7\n8\n9\n10",
+                "1\nB\n3\n4\n5\n6\n7\n8\nI\n10", 1);
+
+        assertEquals(List.of(
+                List.of("@@ -1,3 +1,3 @@", " 1", "-2", "+B", " 3"),
+                List.of("@@ -8,3 +8,3 @@", " 8", "-9", "+I", " 10")), render(diff));
+    }
+
+    @Test
+    void nearbyChangesShareAHunk() {
+        VersionDiff diff = VersionDiff.compute(
+                "1\n2\n3\n4\n5\n6\n7",
+                "1\nB\n3\n4\nE\n6\n7", 1);
+
+        assertEquals(List.of(List.of("@@ -1,6 +1,6 @@",
+                " 1", "-2", "+B", " 3", " 4", "-5", "+E", " 6")), render(diff));
+    }
+
+    @Test
+    void contextIsClippedAtTheEdgesOfTheBody() {
+        VersionDiff diff = VersionDiff.compute("a\nb", "new\na\nb\nend", 3);
+
+        assertEquals(List.of(List.of("@@ -1,2 +1,4 @@", "+new", " a", " b", "+end")), render(diff));
+        assertEquals(2, diff.addedLines());
+        assertEquals(0, diff.removedLines());
+    }
+
+    @Test
+    void countsAddedAndRemovedLines() {
+        VersionDiff diff = VersionDiff.compute("a\nb\nc\nd", "a\nx\ny\nz\nd", 0);
+
+        assertEquals(List.of(List.of("@@ -2,2 +2,3 @@", "-b", "-c", "+x", "+y", "+z")), render(diff));
+        assertEquals(3, diff.addedLines());
+        assertEquals(2, diff.removedLines());
+    }
+
+    @Test
+    void pairedLinesHaveWordSegments() {
+        List<Line> lines = VersionDiff.compute("the quick brown fox", "the slow brown fox", 0)
+                .hunks().get(0).getLines();
+
+        assertEquals(List.of("=the ", "-quick", "= brown fox"), segments(lines.get(0)));
+        assertEquals(List.of("=the ", "+slow", "= brown fox"), segments(lines.get(1)));
+    }
+
+    @Test
+    void japaneseTextIsComparedPerCharacter() {
+        List<Line> lines = VersionDiff.compute("今日は晴れです", "今日は雨です", 0).hunks().get(0).getLines();
+
+        assertEquals(List.of("=今日は", "-晴れ", "=です"), segments(lines.get(0)));
+        assertEquals(List.of("=今日は", "+雨", "=です"), segments(lines.get(1)));
+    }
+
+    @Test
+    void unpairedLinesHaveNoSegments() {
+        List<Line> lines = VersionDiff.compute("a", "b\nc", 0).hunks().get(0).getLines();
+
+        assertEquals(List.of("-a"), segments(lines.get(0)));
+        assertEquals(List.of("+b"), segments(lines.get(1)));
+        assertNull(lines.get(2).getSegments());
+    }
+
+    @Test
+    void veryLongLinesAreNotComparedByWord() {
+        String longLine = "x".repeat(10_001);
+        List<Line> lines = VersionDiff.compute(longLine, longLine + " y", 0).hunks().get(0).getLines();
+
+        assertNull(lines.get(0).getSegments());
+        assertNull(lines.get(1).getSegments());
+    }
+
+    @Test
+    void tokenizesWordsWhitespaceAndCharacters() {
+        assertEquals(List.of("Hello", ",", " ", "world", "  ", "v2"), VersionDiff.tokenize("Hello, world  v2"));
+        assertEquals(List.of("2024", "年", "度", "の", "カ", "タ", "ロ", "グ"), VersionDiff.tokenize("2024年度のカタログ"));
+        assertEquals(List.of(), VersionDiff.tokenize(""));
+    }
+
+    // unified diff と同じ表記（"@@ -from,n +to,n @@" の後に ' '・'-'・'+' 付きの行）
+    private static List<List<String>> render(VersionDiff diff) {
+        List<List<String>> hunks = new ArrayList<>();
+        for (Hunk hunk : diff.hunks()) {
+            hunks.add(render(hunk));
+        }
+        return hunks;
+    }
+
+    private static List<String> render(Hunk hunk) {
+        List<String> out = new ArrayList<>();
+        out.add("@@ -" + hunk.getFromStart() + "," + hunk.getFromLines()
+                + " +" + hunk.getToStart() + "," + hunk.getToLines() + " @@");
+        for (Line line : hunk.getLines()) {
+            out.add(prefix(line.getType()) + line.getText());
+        }
+        return out;
+    }
+
+    private static List<Integer> lineNumbers(Line line) {
+        return Arrays.asList(line.getFromLineNumber(), line.getToLineNumber());
+    }
+
+    private static List<String> segments(Line line) {
+        List<String> out = new ArrayList<>();
+        for (Segment segment : line.getSegments()) {
+            String prefix = switch (segment.getType()) {
+                case EQUAL -> "=";
+                case ADDED -> "+";
+                case REMOVED -> "-";
+            };
+            out.add(prefix + segment.getText());
+        }
+        return out;
+    }
+
+    private static String prefix(LineType type) {
+        return switch (type) {
+            case CONTEXT -> " ";
+            case ADDED -> "+";
+            case REMOVED -> "-";
+        };
+    }
+}